@@ -0,0 +1,83 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+// import JMH annotations
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.file.Files;
+// import Files to create and remove the temporary ledger
+
+import java.nio.file.Path;
+// import Path to locate the temporary ledger
+
+import java.time.LocalDate;
+// import LocalDate for the appended transactions
+
+import java.time.LocalTime;
+// import LocalTime for the appended transactions
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the reported units
+
+/*
+ Append benchmark
+ ------------------------------------------------
+ The addDeposit / addPayment path without the Scanner: add the
+ transaction to the ledger (store and every index) and queue its
+ line on the group-commit writer, under each durability policy.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AppendBenchmark {
+
+    @Param({"NONE", "FLUSH", "FSYNC"})
+    public AppendWriter.Durability durability;
+    // durability policy of the writer
+
+    private Path file;
+    private Ledger ledger;
+    private AppendWriter writer;
+    private long counter;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("ledger-append", ".csv");
+        ledger = new Ledger();
+        writer = new AppendWriter(file, durability, 100, 100);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() throws IOException {
+        writer.close();
+        Files.deleteIfExists(file);
+    }
+
+    @Benchmark
+    public int append() throws IOException {
+        long n = counter++;
+        Transaction t = new Transaction(LocalDate.ofEpochDay(18000 + n / 1000), LocalTime.ofSecondOfDay(n % 86400),
+                "Coffee", "Starbucks", -(n % 1000) / 100.0);
+        int row = ledger.append(t);
+        writer.append(t);
+        return row;
+    }
+}
@@ -0,0 +1,74 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+// import JMH annotations
+
+import java.time.LocalDate;
+// import LocalDate for the report range and appended rows
+
+import java.time.LocalTime;
+// import LocalTime for the appended rows
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the reported units
+
+/*
+ Query cache benchmarks
+ ------------------------------------------------
+ A year report like Previous Year, with the query cache on:
+   yearReportMiss     : cache cleared first, so the query engine runs
+   yearReportHit      : answered from the cache
+   appendThenReport   : a new transaction for today, then the same report,
+                        which stays cached because the new row is outside it
+*/
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    private static final Query YEAR = Query.between(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 12, 31));
+    // a full year in the middle of the generated ledger
+
+    private static final Transaction TODAY = new Transaction(LocalDate.of(2026, 1, 15), LocalTime.NOON,
+            "coffee", "Starbucks", -4.50);
+    // an appended row outside the report's range
+
+    @State(Scope.Benchmark)
+    public static class CacheOn {
+
+        @Setup(Level.Trial)
+        public void setUp(LedgerState state) {
+            state.ledger.getQueryCache().setCapacityBytes(QueryCache.DEFAULT_CAPACITY_BYTES);
+        }
+    }
+
+    @Benchmark
+    public int[] yearReportMiss(LedgerState state, CacheOn cache) {
+        state.ledger.getQueryCache().clear();
+        return state.ledger.query(YEAR, true);
+    }
+
+    @Benchmark
+    public int[] yearReportHit(LedgerState state, CacheOn cache) {
+        return state.ledger.query(YEAR, true);
+    }
+
+    @Benchmark
+    public int[] appendThenReport(LedgerState state, CacheOn cache) {
+        state.ledger.append(TODAY);
+        return state.ledger.query(YEAR, true);
+    }
+}
@@ -0,0 +1,80 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+// import JMH annotations
+
+import java.time.LocalDate;
+// import LocalDate for the appended transactions and report range
+
+import java.time.LocalTime;
+// import LocalTime for the appended transactions
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the reported units
+
+import java.util.concurrent.ThreadLocalRandom;
+// import ThreadLocalRandom to vary the appended rows per thread
+
+/*
+ Multi-writer ingestion benchmark
+ ------------------------------------------------
+ append : every thread appends to one ConcurrentLedger.
+          Run with -t 1, -t 2, -t 4 ... to see how throughput scales with writers.
+ mixed  : three appenders and one thread running month reports at the same time.
+*/
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConcurrentAppendBenchmark {
+
+    private static final String[] VENDORS = {"Walmart", "Shell", "Starbucks", "Amazon", "Target", "Costco"};
+
+    private ConcurrentLedger ledger;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        ledger = new ConcurrentLedger(new Ledger());
+    }
+
+    @Benchmark
+    public void append() {
+        ledger.append(randomTransaction());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(3)
+    public void mixedAppend() {
+        ledger.append(randomTransaction());
+    }
+
+    @Benchmark
+    @Group("mixed")
+    @GroupThreads(1)
+    public Rollups.Totals mixedReport() {
+        return ledger.readSnapshot(l -> l.totalsBetween(LocalDate.of(2020, 1, 1), LocalDate.of(2020, 1, 31)));
+    }
+
+    private static Transaction randomTransaction() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new Transaction(LocalDate.ofEpochDay(18200 + random.nextInt(60)),
+                LocalTime.ofSecondOfDay(random.nextInt(86400)), "Purchase",
+                VENDORS[random.nextInt(VENDORS.length)], -random.nextInt(1, 10000) / 100.0);
+    }
+}
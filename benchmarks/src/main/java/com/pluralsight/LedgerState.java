@@ -0,0 +1,77 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+// import JMH annotations for shared benchmark state
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.io.Writer;
+// import Writer for the discarded render output
+
+import java.nio.file.Files;
+// import Files to create and remove the temporary ledger
+
+import java.nio.file.Path;
+// import Path to locate the generated CSV
+
+import java.util.Comparator;
+// import Comparator to delete the temp directory bottom-up
+
+import java.util.stream.Stream;
+// import Stream to walk the temp directory
+
+/*
+ Shared benchmark state
+ ------------------------------------------------
+ Generates a synthetic transactions.csv once per trial (same seed every
+ run, so results are comparable) and loads it into a Ledger.
+ Run with -p rows=100000000 for the largest ledgers.
+*/
+@State(Scope.Benchmark)
+public class LedgerState {
+
+    @Param({"10000", "1000000"})
+    public long rows;
+    // number of generated transactions
+
+    public Path directory;
+    // temp directory holding the CSV and its snapshot
+
+    public Path csv;
+    // generated transactions.csv
+
+    public Ledger ledger;
+    // ledger loaded from the CSV
+
+    public LedgerRenderer renderer;
+    // renderer writing to a discarded stream
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("ledger-bench");
+        csv = directory.resolve("transactions.csv");
+        LedgerGenerator.generate(csv, rows, 42);
+
+        ledger = new Ledger();
+        ledger.load(csv);
+        ledger.getQueryCache().setCapacityBytes(0);
+        // measure the query engine itself; CacheBenchmark turns the cache back on
+        renderer = new LedgerRenderer(ledger.getStore(), Writer.nullWriter(), 50);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+// import JMH annotations
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the reported units
+
+/*
+ Startup benchmarks
+ ------------------------------------------------
+ parseCsv   : the parallel CSV parser on its own (loadTransactions without the snapshot)
+ loadLedger : a full Ledger.load, i.e. snapshot + CSV tail + index builds,
+              as seen by the app on every start after the first
+*/
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LoadBenchmark {
+
+    @Benchmark
+    public TransactionStore parseCsv(LedgerState state) throws IOException {
+        return TransactionLoader.load(state.csv);
+    }
+
+    @Benchmark
+    public Ledger loadLedger(LedgerState state) throws IOException {
+        Ledger ledger = new Ledger();
+        ledger.load(state.csv);
+        return ledger;
+    }
+}
@@ -0,0 +1,78 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+// import JMH annotations
+
+import java.time.LocalDate;
+// import LocalDate for report ranges
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the reported units
+
+/*
+ Query and rendering benchmarks
+ ------------------------------------------------
+ The work behind each reports menu option, without the Scanner:
+   dateRange    : filterTransactionsByDate for one month
+   vendor       : filterTransactionsByVendor for a popular vendor
+   customSearch : customSearch with a date range, keyword and vendor
+   keyword      : customSearch with only a description keyword
+   orQuery      : a query engine OR of a vendor and a keyword-and-amount filter
+   monthSummary : the rollup totals printed above a date report
+   renderPage   : formatting one 50-row page of the ledger
+*/
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QueryBenchmark {
+
+    private static final LocalDate MONTH_START = LocalDate.of(2021, 6, 1);
+    private static final LocalDate MONTH_END = LocalDate.of(2021, 6, 30);
+    // a month in the middle of the generated ten years
+
+    @Benchmark
+    public int[] dateRange(LedgerState state) {
+        return state.ledger.rowsBetween((int) MONTH_START.toEpochDay(), (int) MONTH_END.toEpochDay());
+    }
+
+    @Benchmark
+    public int[] vendor(LedgerState state) {
+        return state.ledger.rowsForVendor("shell");
+    }
+
+    @Benchmark
+    public int[] customSearch(LedgerState state) {
+        return state.ledger.search(MONTH_START, MONTH_END, "coffee", "starbucks", null);
+    }
+
+    @Benchmark
+    public int[] keyword(LedgerState state) {
+        return state.ledger.search(null, null, "rent", null, null);
+    }
+
+    @Benchmark
+    public int[] orQuery(LedgerState state) {
+        return state.ledger.query(Query.or(Query.vendor("netflix"),
+                Query.and(Query.keyword("hotel"), Query.amountBetween(-50000, -30000))), false);
+    }
+
+    @Benchmark
+    public Rollups.Totals monthSummary(LedgerState state) {
+        return state.ledger.totalsBetween(MONTH_START, MONTH_END);
+    }
+
+    @Benchmark
+    public void renderPage(LedgerState state) {
+        int first = state.ledger.getStore().size() / 2;
+        state.renderer.printRange(null, first, first + 50);
+    }
+}
@@ -0,0 +1,303 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.ByteBuffer;
+// import ByteBuffer to write batches and read the file tail
+
+import java.nio.channels.FileChannel;
+// import FileChannel for the long-lived append channel
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to encode lines as UTF-8
+
+import java.nio.file.Files;
+// import Files to save a damaged trailing line aside
+
+import java.nio.file.Path;
+// import Path to locate the transactions file
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to open the file for appending
+
+import java.util.Arrays;
+// import Arrays to add a line break to a saved line
+
+import java.util.concurrent.Executors;
+// import Executors to create the flush timer thread
+
+import java.util.concurrent.ScheduledExecutorService;
+// import ScheduledExecutorService to flush every few milliseconds
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the flush interval
+
+/*
+ Group-commit append writer
+ ------------------------------------------------
+ Keeps transactions.csv open for the whole session instead of
+ opening and closing a FileWriter for every transaction.
+ Lines are buffered and written as one batch every N records or
+ every T milliseconds, whichever comes first.
+
+ Durability policy per batch:
+   NONE  - batches are only written when the buffer is full or on close
+   FLUSH - every batch is handed to the operating system
+   FSYNC - every batch is written and forced to disk
+
+ Only whole lines are ever buffered and each ends with a line break,
+ so on open an unterminated last line can only be a write cut short by
+ a crash; it is moved aside, so the next load never silently drops it
+ or reads it with a cut-off amount.
+*/
+public class AppendWriter implements AutoCloseable, LineSink {
+
+    // ------------------- Settings -------------------
+
+    public enum Durability { NONE, FLUSH, FSYNC }
+    // how far each batch is pushed before append returns to the caller's batch
+
+    private static final int MAX_BUFFER_CHARS = 1 << 16;
+    // NONE mode writes once the buffer reaches this size
+
+    private final Path path;
+    // file being appended to
+
+    private FileChannel channel;
+    // open append channel (replaced by reopen())
+
+    private final Durability durability;
+    // policy applied to every batch
+
+    private final int batchSize;
+    // records per batch
+
+    private final StringBuilder buffer = new StringBuilder();
+    // complete lines waiting to be written
+
+    private int pending;
+    // number of lines in the buffer
+
+    private final ScheduledExecutorService timer;
+    // flushes partial batches every T milliseconds (null in NONE mode)
+
+    private boolean closed;
+    // true once close() has run
+
+    private long bytesWritten;
+    // bytes this writer has added to the file
+
+    private WriteListener writeListener;
+    // sees every block just before it is written (the --follow reader), null if none
+
+    /**
+     * Told about every block of lines this writer puts in the file.
+     */
+    public interface WriteListener {
+
+        /**
+         * A block is about to be written. Called before the write, so a reader
+         * of the file can never see the bytes before it knows they are ours.
+         */
+        void beforeWrite(ByteBuffer block);
+
+        /**
+         * The write of the last block failed after 'written' of its bytes reached the file.
+         */
+        void writeFailed(int written);
+    }
+
+    /**
+     * Open the file for appending, repairing a damaged last line first.
+     */
+    public AppendWriter(Path path, Durability durability, int batchSize, long flushMillis) throws IOException {
+        repairTail(path);
+
+        this.path = path;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.durability = durability;
+        this.batchSize = Math.max(1, batchSize);
+
+        if (durability == Durability.NONE || flushMillis <= 0) {
+            timer = null;
+        } else {
+            timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "append-writer-flush");
+                thread.setDaemon(true);
+                return thread;
+            });
+            timer.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ------------------- Appending -------------------
+
+    /**
+     * Queue one transaction. It is written with the current batch.
+     */
+    public void append(Transaction t) throws IOException {
+        append(t.toCSVLine());
+    }
+
+    /**
+     * Queue one already formatted CSV line (without the line break).
+     */
+    public synchronized void append(String line) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        buffer.append(line).append('\n');
+        pending++;
+
+        if (durability == Durability.NONE ? buffer.length() >= MAX_BUFFER_CHARS : pending >= batchSize) {
+            flush();
+        }
+    }
+
+    /**
+     * Queue a block of complete lines, each ending with '\n', as one batch.
+     * Used by bulk import so a large file is written in a few big writes.
+     */
+    @Override
+    public synchronized void appendLines(CharSequence lines, int count) throws IOException {
+        if (closed) {
+            throw new IOException("Writer is closed");
+        }
+        buffer.append(lines);
+        pending += count;
+        flush();
+    }
+
+    /**
+     * Write every buffered line now, applying the durability policy.
+     */
+    public synchronized void flush() throws IOException {
+        if (pending == 0) {
+            return;
+        }
+        ByteBuffer bytes = StandardCharsets.UTF_8.encode(buffer.toString());
+        buffer.setLength(0);
+        pending = 0;
+
+        if (writeListener != null) {
+            writeListener.beforeWrite(bytes.duplicate());
+        }
+        int start = bytes.position();
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            if (writeListener != null) {
+                writeListener.writeFailed(bytes.position() - start);
+                // the listener forgets the bytes that never reached the file
+            }
+            throw e;
+        } finally {
+            bytesWritten += bytes.position() - start;
+        }
+        if (durability == Durability.FSYNC) {
+            channel.force(false);
+            // make the batch survive a power loss
+        }
+    }
+
+    /**
+     * Write what is left and close the file. Safe to call more than once.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        if (timer != null) {
+            timer.shutdownNow();
+        }
+        try {
+            flush();
+            if (durability != Durability.NONE) {
+                channel.force(false);
+            }
+        } finally {
+            closed = true;
+            channel.close();
+        }
+    }
+
+    /**
+     * Show every block of lines to the listener just before it is written, and tell it when a write fails.
+     */
+    public synchronized void setWriteListener(WriteListener listener) {
+        this.writeListener = listener;
+    }
+
+    /**
+     * Start appending to the file now at the path, after the old one was rotated away.
+     * Lines still in the buffer go to the new file.
+     */
+    public synchronized void reopen() throws IOException {
+        if (closed) {
+            return;
+        }
+        channel.close();
+        channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    public synchronized long getBytesWritten() { return bytesWritten; }
+    // returns the number of bytes written to the file so far
+
+    private void flushQuietly() {
+        // timer callback: write a partial batch that has waited T milliseconds
+        try {
+            flush();
+        } catch (IOException e) {
+            System.out.println("Error saving transaction: " + e.getMessage());
+        }
+    }
+
+    // ------------------- Crash Repair -------------------
+
+    /**
+     * If the file does not end with a line break, its last line was cut off:
+     * it is removed and saved to a ".partial" file next to the ledger, even when
+     * it still decodes ("1500.0" cut to "150" is a valid but wrong amount).
+     */
+    static void repairTail(Path path) throws IOException {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (FileChannel file = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long size = file.size();
+            if (size == 0 || lastByte(file, size) == '\n') {
+                return;
+            }
+
+            long lineStart = size;
+            while (lineStart > 0 && lastByte(file, lineStart) != '\n') {
+                lineStart--;
+                // walk back to the start of the unterminated line
+            }
+            byte[] tail = new byte[(int) (size - lineStart)];
+            file.read(ByteBuffer.wrap(tail), lineStart);
+
+            Path partial = path.resolveSibling(path.getFileName() + ".partial");
+            byte[] saved = Arrays.copyOf(tail, tail.length + 1);
+            saved[tail.length] = '\n';
+            // one line per cut-off record, should this happen more than once
+            Files.write(partial, saved, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            file.truncate(lineStart);
+            System.out.println("Warning: removed an incomplete last line from " + path
+                    + " (saved to " + partial + ")");
+        }
+    }
+
+    private static byte lastByte(FileChannel file, long end) throws IOException {
+        ByteBuffer one = ByteBuffer.allocate(1);
+        file.read(one, end - 1);
+        return one.get(0);
+    }
+}
@@ -0,0 +1,141 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+/*
+ Balance index
+ ------------------------------------------------
+ Fenwick (binary indexed) tree of net cents per day, so the balance
+ through any date and the net change between two dates are prefix sums
+ found in O(log days) instead of a scan over every amount. Amounts are
+ whole cents, so sums are exact.
+
+ The tree covers a window of consecutive epoch days starting at
+ 'firstDay'. A transaction inside the window, back-dated or not, updates
+ O(log days) nodes; one outside it grows the window (doubling, so the
+ occasional rebuild is cheap over many appends) and rebuilds the tree
+ from the per-day totals in O(days).
+*/
+public class BalanceIndex {
+
+    private int firstDay;
+    // epoch day stored at index 1 of the tree
+
+    private long[] daily = new long[0];
+    // day - firstDay -> net cents of that day
+
+    private long[] tree = new long[1];
+    // Fenwick tree over 'daily', 1-based
+
+    private long total;
+    // net of every transaction
+
+    // ------------------- Building -------------------
+
+    /**
+     * Rebuild the tree from every row of the store.
+     */
+    public void rebuild(TransactionStore store) {
+        daily = new long[0];
+        tree = new long[1];
+        total = 0;
+        if (store.size() == 0) {
+            return;
+        }
+        int min = Integer.MAX_VALUE;
+        int max = Integer.MIN_VALUE;
+        for (int row = 0; row < store.size(); row++) {
+            min = Math.min(min, store.epochDay(row));
+            max = Math.max(max, store.epochDay(row));
+        }
+        firstDay = min;
+        daily = new long[max - min + 1];
+        for (int row = 0; row < store.size(); row++) {
+            daily[store.epochDay(row) - min] += store.cents(row);
+            total += store.cents(row);
+        }
+        build();
+    }
+
+    /**
+     * Add one transaction, at any date. O(log days) unless the window has to grow.
+     */
+    public void add(int epochDay, long cents) {
+        if (daily.length == 0) {
+            firstDay = epochDay;
+            daily = new long[1];
+            tree = new long[2];
+        } else if (epochDay < firstDay || epochDay >= firstDay + daily.length) {
+            grow(epochDay);
+        }
+        int index = epochDay - firstDay;
+        daily[index] += cents;
+        total += cents;
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += cents;
+        }
+    }
+
+    // ------------------- Queries -------------------
+
+    /**
+     * Net cents of every transaction dated on or before the day. O(log days).
+     */
+    public long balanceThrough(int epochDay) {
+        if (daily.length == 0 || epochDay < firstDay) {
+            return 0;
+        }
+        if (epochDay >= firstDay + daily.length - 1) {
+            return total;
+        }
+        long sum = 0;
+        for (int i = epochDay - firstDay + 1; i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Net cents of the transactions dated between startDay and endDay inclusive. O(log days).
+     */
+    public long netBetween(int startDay, int endDay) {
+        if (endDay < startDay) {
+            return 0;
+        }
+        return balanceThrough(endDay) - balanceThrough(startDay - 1);
+    }
+
+    public long total() { return total; }
+    // returns the net of every transaction
+
+    // ------------------- Internals -------------------
+
+    private void grow(int epochDay) {
+        // widen the window to take in epochDay, at least doubling it, and rebuild the tree
+        int oldFirst = firstDay;
+        int oldLast = firstDay + daily.length - 1;
+        int first = Math.min(oldFirst, epochDay);
+        int last = Math.max(oldLast, epochDay);
+        int length = Math.max(last - first + 1, daily.length * 2);
+        if (epochDay < oldFirst) {
+            first = last - length + 1;
+            // back-dated: extend to the past
+        }
+        long[] grown = new long[length];
+        System.arraycopy(daily, 0, grown, oldFirst - first, daily.length);
+        firstDay = first;
+        daily = grown;
+        build();
+    }
+
+    private void build() {
+        // O(days) Fenwick build: each node passes its sum up to its parent
+        tree = new long[daily.length + 1];
+        System.arraycopy(daily, 0, tree, 1, daily.length);
+        for (int i = 1; i < tree.length; i++) {
+            int parent = i + (i & -i);
+            if (parent < tree.length) {
+                tree[parent] += tree[i];
+            }
+        }
+    }
+}
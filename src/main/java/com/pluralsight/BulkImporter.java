@@ -0,0 +1,503 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.ByteBuffer;
+// import ByteBuffer to read the file in large blocks
+
+import java.nio.channels.FileChannel;
+// import FileChannel to stream the import file
+
+import java.nio.file.Path;
+// import Path to locate the import file
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to open the file read-only
+
+import java.util.ArrayList;
+// import ArrayList to keep the pipeline threads
+
+import java.util.Arrays;
+// import Arrays to carry partial lines between blocks
+
+import java.util.HashMap;
+// import HashMap to put parsed blocks back in file order
+
+import java.util.List;
+// import List for the pipeline threads
+
+import java.util.Map;
+// import Map for the reorder buffer
+
+import java.util.concurrent.ArrayBlockingQueue;
+// import ArrayBlockingQueue for the bounded queues between stages
+
+import java.util.concurrent.BlockingQueue;
+// import BlockingQueue as the queue type
+
+import java.util.concurrent.Semaphore;
+// import Semaphore to cap the blocks between the reader and the appender
+
+import java.util.concurrent.ThreadFactory;
+// import ThreadFactory to start the pipeline threads
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the queue wait timeouts
+
+import java.util.concurrent.atomic.AtomicBoolean;
+// import AtomicBoolean for the stop flag shared by the stages
+
+import java.util.concurrent.atomic.AtomicReference;
+// import AtomicReference to pass the first stage error to the caller
+
+/*
+ Bulk importer
+ ------------------------------------------------
+ Streams a large statement file (same date|time|description|vendor|amount
+ lines as transactions.csv) into the ledger without any prompts.
+ Work is split into a pipeline joined by bounded queues, so memory
+ stays flat no matter how big the file is:
+   reader   : reads 1 MB blocks that end on a line break
+   parsers  : one per processor, decode and validate each block into columns
+   appender : puts blocks back in file order, drops duplicates,
+              writes the new lines to the CSV and adds them to the ledger
+ At most MAX_IN_FLIGHT blocks are between the reader and the appender
+ at any time, including blocks held back to restore file order.
+ When any stage fails, the stop flag is set and every stage gives up
+ waiting on its queues, so a failed import ends instead of hanging.
+ Validation is the same as addDeposit / addPayment: a valid date and
+ time, and an amount that is not zero. Duplicates are rows whose
+ (date, time, vendor, amount) is already in the ledger or earlier in
+ the file; they are found with a primitive hash map of 64-bit keys,
+ and every hit is checked against the stored row. Different rows whose
+ keys collide are chained to further keys, so none of them is lost.
+*/
+public class BulkImporter {
+
+    // ------------------- Settings -------------------
+
+    private static final int BLOCK_SIZE = 1 << 20;
+    // bytes per block handed to the parsers
+
+    private static final int QUEUE_CAPACITY = 8;
+    // blocks waiting between two stages
+
+    private static final int MAX_IN_FLIGHT = 3 * QUEUE_CAPACITY;
+    // blocks read but not appended yet, so memory stays at a few dozen MB
+
+    private static final long WAIT_MILLIS = 100;
+    // how often a waiting stage checks the stop flag
+
+    private static final Metrics.Timer IMPORT_TIMER = Metrics.timer("import");
+    // one call per imported file: lines read vs rows added
+
+    private final Ledger ledger;
+    // ledger receiving the rows
+
+    private final LineSink writer;
+    // writer for transactions.csv or its monthly segments (null to import into memory only)
+
+    private final int parserCount;
+    // number of parser threads
+
+    private final LongIntMap seen = new LongIntMap();
+    // duplicate key -> row in the ledger (or -(row + 1) in the block being appended);
+    // different rows with the same key are chained through nextSlot()
+
+    private long[] vendorHashes = new long[0];
+    // ledger vendor id -> hash of the vendor name
+
+    /**
+     * Result of one import.
+     */
+    public static class Result {
+        public long imported;
+        // rows added to the ledger
+
+        public long duplicates;
+        // rows skipped because the ledger already had them
+
+        public long rejected;
+        // lines that failed validation
+
+        public long nanos;
+        // time taken
+
+        public long rowsPerSecond() { return nanos == 0 ? 0 : (imported + duplicates + rejected) * 1_000_000_000L / nanos; }
+        // returns the number of lines processed per second
+    }
+
+    public BulkImporter(Ledger ledger, LineSink writer) {
+        this(ledger, writer, Runtime.getRuntime().availableProcessors());
+    }
+
+    public BulkImporter(Ledger ledger, LineSink writer, int parserCount) {
+        this.ledger = ledger;
+        this.writer = writer;
+        this.parserCount = Math.max(1, parserCount);
+
+        TransactionStore store = ledger.getStore();
+        for (int row = 0; row < store.size(); row++) {
+            long slot = findSlot(key(store, row, vendorHash(store.vendorId(row))), store, row, null);
+            if (seen.get(slot, Integer.MIN_VALUE) == Integer.MIN_VALUE) {
+                seen.put(slot, row);
+                // every existing row is a possible duplicate; one copy of each is enough
+            }
+        }
+    }
+
+    // ------------------- Import -------------------
+
+    /**
+     * Import every valid, new line of the file.
+     */
+    public Result importFile(Path file) throws IOException, InterruptedException {
+        long startNanos = System.nanoTime();
+        Result result = new Result();
+
+        BlockingQueue<Block> blocks = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        BlockingQueue<Parsed> parsed = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+        AtomicReference<Throwable> error = new AtomicReference<>();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+        ThreadFactory threads = VirtualThreads.factory("import");
+        List<Thread> started = new ArrayList<>();
+
+        started.add(threads.newThread(() -> {
+            try {
+                readBlocks(file, blocks, inFlight, stopped);
+            } catch (InterruptedException e) {
+                // import was stopped
+            } catch (Exception e) {
+                error.compareAndSet(null, e);
+                stopped.set(true);
+            } finally {
+                for (int i = 0; i < parserCount; i++) {
+                    putUnlessStopped(blocks, Block.END, stopped);
+                    // one end marker per parser
+                }
+            }
+        }));
+        for (int i = 0; i < parserCount; i++) {
+            started.add(threads.newThread(() -> {
+                try {
+                    for (Block block = blocks.take(); block != Block.END; block = blocks.take()) {
+                        if (!offer(parsed, parse(block), stopped)) {
+                            return;
+                        }
+                    }
+                } catch (InterruptedException e) {
+                    // import was stopped
+                } catch (RuntimeException e) {
+                    error.compareAndSet(null, e);
+                    stopped.set(true);
+                    // a missing block would hold every later one back, so give up
+                } finally {
+                    putUnlessStopped(parsed, Parsed.END, stopped);
+                }
+            }));
+        }
+        started.forEach(Thread::start);
+
+        try {
+            appendInOrder(parsed, result, inFlight, stopped);
+        } finally {
+            stopped.set(true);
+            for (Thread thread : started) {
+                thread.interrupt();
+                // stop the other stages if the appender failed
+            }
+            for (Thread thread : started) {
+                thread.join();
+            }
+        }
+
+        Throwable failure = error.get();
+        if (failure != null) {
+            throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+        }
+        result.nanos = System.nanoTime() - startNanos;
+        IMPORT_TIMER.record(result.nanos, result.imported + result.duplicates + result.rejected, result.imported);
+        return result;
+    }
+
+    // ------------------- Stage 1: Reader -------------------
+
+    private static void readBlocks(Path file, BlockingQueue<Block> blocks, Semaphore inFlight, AtomicBoolean stopped)
+            throws IOException, InterruptedException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            byte[] carry = new byte[0];
+            // start of a line cut off at the end of the previous block
+            long sequence = 0;
+
+            while (true) {
+                byte[] bytes = new byte[Math.max(BLOCK_SIZE, carry.length * 2)];
+                System.arraycopy(carry, 0, bytes, 0, carry.length);
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, carry.length, bytes.length - carry.length);
+
+                boolean endOfFile = false;
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer) < 0) {
+                        endOfFile = true;
+                        break;
+                    }
+                }
+                int length = buffer.position();
+
+                if (endOfFile) {
+                    if (length > 0) {
+                        send(blocks, new Block(sequence, bytes, length), inFlight, stopped);
+                        // last block, its final line may have no line break
+                    }
+                    return;
+                }
+
+                int end = length;
+                while (end > 0 && bytes[end - 1] != '\n') {
+                    end--;
+                    // cut the block after its last complete line
+                }
+                if (end == 0) {
+                    carry = Arrays.copyOf(bytes, length);
+                    continue;
+                    // one line longer than the block, read a bigger block
+                }
+                carry = Arrays.copyOfRange(bytes, end, length);
+                if (!send(blocks, new Block(sequence++, bytes, end), inFlight, stopped)) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static boolean send(BlockingQueue<Block> blocks, Block block, Semaphore inFlight, AtomicBoolean stopped)
+            throws InterruptedException {
+        // wait for room in the pipeline, then queue the block; false once the import is stopped
+        while (!inFlight.tryAcquire(WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stopped.get()) {
+                return false;
+            }
+        }
+        return offer(blocks, block, stopped);
+    }
+
+    // ------------------- Stage 2: Parsers -------------------
+
+    private static Parsed parse(Block block) {
+        TransactionStore part = new TransactionStore(block.length / 48 + 1);
+        RecordDecoder decoder = new RecordDecoder();
+        int rejected = 0;
+
+        int lineStart = 0;
+        for (int i = 0; i <= block.length; i++) {
+            if (i == block.length || block.bytes[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && block.bytes[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                }
+                if (lineEnd > lineStart) {
+                    // blank lines are ignored
+                    try {
+                        if (decoder.decode(block.bytes, lineStart, lineEnd) && decoder.getCents() != 0) {
+                            part.add(decoder, block.bytes);
+                        } else {
+                            rejected++;
+                            // wrong number of fields, or a zero amount
+                        }
+                    } catch (RuntimeException e) {
+                        rejected++;
+                        // bad date, time or amount
+                    }
+                }
+                lineStart = i + 1;
+            }
+        }
+        return new Parsed(block.sequence, part, rejected);
+    }
+
+    // ------------------- Stage 3: Appender -------------------
+
+    private void appendInOrder(BlockingQueue<Parsed> parsed, Result result, Semaphore inFlight, AtomicBoolean stopped)
+            throws IOException, InterruptedException {
+        Map<Long, Parsed> waiting = new HashMap<>();
+        // blocks that finished before an earlier one (at most MAX_IN_FLIGHT)
+        long next = 0;
+        int finishedParsers = 0;
+
+        while (finishedParsers < parserCount) {
+            Parsed block = parsed.poll(WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            if (block == null) {
+                if (stopped.get()) {
+                    return;
+                    // another stage failed, its error is thrown by importFile
+                }
+                continue;
+            }
+            if (block == Parsed.END) {
+                finishedParsers++;
+                continue;
+            }
+            waiting.put(block.sequence, block);
+            while ((block = waiting.remove(next)) != null) {
+                append(block, result);
+                inFlight.release();
+                // let the reader send another block
+                next++;
+            }
+        }
+    }
+
+    private void append(Parsed block, Result result) throws IOException {
+        TransactionStore part = block.part;
+        TransactionStore kept = new TransactionStore(part.size());
+        long[] keptKeys = new long[part.size()];
+        StringBuilder lines = new StringBuilder(part.size() * 48);
+
+        long[] partVendorHashes = new long[part.getVendors().size()];
+        for (int id = 0; id < partVendorHashes.length; id++) {
+            partVendorHashes[id] = hash(part.getVendors().bytes(id));
+        }
+
+        for (int row = 0; row < part.size(); row++) {
+            long slot = findSlot(key(part, row, partVendorHashes[part.vendorId(row)]), part, row, kept);
+            if (seen.get(slot, Integer.MIN_VALUE) != Integer.MIN_VALUE) {
+                result.duplicates++;
+                continue;
+            }
+            int keptRow = kept.add(part.epochDay(row), part.secondOfDay(row), part.cents(row),
+                    part.description(row), part.vendor(row));
+            keptKeys[keptRow] = slot;
+            seen.put(slot, -(keptRow + 1));
+            // also catches the same row twice in one block
+
+            RecordDecoder.appendRecord(lines, part.epochDay(row), part.secondOfDay(row),
+                    part.description(row), part.vendor(row), part.cents(row));
+            lines.append('\n');
+        }
+
+        if (writer != null) {
+            writer.appendLines(lines, kept.size());
+            // the file first, so the ledger never holds rows that were not saved
+        }
+        int first = ledger.appendAll(kept);
+        for (int i = 0; i < kept.size(); i++) {
+            seen.put(keptKeys[i], first + i);
+        }
+        result.imported += kept.size();
+        result.rejected += block.rejected;
+    }
+
+    private long findSlot(long key, TransactionStore part, int row, TransactionStore kept) {
+        // the slot of the key's chain holding this same row, or the first free slot of the chain
+        for (long slot = key; ; slot = nextSlot(slot)) {
+            int match = seen.get(slot, Integer.MIN_VALUE);
+            if (match == Integer.MIN_VALUE) {
+                return slot;
+            }
+            TransactionStore other = match >= 0 ? ledger.getStore() : kept;
+            int otherRow = match >= 0 ? match : -match - 1;
+            if (other.epochDay(otherRow) == part.epochDay(row)
+                    && other.secondOfDay(otherRow) == part.secondOfDay(row)
+                    && other.cents(otherRow) == part.cents(row)
+                    && other.vendor(otherRow).equals(part.vendor(row))) {
+                return slot;
+            }
+            // a different row with the same 64-bit key: keep looking further down the chain
+        }
+    }
+
+    // ------------------- Keys -------------------
+
+    private long vendorHash(int vendorId) {
+        // hash of a ledger vendor name, cached per dictionary id
+        if (vendorId >= vendorHashes.length) {
+            StringDictionary vendors = ledger.getStore().getVendors();
+            int from = vendorHashes.length;
+            vendorHashes = Arrays.copyOf(vendorHashes, Math.max(vendors.size(), vendorId + 1));
+            for (int id = from; id < vendorHashes.length; id++) {
+                vendorHashes[id] = hash(vendors.bytes(id));
+            }
+        }
+        return vendorHashes[vendorId];
+    }
+
+    private static long key(TransactionStore store, int row, long vendorHash) {
+        // 64-bit key of (date, time, vendor, amount)
+        long h = vendorHash;
+        h = (h ^ store.epochDay(row)) * 0x9E3779B97F4A7C15L;
+        h = (h ^ store.secondOfDay(row)) * 0x9E3779B97F4A7C15L;
+        h = (h ^ store.cents(row)) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        return h == Long.MIN_VALUE ? h + 1 : h;
+        // Long.MIN_VALUE marks an empty slot in LongIntMap
+    }
+
+    private static long nextSlot(long slot) {
+        // next key of a chain of rows whose keys collided
+        long h = (slot + 1) * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 29;
+        return h == Long.MIN_VALUE ? h + 1 : h;
+    }
+
+    private static long hash(byte[] bytes) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            h = (h ^ b) * 0x100000001B3L;
+            // FNV-1a
+        }
+        return h;
+    }
+
+    private static <T> boolean offer(BlockingQueue<T> queue, T item, AtomicBoolean stopped) throws InterruptedException {
+        // put, but give up once the import is stopped: nobody may be taking from the queue any more
+        while (!queue.offer(item, WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (stopped.get()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static <T> void putUnlessStopped(BlockingQueue<T> queue, T item, AtomicBoolean stopped) {
+        // end markers, sent from finally blocks
+        try {
+            offer(queue, item, stopped);
+        } catch (InterruptedException e) {
+            // the import was stopped, the marker is not needed
+        }
+    }
+
+    // ------------------- Pipeline Items -------------------
+
+    private static class Block {
+        // raw bytes of whole lines, numbered in file order
+        static final Block END = new Block(-1, new byte[0], 0);
+
+        final long sequence;
+        final byte[] bytes;
+        final int length;
+
+        Block(long sequence, byte[] bytes, int length) {
+            this.sequence = sequence;
+            this.bytes = bytes;
+            this.length = length;
+        }
+    }
+
+    private static class Parsed {
+        // decoded rows of one block
+        static final Parsed END = new Parsed(-1, null, 0);
+
+        final long sequence;
+        final TransactionStore part;
+        final int rejected;
+
+        Parsed(long sequence, TransactionStore part, int rejected) {
+            this.sequence = sequence;
+            this.part = part;
+            this.rejected = rejected;
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.concurrent.atomic.AtomicInteger;
+// import AtomicInteger to hand out stripes round-robin
+
+import java.util.concurrent.locks.ReentrantLock;
+// import ReentrantLock to guard each append stripe
+
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+// import ReentrantReadWriteLock to separate readers from publishers
+
+import java.util.function.Consumer;
+// import Consumer for changes made under the write lock
+
+import java.util.function.Function;
+// import Function for read queries
+
+/*
+ Concurrent ledger
+ ------------------------------------------------
+ Lets many threads append to one Ledger at the same time while
+ reports keep running.
+
+ Appends go to striped staging buffers: each thread is given its own
+ stripe (a small TransactionStore with its own lock), so appenders on
+ different stripes never wait for each other, and turning a
+ Transaction into columns and dictionary ids happens in parallel.
+ A full stripe is published to the Ledger in one batch under the
+ write lock, which also updates every index. The stripe stays locked
+ until its rows are published, so a flush() that finds a stripe empty
+ knows none of its rows are still on the way (locks are always taken
+ in that order: stripe, then write lock).
+
+ Readers run under the read lock, so a query sees the ledger exactly
+ as it was after some publish: never a half-added row, an index that
+ is ahead of the store, or a ConcurrentModificationException.
+ read() publishes pending appends first, so a thread always sees its
+ own writes; readSnapshot() skips that for reports that don't need it.
+*/
+public class ConcurrentLedger {
+
+    // ------------------- Settings -------------------
+
+    private static final int BATCH_SIZE = 512;
+    // rows a stripe collects before it publishes them
+
+    private final Ledger ledger;
+    // the shared ledger, only touched under 'lock'
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // read lock for queries, write lock for publishing batches
+
+    private final Stripe[] stripes;
+    // staging buffers for appenders
+
+    private final AtomicInteger nextStripe = new AtomicInteger();
+    // next stripe to hand to a new thread
+
+    private final ThreadLocal<Stripe> threadStripe;
+    // the stripe each thread appends to
+
+    /**
+     * Concurrent ledger with one stripe per available processor.
+     */
+    public ConcurrentLedger(Ledger ledger) {
+        this(ledger, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ConcurrentLedger(Ledger ledger, int stripeCount) {
+        this.ledger = ledger;
+        stripes = new Stripe[Math.max(1, stripeCount)];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+        threadStripe = ThreadLocal.withInitial(
+                () -> stripes[Math.floorMod(nextStripe.getAndIncrement(), stripes.length)]);
+    }
+
+    // ------------------- Appending -------------------
+
+    /**
+     * Add a transaction. Safe to call from any number of threads.
+     * The row becomes visible to readers when its stripe is published
+     * (when it is full, or on the next read() or flush()).
+     */
+    public void append(Transaction t) {
+        Stripe stripe = threadStripe.get();
+        stripe.lock.lock();
+        try {
+            stripe.pending.add(t);
+            if (stripe.pending.size() >= BATCH_SIZE) {
+                publish(stripe);
+            }
+        } finally {
+            stripe.lock.unlock();
+        }
+    }
+
+    /**
+     * Add a transaction and make it visible to readers straight away.
+     * Returns its row number.
+     */
+    public int appendNow(Transaction t) {
+        lock.writeLock().lock();
+        try {
+            return ledger.append(t);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Publish every stripe's pending rows to the ledger.
+     */
+    public void flush() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.lock();
+            try {
+                if (stripe.pending.size() > 0) {
+                    publish(stripe);
+                }
+            } finally {
+                stripe.lock.unlock();
+                // waits for an appender that is publishing this stripe right now
+            }
+        }
+    }
+
+    private void publish(Stripe stripe) {
+        // called with the stripe locked, so its rows are always either staged or published
+        lock.writeLock().lock();
+        try {
+            ledger.appendAll(stripe.pending);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        stripe.pending.clear();
+        // the ledger copied the rows, the buffer can be reused
+    }
+
+    /**
+     * Change the ledger under the write lock, such as publishing rows another
+     * component read from the file.
+     */
+    public void update(Consumer<Ledger> change) {
+        lock.writeLock().lock();
+        try {
+            change.accept(ledger);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ------------------- Reading -------------------
+
+    /**
+     * Run a query on a consistent view of the ledger that includes every append made before this call.
+     */
+    public <T> T read(Function<Ledger, T> query) {
+        flush();
+        return readSnapshot(query);
+    }
+
+    /**
+     * Run a query on the ledger as of the last publish, without waiting for pending appends.
+     * The query must not keep references into the ledger after it returns.
+     */
+    public <T> T readSnapshot(Function<Ledger, T> query) {
+        lock.readLock().lock();
+        try {
+            return query.apply(ledger);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Number of published rows.
+     */
+    public int size() {
+        return readSnapshot(l -> l.getStore().size());
+    }
+
+    // ------------------- Stripe -------------------
+
+    private static class Stripe {
+        // one append buffer and its lock
+
+        final ReentrantLock lock = new ReentrantLock();
+        final TransactionStore pending = new TransactionStore(BATCH_SIZE);
+    }
+}
@@ -0,0 +1,275 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Arrays;
+// import Arrays to grow and slice the index arrays
+
+/*
+ Sorted date index
+ ------------------------------------------------
+ Keeps the row numbers of a TransactionStore ordered by (date, time).
+ A date range is found with two binary searches and returned as a
+ contiguous slice, so report cost depends on the number of matching
+ rows instead of the size of the ledger.
+ Rows that arrive in date order are appended in O(1); back-dated rows
+ are inserted at their sorted position with a single array shift.
+*/
+public class DateIndex {
+
+    // ------------------- Storage -------------------
+
+    private long[] keys;
+    // sort key of each position: epoch day in the high bits, second of day in the low bits
+
+    private int[] rows;
+    // row number stored at each position
+
+    private int size;
+    // number of indexed rows
+
+    public DateIndex() {
+        keys = new long[16];
+        rows = new int[16];
+    }
+
+    // ------------------- Building -------------------
+
+    /**
+     * Rebuild the index from every row of the store.
+     * Uses a stable merge sort, so rows with the same timestamp stay in file order.
+     */
+    public void rebuild(TransactionStore store) {
+        int count = store.size();
+        long[] rowKeys = new long[count];
+        int[] order = new int[count];
+        boolean sorted = true;
+        for (int row = 0; row < count; row++) {
+            rowKeys[row] = key(store.epochDay(row), store.secondOfDay(row));
+            order[row] = row;
+            if (row > 0 && rowKeys[row] < rowKeys[row - 1]) {
+                sorted = false;
+            }
+        }
+
+        if (!sorted) {
+            mergeSort(order, new int[count], 0, count, rowKeys);
+            // most ledgers are already in date order and skip this step
+        }
+
+        keys = new long[Math.max(16, count)];
+        rows = new int[keys.length];
+        for (int i = 0; i < count; i++) {
+            rows[i] = order[i];
+            keys[i] = rowKeys[order[i]];
+        }
+        size = count;
+    }
+
+    /**
+     * Add one row to the index, keeping the positions sorted.
+     */
+    public void add(int row, int epochDay, int secondOfDay) {
+        long key = key(epochDay, secondOfDay);
+        if (size == keys.length) {
+            int capacity = size + (size >> 1);
+            keys = Arrays.copyOf(keys, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+
+        int position = size == 0 || key >= keys[size - 1] ? size : upperBound(key);
+        // newest entries go at the end; back-dated entries go after any equal timestamps
+
+        if (position < size) {
+            System.arraycopy(keys, position, keys, position + 1, size - position);
+            System.arraycopy(rows, position, rows, position + 1, size - position);
+        }
+        keys[position] = key;
+        rows[position] = row;
+        size++;
+    }
+
+    /**
+     * Add rows [fromRow, store.size()) of the store in one pass.
+     * The new rows are sorted on their own and merged in from the back,
+     * so a batch of back-dated rows shifts the index once instead of once per row.
+     */
+    public void addAll(TransactionStore store, int fromRow) {
+        int count = store.size() - fromRow;
+        if (count <= 0) {
+            return;
+        }
+        long[] rowKeys = new long[count];
+        int[] order = new int[count];
+        for (int i = 0; i < count; i++) {
+            rowKeys[i] = key(store.epochDay(fromRow + i), store.secondOfDay(fromRow + i));
+            order[i] = i;
+        }
+        mergeSort(order, new int[count], 0, count, rowKeys);
+
+        if (size + count > keys.length) {
+            int capacity = Math.max(size + count, size + (size >> 1));
+            keys = Arrays.copyOf(keys, capacity);
+            rows = Arrays.copyOf(rows, capacity);
+        }
+
+        int old = size - 1;
+        int added = count - 1;
+        for (int position = size + count - 1; added >= 0; position--) {
+            long key = rowKeys[order[added]];
+            if (old >= 0 && keys[old] > key) {
+                keys[position] = keys[old];
+                rows[position] = rows[old];
+                old--;
+                // existing entry is later, move it up
+            } else {
+                keys[position] = key;
+                rows[position] = fromRow + order[added];
+                added--;
+                // new entries go after any equal timestamps, like add()
+            }
+        }
+        size += count;
+    }
+
+    // ------------------- Queries -------------------
+
+    public int size() { return size; }
+    // returns the number of indexed rows
+
+    public int rowAt(int position) { return rows[position]; }
+    // returns the row stored at a sorted position
+
+    /**
+     * First sorted position whose date is on or after the given day.
+     */
+    public int firstPosition(int startDay) {
+        return lowerBound(key(startDay, 0));
+    }
+
+    /**
+     * First sorted position whose date is after the given day.
+     */
+    public int endPosition(int endDay) {
+        return lowerBound(key(endDay + 1, 0));
+    }
+
+    /**
+     * First sorted position dated after the given day and second.
+     */
+    public int positionAfter(int epochDay, int secondOfDay) {
+        return lowerBound(key(epochDay, secondOfDay) + 1);
+    }
+
+    /**
+     * Position just after a row that is in the index, found again from its date, time and
+     * row number (rows with equal timestamps are kept in row order), so a caller can resume
+     * a walk after rows were added in between.
+     */
+    public int positionAfterRow(int row, int epochDay, int secondOfDay) {
+        long key = key(epochDay, secondOfDay);
+        int position = lowerBound(key);
+        while (position < size && keys[position] == key && rows[position] <= row) {
+            position++;
+        }
+        return position;
+    }
+
+    /**
+     * Rows dated between startDay and endDay inclusive, in date order.
+     */
+    public int[] rowsBetween(int startDay, int endDay) {
+        if (endDay < startDay) {
+            return new int[0];
+        }
+        return Arrays.copyOfRange(rows, firstPosition(startDay), endPosition(endDay));
+    }
+
+    /**
+     * Number of rows dated between startDay and endDay inclusive.
+     */
+    public int countBetween(int startDay, int endDay) {
+        return endDay < startDay ? 0 : endPosition(endDay) - firstPosition(startDay);
+    }
+
+    /**
+     * Sort a list of rows by date and time. Stable, so rows with the
+     * same timestamp keep their order, like the index itself.
+     */
+    public static void sortByDate(TransactionStore store, int[] rows) {
+        long[] rowKeys = new long[rows.length];
+        int[] order = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            rowKeys[i] = key(store.epochDay(rows[i]), store.secondOfDay(rows[i]));
+            order[i] = i;
+        }
+        mergeSort(order, new int[rows.length], 0, rows.length, rowKeys);
+
+        int[] sorted = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            sorted[i] = rows[order[i]];
+        }
+        System.arraycopy(sorted, 0, rows, 0, rows.length);
+    }
+
+    // ------------------- Helpers -------------------
+
+    static long key(int epochDay, int secondOfDay) {
+        return ((long) epochDay << 17) | secondOfDay;
+        // 17 bits hold any second of day (max 86399)
+    }
+
+    private int lowerBound(long key) {
+        // first position whose key is >= key
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private int upperBound(long key) {
+        // first position whose key is > key
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (keys[middle] <= key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static void mergeSort(int[] order, int[] buffer, int from, int to, long[] rowKeys) {
+        // stable sort of order[from, to) by rowKeys[row]
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(order, buffer, from, middle, rowKeys);
+        mergeSort(order, buffer, middle, to, rowKeys);
+        if (rowKeys[order[middle - 1]] <= rowKeys[order[middle]]) {
+            return;
+            // halves are already in order
+        }
+
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && rowKeys[buffer[left]] <= rowKeys[buffer[right]])) {
+                order[i] = buffer[left++];
+            } else {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+}
@@ -0,0 +1,363 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Arrays;
+// import Arrays to grow, sort and trim arrays
+
+import java.util.BitSet;
+// import BitSet to return the set of matching descriptions
+
+import java.util.concurrent.ForkJoinPool;
+// import ForkJoinPool to extract trigrams on every core
+
+import java.util.concurrent.RecursiveAction;
+// import RecursiveAction for the parallel build task
+
+/*
+ Trigram description index
+ ------------------------------------------------
+ Answers "description contains keyword" (case-insensitive) without
+ lowercasing every row on every search.
+ Works on distinct descriptions, not rows: each distinct lowercased
+ description is split into 3-character grams, and every gram points
+ at the descriptions containing it. A keyword is narrowed to the
+ descriptions of its rarest gram, only those are checked with
+ contains(), and the matches are expanded to rows.
+
+ Bounded mode caps memory for very large ledgers at a byte budget:
+ grams are hashed into a fixed number of buckets, and a bucket whose
+ list grows past budget / (buckets * 8) entries (4 bytes each, plus
+ up to as much again of spare capacity) is dropped and simply no
+ longer used for narrowing. Lowercased texts are not kept either;
+ the candidates of a search are lowercased again from the dictionary.
+*/
+public class DescriptionIndex {
+
+    // ------------------- Settings -------------------
+
+    private static final int PARALLEL_THRESHOLD = 4096;
+    // descriptions per fork-join task when building in parallel
+
+    private static final long DEFAULT_MEMORY_BYTES = 64L << 20;
+    // bounded mode: default budget for the gram lists, 64 MB
+
+    private static final int BOUNDED_BUCKETS = 1 << 13;
+    // bounded mode: number of gram buckets the budget is spread over
+
+    private static final int BYTES_PER_POSTING = 8;
+    // an int per entry, and a list may have as much again of spare capacity
+
+    private final boolean bounded;
+    // true when gram buckets and list lengths are capped
+
+    private final int bucketMask;
+    // bounded mode: number of buckets - 1
+
+    private final int maxPostings;
+    // bounded mode: longest list a bucket may keep
+
+    // ------------------- Storage -------------------
+
+    private String[] lowered = new String[16];
+    // exact mode: description id -> lowercased text, computed once
+
+    private StringDictionary descriptions = new StringDictionary();
+    // description texts, lowercased again on demand in bounded mode
+
+    private int descriptionCount;
+    // number of descriptions indexed so far
+
+    private LongIntMap gramIds = new LongIntMap();
+    // exact mode: gram -> gram id
+
+    private final PostingLists gramPostings = new PostingLists();
+    // gram id (or bucket) -> description ids containing it
+
+    private boolean[] saturated = new boolean[16];
+    // bounded mode: buckets whose lists were dropped
+
+    private final PostingLists descriptionRows = new PostingLists();
+    // description id -> rows with that description
+
+    /**
+     * Exact index with no memory cap.
+     */
+    public DescriptionIndex() {
+        this(false, 0, 0);
+    }
+
+    /**
+     * Index that is optionally bounded to 'buckets' gram buckets
+     * (rounded up to a power of two) of at most 'maxPostings' descriptions each.
+     */
+    public DescriptionIndex(boolean bounded, int buckets, int maxPostings) {
+        this.bounded = bounded;
+        this.bucketMask = bounded ? Integer.highestOneBit(Math.max(2, buckets * 2 - 1)) - 1 : 0;
+        this.maxPostings = maxPostings;
+    }
+
+    /**
+     * Bounded index whose gram lists use at most 64 MB.
+     */
+    public static DescriptionIndex bounded() {
+        return bounded(DEFAULT_MEMORY_BYTES);
+    }
+
+    /**
+     * Bounded index whose gram lists use at most about 'memoryBytes'.
+     */
+    public static DescriptionIndex bounded(long memoryBytes) {
+        long perBucket = memoryBytes / ((long) BOUNDED_BUCKETS * BYTES_PER_POSTING);
+        return new DescriptionIndex(true, BOUNDED_BUCKETS, (int) Math.max(1, Math.min(Integer.MAX_VALUE, perBucket)));
+    }
+
+    // ------------------- Building -------------------
+
+    /**
+     * Rebuild from every row of the store. Lowercasing and gram extraction
+     * of the distinct descriptions runs in parallel; the lists are then filled
+     * in description order so they stay sorted.
+     */
+    public void rebuild(TransactionStore store) {
+        descriptions = store.getDescriptions();
+        int count = descriptions.size();
+
+        lowered = bounded ? null : new String[Math.max(16, count)];
+        descriptionCount = 0;
+        gramIds = bounded ? new LongIntMap() : new LongIntMap(count);
+        gramPostings.clear();
+        saturated = new boolean[16];
+        descriptionRows.clear();
+        // start from an empty index
+
+        String[] texts = new String[count];
+        long[][] grams = new long[count][];
+        ForkJoinPool.commonPool().invoke(new ExtractTask(descriptions, texts, grams, 0, count));
+        // each task lowercases its descriptions and collects their distinct grams
+
+        for (int id = 0; id < count; id++) {
+            addDescription(id, texts[id], grams[id]);
+        }
+        for (int row = 0; row < store.size(); row++) {
+            descriptionRows.add(store.descriptionId(row), row);
+        }
+    }
+
+    /**
+     * Add one row of the store, indexing its description if it is new.
+     */
+    public void add(TransactionStore store, int row) {
+        int id = store.descriptionId(row);
+        descriptions = store.getDescriptions();
+        while (descriptionCount <= id) {
+            String text = descriptions.get(descriptionCount).toLowerCase();
+            addDescription(descriptionCount, text, distinctGrams(text));
+        }
+        descriptionRows.add(id, row);
+    }
+
+    private void addDescription(int id, String text, long[] grams) {
+        if (!bounded) {
+            if (id >= lowered.length) {
+                lowered = Arrays.copyOf(lowered, Math.max(id + 1, lowered.length * 2));
+            }
+            lowered[id] = text;
+        }
+        descriptionCount = id + 1;
+
+        for (long gram : grams) {
+            int key = gramKey(gram, true);
+            if (bounded && isSaturated(key)) {
+                continue;
+            }
+            int count = gramPostings.count(key);
+            if (count > 0 && gramPostings.rowAt(key, count - 1) == id) {
+                continue;
+                // two grams of this description share a bucket
+            }
+            gramPostings.add(key, id);
+            if (bounded && gramPostings.count(key) > maxPostings) {
+                gramPostings.clear(key);
+                markSaturated(key);
+                // list too long to be useful, stop tracking this bucket
+            }
+        }
+    }
+
+    // ------------------- Queries -------------------
+
+    /**
+     * Set of description ids whose lowercased text contains the keyword.
+     */
+    public BitSet matchingDescriptions(String keyword) {
+        String needle = keyword.toLowerCase();
+        BitSet matches = new BitSet(descriptionCount);
+
+        int bestKey = -1;
+        int bestCount = Integer.MAX_VALUE;
+        if (needle.length() >= 3) {
+            for (int i = 0; i + 3 <= needle.length(); i++) {
+                int key = gramKey(gram(needle, i), false);
+                if (key < 0) {
+                    return matches;
+                    // a gram no description has, so nothing can match
+                }
+                if (bounded && isSaturated(key)) {
+                    continue;
+                    // dropped bucket, can't narrow with it
+                }
+                int count = gramPostings.count(key);
+                if (count < bestCount) {
+                    bestCount = count;
+                    bestKey = key;
+                }
+            }
+        }
+
+        if (bestKey < 0) {
+            for (int id = 0; id < descriptionCount; id++) {
+                if (lowered(id).contains(needle)) {
+                    matches.set(id);
+                    // short keyword: check each distinct description once
+                }
+            }
+            return matches;
+        }
+
+        for (int i = 0; i < bestCount; i++) {
+            int id = gramPostings.rowAt(bestKey, i);
+            if (lowered(id).contains(needle)) {
+                matches.set(id);
+                // verify the candidates from the rarest gram
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Rows whose description contains the keyword, in row order.
+     */
+    public int[] rows(String keyword) {
+        return rows(matchingDescriptions(keyword));
+    }
+
+    /**
+     * Rows whose description id is in the set, in row order.
+     */
+    public int[] rows(BitSet matches) {
+        int[] result = new int[countRows(matches)];
+        int found = 0;
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            int count = descriptionRows.count(id);
+            for (int i = 0; i < count; i++) {
+                result[found++] = descriptionRows.rowAt(id, i);
+            }
+        }
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Number of rows whose description id is in the set, without building the list.
+     */
+    public int countRows(BitSet matches) {
+        int total = 0;
+        for (int id = matches.nextSetBit(0); id >= 0; id = matches.nextSetBit(id + 1)) {
+            total += descriptionRows.count(id);
+        }
+        return total;
+    }
+
+    // ------------------- Helpers -------------------
+
+    private String lowered(int id) {
+        // kept in exact mode, recomputed in bounded mode
+        return bounded ? descriptions.get(id).toLowerCase() : lowered[id];
+    }
+
+    private int gramKey(long gram, boolean create) {
+        // list key for a gram: its bucket in bounded mode, its id in exact mode (-1 if unknown)
+        if (bounded) {
+            long h = gram * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & bucketMask;
+        }
+        int id = gramIds.get(gram, -1);
+        if (id < 0 && create) {
+            id = gramIds.size();
+            gramIds.put(gram, id);
+        }
+        return id;
+    }
+
+    private boolean isSaturated(int key) {
+        return key < saturated.length && saturated[key];
+    }
+
+    private void markSaturated(int key) {
+        if (key >= saturated.length) {
+            saturated = Arrays.copyOf(saturated, Math.max(key + 1, saturated.length * 2));
+        }
+        saturated[key] = true;
+    }
+
+    private static long gram(String text, int i) {
+        return ((long) text.charAt(i) << 32) | ((long) text.charAt(i + 1) << 16) | text.charAt(i + 2);
+        // pack three chars into one long
+    }
+
+    private static long[] distinctGrams(String text) {
+        // every 3-character gram of the text, without duplicates
+        if (text.length() < 3) {
+            return new long[0];
+        }
+        long[] grams = new long[text.length() - 2];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = gram(text, i);
+        }
+        Arrays.sort(grams);
+        int unique = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[unique++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, unique);
+    }
+
+    // ------------------- Fork-join task -------------------
+
+    private static class ExtractTask extends RecursiveAction {
+        // lowercases descriptions [from, to) and extracts their grams
+
+        private static final long serialVersionUID = 1L;
+        // fork-join tasks are Serializable; never actually serialized
+
+        private final StringDictionary descriptions;
+        private final String[] texts;
+        private final long[][] grams;
+        private final int from;
+        private final int to;
+
+        ExtractTask(StringDictionary descriptions, String[] texts, long[][] grams, int from, int to) {
+            this.descriptions = descriptions;
+            this.texts = texts;
+            this.grams = grams;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                for (int id = from; id < to; id++) {
+                    texts[id] = descriptions.get(id).toLowerCase();
+                    grams[id] = distinctGrams(texts[id]);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ExtractTask(descriptions, texts, grams, from, middle),
+                    new ExtractTask(descriptions, texts, grams, middle, to));
+        }
+    }
+}
@@ -4,8 +4,11 @@ package com.pluralsight;
 import java.io.File;
 // import File class for reading/writing files
 
-import java.io.FileWriter;
-// import FileWriter class to write transactions to a file
+import java.io.IOException;
+// import IOException for errors opening the append writer
+
+import java.nio.file.Path;
+// import Path to locate the transactions file
 
 import java.time.LocalDate;
 // import LocalDate to store transaction dates
@@ -16,6 +19,9 @@ import java.time.LocalDateTime;
 import java.time.LocalTime;
 // import LocalTime to store transaction times
 
+import java.time.YearMonth;
+// import YearMonth for the monthly spending report
+
 import java.time.format.DateTimeFormatter;
 // import DateTimeFormatter to parse/format dates and times
 
@@ -23,11 +29,23 @@ import java.time.format.DateTimeParseException;
 // import exception class for invalid date/time parsing
 
 import java.util.ArrayList;
-// import ArrayList to store multiple transactions in memory
+// import ArrayList to collect the files to import
+
+import java.util.List;
+// import List for the files to import
 
 import java.util.Scanner;
 // import Scanner for reading user input
 
+import java.util.concurrent.atomic.AtomicInteger;
+// import AtomicInteger to count followed rows the menu has not mentioned yet
+
+import java.util.concurrent.locks.ReentrantLock;
+// import ReentrantLock so followed rows and menu commands take turns on the ledger
+
+import java.util.function.Consumer;
+// import Consumer for changes to apply to the ledger
+
 /*
  Capstone skeleton – personal finance tracker
  ------------------------------------------------
@@ -38,12 +56,63 @@ public class FinancialTracker {
 
     // ------------------- Shared data -------------------
 
-    private static final ArrayList<Transaction> transactions = new ArrayList<>();
-    // stores all transactions in memory as Transaction objects
+    private static Ledger ledger = new Ledger();
+    // in-memory ledger: transaction columns plus the indexes used by reports
+
+    private static TransactionStore transactions = ledger.getStore();
+    // stores all transactions in memory as primitive columns (see TransactionStore)
 
     private static final String FILE_NAME = "transactions.csv";
     // name of the CSV file where transactions are stored
 
+    private static AppendWriter writer;
+    // long-lived group-commit writer for transactions.csv
+
+    private static AppendWriter.Durability durability = AppendWriter.Durability.FLUSH;
+    // durability policy for each batch (--durability=none|flush|fsync)
+
+    private static int batchSize = 100;
+    // records per write batch (--batch=N)
+
+    private static long flushMillis = 100;
+    // longest time a record waits in the buffer (--flush-ms=T)
+
+    private static int pageSize = 50;
+    // rows per page when browsing long lists (--page-size=N)
+
+    private static LedgerRenderer renderer;
+    // formats and pages rows for display
+
+    private static final List<String> importFiles = new ArrayList<>();
+    // statement files to bulk import instead of showing the menu (--import=FILE)
+
+    private static boolean streaming = false;
+    // read the file through a mapped cursor instead of loading it (--stream)
+
+    private static boolean printMetrics = false;
+    // print the timers and counters when the program exits (--metrics)
+
+    private static boolean partitioned = false;
+    // keep one segment file per month instead of one transactions.csv (--partitioned)
+
+    private static LedgerPartitions partitions;
+    // monthly segments when partitioned, null otherwise
+
+    private static boolean follow = false;
+    // pick up lines other programs append to transactions.csv while running (--follow)
+
+    private static LedgerFollower follower;
+    // reads those lines in the background, null when not following
+
+    private static final ReentrantLock ledgerLock = new ReentrantLock();
+    // held by menu commands and by the follower while it adds rows, so a command never sees half a batch
+
+    private static final AtomicInteger followedRows = new AtomicInteger();
+    // rows the follower added since the menu last said so
+
+    private static int servePort = -1;
+    // port for the JSON server instead of the menu, -1 when not serving (--serve[=port])
+
     private static final String DATE_PATTERN = "yyyy-MM-dd";
     // pattern to parse/display dates
 
@@ -67,9 +136,75 @@ public class FinancialTracker {
     public static void main(String[] args) {
         // program starts here
 
+        for (String arg : args) {
+            if (arg.equals("--bounded-index")) {
+                ledger = new Ledger(true);
+                transactions = ledger.getStore();
+                // cap the memory used by the description keyword index
+            } else if (arg.startsWith("--durability=")) {
+                durability = AppendWriter.Durability.valueOf(arg.substring("--durability=".length()).toUpperCase());
+            } else if (arg.startsWith("--batch=")) {
+                batchSize = Integer.parseInt(arg.substring("--batch=".length()));
+            } else if (arg.startsWith("--flush-ms=")) {
+                flushMillis = Long.parseLong(arg.substring("--flush-ms=".length()));
+            } else if (arg.startsWith("--page-size=")) {
+                pageSize = Integer.parseInt(arg.substring("--page-size=".length()));
+            } else if (arg.startsWith("--import=")) {
+                importFiles.add(arg.substring("--import=".length()));
+            } else if (arg.equals("--serve")) {
+                servePort = 8080;
+            } else if (arg.startsWith("--serve=")) {
+                servePort = Integer.parseInt(arg.substring("--serve=".length()));
+                // 0 picks any free port
+            } else if (arg.equals("--stream")) {
+                streaming = true;
+            } else if (arg.equals("--partitioned")) {
+                partitioned = true;
+            } else if (arg.equals("--metrics")) {
+                printMetrics = true;
+            } else if (arg.equals("--follow")) {
+                follow = true;
+            }
+        }
+
+        if (printMetrics) {
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> System.out.print(Metrics.report())));
+            // runs on every kind of exit, including Ctrl+C in --serve mode
+        }
+
+        if (!importFiles.isEmpty() || servePort >= 0) {
+            streaming = false;
+            // importing and serving need the in-memory indexes
+        }
+
+        renderer = new LedgerRenderer(transactions, pageSize);
+        // buffered, paged output for every transaction list
+
+        openWriter();
+        // open the append channel first so a damaged last line is repaired before loading
+
         loadTransactions(FILE_NAME);
         // load existing transactions from CSV file into memory
 
+        if (!importFiles.isEmpty()) {
+            importStatements();
+            closeWriter();
+            if (partitions == null) {
+                ledger.saveSnapshot(Path.of(FILE_NAME), writer == null ? 0 : writer.getBytesWritten());
+            }
+            return;
+            // non-interactive: import and exit without showing the menu
+        }
+
+        if (servePort >= 0) {
+            serve();
+            return;
+            // headless: answer HTTP queries until the process is stopped
+        }
+
+        startFollowing(FinancialTracker::withLedger);
+        // followed rows go into the ledger as they arrive, between menu commands
+
         Scanner scanner = new Scanner(System.in);
         // create Scanner object for reading user input
 
@@ -83,21 +218,26 @@ public class FinancialTracker {
             System.out.println("D) Add Deposit");
             System.out.println("P) Make Payment (Debit)");
             System.out.println("L) Ledger");
+            System.out.println("M) Metrics");
             System.out.println("X) Exit");
+            printFollowed();
 
             String input = scanner.nextLine().trim();
             // read user input and remove leading/trailing spaces
 
             switch (input.toUpperCase()) {
-                case "D" -> addDeposit(scanner);
+                case "D" -> withLedger(l -> addDeposit(scanner));
                 // if user selects D, call addDeposit method
 
-                case "P" -> addPayment(scanner);
+                case "P" -> withLedger(l -> addPayment(scanner));
                 // if user selects P, call addPayment method
 
                 case "L" -> ledgerMenu(scanner);
                 // if user selects L, go to ledger menu
 
+                case "M" -> System.out.print(Metrics.report());
+                // if user selects M, show timings and counters collected so far
+
                 case "X" -> running = false;
                 // if user selects X, exit program
 
@@ -108,6 +248,18 @@ public class FinancialTracker {
 
         scanner.close();
         // close scanner before exiting program
+
+        stopFollowing();
+        // stop reading other programs' lines before the final snapshot
+
+        closeWriter();
+        // write any buffered transactions and close the file
+
+        if (!streaming && partitions == null) {
+            withLedger(l -> l.saveSnapshot(Path.of(FILE_NAME), writer == null ? 0 : writer.getBytesWritten()));
+            // save the binary snapshot so the next start skips parsing the CSV; a batch the follower
+            // was still adding finishes first
+        }
     }
 
     // ------------------- File I/O -------------------
@@ -116,8 +268,13 @@ public class FinancialTracker {
      * Load transactions from CSV file.
      * If the file doesn't exist, create an empty file.
      * Each line format: yyyy-MM-dd|HH:mm:ss|description|vendor|amount
+     * The file is memory-mapped and parsed in parallel by TransactionLoader.
      */
     public static void loadTransactions(String fileName) {
+        if (partitioned) {
+            return;
+            // monthly segments are loaded when a report needs them
+        }
         try {
             File file = new File(fileName);
             // create File object for reading
@@ -128,42 +285,16 @@ public class FinancialTracker {
                 return;
             }
 
-            Scanner fileScanner = new Scanner(file);
-            // create Scanner to read the file
-
-            while (fileScanner.hasNextLine()) {
-                String line = fileScanner.nextLine();
-                // read one line at a time
-
-                String[] parts = line.split("\\|");
-                // split line into 5 parts by pipe symbol
-
-                if (parts.length == 5) {
-                    // check for correct format
-                    LocalDate date = LocalDate.parse(parts[0], DATE_FMT);
-                    // parse date from first part
-
-                    LocalTime time = LocalTime.parse(parts[1], TIME_FMT);
-                    // parse time from second part
-
-                    String description = parts[2];
-                    // store description
-
-                    String vendor = parts[3];
-                    // store vendor
-
-                    double amount = Double.parseDouble(parts[4]);
-                    // parse amount as double
-
-                    transactions.add(new Transaction(date, time, description, vendor, amount));
-                    // create Transaction object and add to memory
-                }
+            if (streaming) {
+                return;
+                // rows are read from the mapped file when a list or report needs them
             }
 
-            fileScanner.close();
-            // close file scanner
+            ledger.load(file.toPath());
+            // read the snapshot, parse newer lines in parallel chunks, then build the indexes
         } catch (Exception e) {
             System.out.println("Error reading file: " + e.getMessage());
+            Metrics.count("error reading file");
             // display error if file reading fails
         }
     }
@@ -203,8 +334,8 @@ public class FinancialTracker {
             Transaction t = new Transaction(dateTime.toLocalDate(), dateTime.toLocalTime(), description, vendor, amount);
             // create Transaction object
 
-            transactions.add(t);
-            // add to memory
+            appendToLedger(t);
+            // add to memory and keep the indexes up to date
 
             saveTransactionToFile(t);
             // append to CSV file
@@ -217,6 +348,7 @@ public class FinancialTracker {
             System.out.println("Invalid amount. Please enter a number.");
         } catch (Exception e) {
             System.out.println("Error: " + e.getMessage());
+            Metrics.count("error adding deposit");
         }
     }
 
@@ -251,7 +383,7 @@ public class FinancialTracker {
             // convert to negative for payments
 
             Transaction t = new Transaction(dateTime.toLocalDate(), dateTime.toLocalTime(), description, vendor, amount);
-            transactions.add(t);
+            appendToLedger(t);
             saveTransactionToFile(t);
 
             System.out.println("Payment recorded successfully.");
@@ -259,18 +391,190 @@ public class FinancialTracker {
             System.out.println("Invalid date/time format. Please use yyyy-MM-dd HH:mm:ss");
         } catch (NumberFormatException e) {
             System.out.println("Invalid amount. Please enter a number.");
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            Metrics.count("error reading file");
+            // the payment's month could not be loaded
         }
     }
 
     // ------------------- Save Transaction -------------------
 
+    private static void appendToLedger(Transaction t) throws IOException {
+        // add a new transaction to the in-memory ledger (nothing is kept in memory when streaming)
+        if (streaming) {
+            return;
+        }
+        if (partitions != null) {
+            partitions.appendToLedger(t);
+            // loads the transaction's month first
+        } else {
+            ledger.append(t);
+        }
+    }
+
     private static void saveTransactionToFile(Transaction t) {
-        // append a single transaction to the CSV file
-        try (FileWriter writer = new FileWriter(FILE_NAME, true)) {
-            writer.write(t.toCSVLine() + "\n");
-            // write transaction as a CSV line
+        // queue a single transaction for the next group commit
+        try {
+            if (partitions != null) {
+                partitions.append(t);
+                // the segment of the transaction's month
+            } else {
+                writer.append(t);
+            }
         } catch (Exception e) {
             System.out.println("Error saving transaction: " + e.getMessage());
+            Metrics.count("error saving transaction");
+        }
+    }
+
+    private static void importStatements() {
+        // stream each --import file into the ledger and transactions.csv
+        if (partitions != null && !loadPartitions(Query.all())) {
+            return;
+            // duplicates are checked against every month
+        }
+        BulkImporter importer = new BulkImporter(ledger, partitions != null ? partitions : writer);
+        for (String fileName : importFiles) {
+            try {
+                BulkImporter.Result result = importer.importFile(Path.of(fileName));
+                System.out.printf("Imported %d transactions from %s (%d duplicates, %d rejected) in %d ms, %d rows/s%n",
+                        result.imported, fileName, result.duplicates, result.rejected,
+                        result.nanos / 1_000_000, result.rowsPerSecond());
+            } catch (IOException e) {
+                System.out.println("Error importing " + fileName + ": " + e.getMessage());
+                Metrics.count("error importing");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static void serve() {
+        // run the JSON server until Ctrl+C
+        if (partitions != null && !loadPartitions(Query.all())) {
+            return;
+        }
+        try {
+            ConcurrentLedger concurrentLedger = new ConcurrentLedger(ledger);
+            startFollowing(concurrentLedger::update);
+            // followed rows are published under the write lock, visible to the next request
+            LedgerServer server = new LedgerServer(concurrentLedger, servePort);
+            Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+            server.start();
+            System.out.println("Serving the ledger at http://127.0.0.1:" + server.getPort() + "/ (Ctrl+C to stop)");
+            Thread.currentThread().join();
+            // the server runs on its own threads, main just waits
+        } catch (IOException e) {
+            System.out.println("Error starting server: " + e.getMessage());
+            Metrics.count("error starting server");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void startFollowing(Consumer<Consumer<Ledger>> apply) {
+        // follow transactions.csv in the background; 'apply' decides when the changes reach the ledger
+        if (!follow) {
+            return;
+        }
+        if (streaming || partitions != null || writer == null) {
+            System.out.println("--follow needs the single transactions.csv loaded in memory; not following.");
+            return;
+        }
+        Path path = Path.of(FILE_NAME);
+        try {
+            follower = new LedgerFollower(path, ledger.getLoadedBytes(), new LedgerFollower.Listener() {
+                @Override
+                public void rows(TransactionStore rows, long bytes) {
+                    apply.accept(l -> {
+                        if (rows.size() > 0) {
+                            l.appendAll(rows);
+                            // one batch: store, every index, rollups and cache invalidation
+                        }
+                        l.followed(path, bytes, writer.getBytesWritten());
+                    });
+                    followedRows.addAndGet(rows.size());
+                    // the menu mentions them at its next prompt
+                }
+
+                @Override
+                public void rotated() throws IOException {
+                    writer.reopen();
+                    // our own appends go to the new file too
+                    apply.accept(Ledger::fileReplaced);
+                }
+            });
+            writer.setWriteListener(follower);
+            // lines we write are in the ledger already, the follower skips them
+            follower.start();
+        } catch (IOException e) {
+            System.out.println("Error following file: " + e.getMessage());
+            Metrics.count("error following file");
+        }
+    }
+
+    private static void withLedger(Consumer<Ledger> change) {
+        // run a menu command or a followed batch while no other one is using the ledger
+        ledgerLock.lock();
+        try {
+            change.accept(ledger);
+        } finally {
+            ledgerLock.unlock();
+        }
+    }
+
+    private static void printFollowed() {
+        // tell the user the ledger grew since the last menu, so results don't look stale
+        int rows = followedRows.getAndSet(0);
+        if (rows > 0) {
+            System.out.println("(" + rows + " new transaction" + (rows == 1 ? "" : "s") + " from other programs)");
+        }
+    }
+
+    private static void stopFollowing() {
+        // stop the follower and keep what it already read
+        if (follower == null) {
+            return;
+        }
+        try {
+            follower.close();
+        } catch (IOException e) {
+            System.out.println("Error following file: " + e.getMessage());
+            Metrics.count("error following file");
+        }
+    }
+
+    private static void openWriter() {
+        // open the long-lived append writer and make sure it is closed on any exit
+        try {
+            if (partitioned) {
+                partitions = LedgerPartitions.open(Path.of(FILE_NAME), ledger, durability, batchSize, flushMillis);
+                Runtime.getRuntime().addShutdownHook(new Thread(FinancialTracker::closeWriter));
+                return;
+                // migrates transactions.csv into monthly segments on first use
+            }
+            writer = new AppendWriter(Path.of(FILE_NAME), durability, batchSize, flushMillis);
+            Runtime.getRuntime().addShutdownHook(new Thread(FinancialTracker::closeWriter));
+        } catch (IOException e) {
+            System.out.println("Error opening file: " + e.getMessage());
+            Metrics.count("error opening file");
+        }
+    }
+
+    private static void closeWriter() {
+        // flush the last batch and close the file
+        try {
+            if (writer != null) {
+                writer.close();
+            }
+            if (partitions != null) {
+                partitions.close();
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving transaction: " + e.getMessage());
+            Metrics.count("error saving transaction");
         }
     }
 
@@ -288,13 +592,14 @@ public class FinancialTracker {
             System.out.println("P) Payments");
             System.out.println("R) Reports");
             System.out.println("H) Home");
+            printFollowed();
 
             String input = scanner.nextLine().trim();
 
             switch (input.toUpperCase()) {
-                case "A" -> displayLedger();
-                case "D" -> displayDeposits();
-                case "P" -> displayPayments();
+                case "A" -> withLedger(l -> displayLedger(scanner));
+                case "D" -> withLedger(l -> displayDeposits(scanner));
+                case "P" -> withLedger(l -> displayPayments(scanner));
                 case "R" -> reportsMenu(scanner);
                 case "H" -> running = false;
                 default -> System.out.println("Invalid option");
@@ -304,34 +609,108 @@ public class FinancialTracker {
 
     // ------------------- Display Methods -------------------
 
-    private static void displayLedger() {
-        // display all transactions in formatted columns
-        System.out.printf("%-12s %-10s %-20s %-15s %10s%n",
-                "Date", "Time", "Description", "Vendor", "Amount");
-
-        for (Transaction t : transactions) {
-            System.out.printf("%-12s %-10s %-20s %-15s %10.2f%n",
-                    t.getDate(), t.getTime(), t.getDescription(), t.getVendor(), t.getAmount());
+    private static void displayLedger(Scanner scanner) {
+        // display all transactions in formatted columns, a page at a time
+        renderer.printHeader();
+        if (streaming) {
+            streamRows(Query.all(), scanner);
+            return;
+        }
+        if (partitions != null && !loadPartitions(Query.all())) {
+            return;
         }
+        renderer.show(null, scanner);
     }
 
-    private static void displayDeposits() {
+    private static void displayDeposits(Scanner scanner) {
         // display only transactions with positive amounts
-        for (Transaction t : transactions) {
-            if (t.getAmount() > 0) {
-                System.out.printf("%-12s %-10s %-20s %-15s %10.2f%n",
-                        t.getDate(), t.getTime(), t.getDescription(), t.getVendor(), t.getAmount());
+        show(Query.deposits(), false, scanner);
+    }
+
+    private static void displayPayments(Scanner scanner) {
+        // display only transactions with negative amounts
+        show(Query.payments(), false, scanner);
+    }
+
+    private static void show(Query query, boolean dateOrder, Scanner scanner) {
+        // run a query on the loaded ledger, or scan the mapped file in --stream mode
+        if (streaming) {
+            streamRows(query, scanner);
+        } else if (partitions == null || loadPartitions(query)) {
+            renderer.show(ledger.query(query, dateOrder), scanner);
+        }
+    }
+
+    private static boolean loadPartitions(Query query) {
+        // load the monthly segments a query can match; false if one could not be read
+        try {
+            partitions.loadFor(query);
+            return true;
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            Metrics.count("error reading file");
+            return false;
+        }
+    }
+
+    private static LedgerCursor openCursor(Query query) throws IOException {
+        // cursor over the single file, or over just the segments the query can match
+        return LedgerCursor.open(partitions != null ? partitions.segmentsFor(query) : List.of(Path.of(FILE_NAME)));
+    }
+
+    private static void streamRows(Query query, Scanner scanner) {
+        // print matching rows straight from the file, in file order, without loading it
+        flushWriter();
+        try (LedgerCursor cursor = openCursor(query)) {
+            renderer.showStream(cursor, query, scanner);
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            Metrics.count("error reading file");
+        }
+    }
+
+    private static Rollups.Totals streamTotals(LocalDate start, LocalDate end) {
+        // deposit and payment totals for a date range, added up in one pass over the file
+        Rollups.Totals totals = new Rollups.Totals();
+        int startDay = (int) start.toEpochDay();
+        int endDay = (int) end.toEpochDay();
+        long begin = System.nanoTime();
+        long scanned = 0;
+        flushWriter();
+        try (LedgerCursor cursor = openCursor(Query.between(start, end))) {
+            while (cursor.next()) {
+                scanned++;
+                int day = cursor.epochDay();
+                if (day < startDay || day > endDay) {
+                    continue;
+                }
+                long cents = cursor.cents();
+                if (cents > 0) {
+                    totals.add(cents, 0, 1, 0);
+                } else if (cents < 0) {
+                    totals.add(0, cents, 0, 1);
+                }
             }
+        } catch (IOException e) {
+            System.out.println("Error reading file: " + e.getMessage());
+            Metrics.count("error reading file");
         }
+        Metrics.timer("stream totals").record(System.nanoTime() - begin, scanned, totals.count());
+        return totals;
     }
 
-    private static void displayPayments() {
-        // display only transactions with negative amounts
-        for (Transaction t : transactions) {
-            if (t.getAmount() < 0) {
-                System.out.printf("%-12s %-10s %-20s %-15s %10.2f%n",
-                        t.getDate(), t.getTime(), t.getDescription(), t.getVendor(), t.getAmount());
+    private static void flushWriter() {
+        // make transactions added in this session visible to a new file mapping
+        try {
+            if (writer != null) {
+                writer.flush();
+            }
+            if (partitions != null) {
+                partitions.flush();
             }
+        } catch (IOException e) {
+            System.out.println("Error saving transaction: " + e.getMessage());
+            Metrics.count("error saving transaction");
         }
     }
 
@@ -352,73 +731,114 @@ public class FinancialTracker {
             System.out.println("4) Previous Year");
             System.out.println("5) Search by Vendor");
             System.out.println("6) Custom Search");
+            System.out.println("7) Top Vendors by Spending");
+            System.out.println("8) Monthly Spending by Vendor");
+            System.out.println("9) Spending by Keyword");
+            System.out.println("10) Running Balance");
+            System.out.println("11) Balance at Date and Time");
             System.out.println("0) Back");
+            printFollowed();
 
             String input = scanner.nextLine().trim();
             // read user input and remove spaces
 
-            switch (input) {
-                case "1" -> filterTransactionsByDate(LocalDate.now().withDayOfMonth(1), LocalDate.now());
-                // show transactions from the first of this month until today
+            ledgerLock.lock();
+            // followed rows wait until the report is done
+            try {
+                switch (input) {
+                    case "1" -> dateReport(scanner, LocalDate.now().withDayOfMonth(1), LocalDate.now());
+                    // summarize transactions from the first of this month until today
 
-                case "2" -> {
-                    // show transactions from previous month
-                    LocalDate firstPrevMonth = LocalDate.now().minusMonths(1).withDayOfMonth(1);
-                    LocalDate lastPrevMonth = firstPrevMonth.withDayOfMonth(firstPrevMonth.lengthOfMonth());
-                    filterTransactionsByDate(firstPrevMonth, lastPrevMonth);
-                }
+                    case "2" -> {
+                        // summarize transactions from previous month
+                        LocalDate firstPrevMonth = LocalDate.now().minusMonths(1).withDayOfMonth(1);
+                        LocalDate lastPrevMonth = firstPrevMonth.withDayOfMonth(firstPrevMonth.lengthOfMonth());
+                        dateReport(scanner, firstPrevMonth, lastPrevMonth);
+                    }
 
-                case "3" -> filterTransactionsByDate(LocalDate.of(LocalDate.now().getYear(), 1, 1), LocalDate.now());
-                // show transactions from January 1st of this year until today
+                    case "3" -> dateReport(scanner, LocalDate.of(LocalDate.now().getYear(), 1, 1), LocalDate.now());
+                    // summarize transactions from January 1st of this year until today
 
-                case "4" -> {
-                    // show transactions for previous year
-                    int prevYear = LocalDate.now().getYear() - 1;
-                    filterTransactionsByDate(LocalDate.of(prevYear, 1, 1), LocalDate.of(prevYear, 12, 31));
-                }
+                    case "4" -> {
+                        // summarize transactions for previous year
+                        int prevYear = LocalDate.now().getYear() - 1;
+                        dateReport(scanner, LocalDate.of(prevYear, 1, 1), LocalDate.of(prevYear, 12, 31));
+                    }
 
-                case "5" -> {
-                    // filter transactions by vendor
-                    System.out.print("Enter vendor name: ");
-                    filterTransactionsByVendor(scanner.nextLine());
-                }
+                    case "5" -> {
+                        // filter transactions by vendor
+                        System.out.print("Enter vendor name: ");
+                        filterTransactionsByVendor(scanner, scanner.nextLine());
+                    }
 
-                case "6" -> customSearch(scanner);
-                // perform a custom search with multiple filters
+                    case "6" -> customSearch(scanner);
+                    // perform a custom search with multiple filters
 
-                case "0" -> running = false;
-                // go back to ledger menu
+                    case "7" -> topVendors(scanner);
+                    // rank vendors by how much was spent with them
 
-                default -> System.out.println("Invalid option");
-                // invalid input handling
+                    case "8" -> monthlyByVendor(scanner);
+                    // spending per month, for one vendor or the top vendor of each month
+
+                    case "9" -> spendingByKeyword(scanner);
+                    // spending per description keyword
+
+                    case "10" -> runningBalance(scanner);
+                    // balance at the end of each day or month of a range
+
+                    case "11" -> balanceAt(scanner);
+                    // balance just after one moment, to compare with a statement
+
+                    case "0" -> running = false;
+                    // go back to ledger menu
+
+                    default -> System.out.println("Invalid option");
+                    // invalid input handling
+                }
+            } finally {
+                ledgerLock.unlock();
             }
         }
     }
 
+    private static void dateReport(Scanner scanner, LocalDate start, LocalDate end) {
+        // print totals for a date range from the rollups, then list rows only if asked
+        if (!streaming && partitions != null && !loadPartitions(Query.between(null, end))) {
+            return;
+            // the balance line needs every month up to the end of the range
+        }
+        Rollups.Totals totals = streaming ? streamTotals(start, end) : ledger.totalsBetween(start, end);
+
+        System.out.println("Summary " + start + " to " + end + ":");
+        System.out.printf("Deposits: %6d %14.2f%n", totals.depositCount, totals.depositCents / 100.0);
+        System.out.printf("Payments: %6d %14.2f%n", totals.paymentCount, totals.paymentCents / 100.0);
+        System.out.printf("Net:      %6s %14.2f%n", "", totals.netCents() / 100.0);
+        if (!streaming) {
+            System.out.printf("Balance:  %6s %14.2f%n", "", ledger.balanceThrough(end) / 100.0);
+            // balance at the end of the range, from the balance index
+        }
+
+        System.out.print("Show transactions? (Y/N): ");
+        if (scanner.nextLine().trim().equalsIgnoreCase("Y")) {
+            filterTransactionsByDate(scanner, start, end);
+            // fetch rows only when the user wants the detail
+        }
+    }
+
     // ------------------- Filter Methods -------------------
 
-    private static void filterTransactionsByDate(LocalDate start, LocalDate end) {
+    private static void filterTransactionsByDate(Scanner scanner, LocalDate start, LocalDate end) {
         // method to display transactions between start and end dates
         System.out.println("Transactions between " + start + " and " + end + ":");
 
-        for (Transaction t : transactions) {
-            if (!t.getDate().isBefore(start) && !t.getDate().isAfter(end)) {
-                // if transaction date is within the range, print it
-                System.out.printf("%-12s %-10s %-20s %-15s %10.2f%n",
-                        t.getDate(), t.getTime(), t.getDescription(), t.getVendor(), t.getAmount());
-            }
-        }
+        show(Query.between(start, end), true, scanner);
+        // the date index returns only the rows in range, in date order (file order when streaming)
     }
 
-    private static void filterTransactionsByVendor(String vendor) {
+    private static void filterTransactionsByVendor(Scanner scanner, String vendor) {
         // method to display all transactions matching a vendor name
-        for (Transaction t : transactions) {
-            if (t.getVendor().equalsIgnoreCase(vendor)) {
-                // case-insensitive match
-                System.out.printf("%-12s %-10s %-20s %-15s %10.2f%n",
-                        t.getDate(), t.getTime(), t.getDescription(), t.getVendor(), t.getAmount());
-            }
-        }
+        show(Query.vendor(vendor), false, scanner);
+        // the vendor index already matched case-insensitively
     }
 
     private static void customSearch(Scanner scanner) {
@@ -453,23 +873,179 @@ public class FinancialTracker {
         Double amount = amountInput.isEmpty() ? null : parseDouble(amountInput);
         // parse amount or null if blank
 
-        for (Transaction t : transactions) {
-            boolean match = true;
-            // assume transaction matches until proven otherwise
-
-            if (start != null && t.getDate().isBefore(start)) match = false;
-            if (end != null && t.getDate().isAfter(end)) match = false;
-            if (!descInput.isEmpty() && !t.getDescription().toLowerCase().contains(descInput.toLowerCase())) match = false;
-            if (!vendorInput.isEmpty() && !t.getVendor().equalsIgnoreCase(vendorInput)) match = false;
-            if (amount != null && t.getAmount() != amount) match = false;
-            // check all criteria, set match to false if any fail
-
-            if (match) {
-                // print transaction if it matches all filters
-                System.out.printf("%-12s %-10s %-20s %-15s %10.2f%n",
-                        t.getDate(), t.getTime(), t.getDescription(), t.getVendor(), t.getAmount());
+        show(Ledger.searchQuery(start, end, descInput, vendorInput, amount), start != null || end != null, scanner);
+        // the ledger picks the narrowest index, then checks the remaining filters
+    }
+
+    // ------------------- Spending Methods -------------------
+
+    private static GroupBy spending(Scanner scanner, LocalDate[] range) {
+        // ask for an optional date range and return the engine, or null if the ledger can't be aggregated
+        if (streaming) {
+            System.out.println("Spending reports need the loaded ledger; run without --stream.");
+            return null;
+        }
+        System.out.print("Enter start date (yyyy-MM-dd) or leave blank: ");
+        String startInput = scanner.nextLine().trim();
+        System.out.print("Enter end date (yyyy-MM-dd) or leave blank: ");
+        String endInput = scanner.nextLine().trim();
+        range[0] = startInput.isEmpty() ? null : parseDate(startInput);
+        range[1] = endInput.isEmpty() ? null : parseDate(endInput);
+        // blank or invalid dates leave that end of the range open
+
+        if (partitions != null && !loadPartitions(Query.between(range[0], range[1]))) {
+            return null;
+        }
+        return new GroupBy(ledger);
+    }
+
+    private static void topVendors(Scanner scanner) {
+        // print the vendors with the highest spending
+        LocalDate[] range = new LocalDate[2];
+        GroupBy groupBy = spending(scanner, range);
+        if (groupBy == null) {
+            return;
+        }
+        System.out.print("How many vendors? (default 10): ");
+        String limitInput = scanner.nextLine().trim();
+        Double limit = limitInput.isEmpty() ? null : parseDouble(limitInput);
+        int count = limit == null || limit < 1 ? 10 : limit.intValue();
+
+        System.out.printf("%-4s %-30s %8s %14s%n", "#", "Vendor", "Payments", "Spent");
+        int rank = 1;
+        for (GroupBy.Group group : groupBy.topVendors(range[0], range[1], count)) {
+            System.out.printf("%-4d %-30s %8d %14.2f%n", rank++, group.key, group.count, group.cents / 100.0);
+        }
+    }
+
+    private static void monthlyByVendor(Scanner scanner) {
+        // print spending per month for one vendor, or each month's top vendor when none is given
+        LocalDate[] range = new LocalDate[2];
+        GroupBy groupBy = spending(scanner, range);
+        if (groupBy == null) {
+            return;
+        }
+        System.out.print("Enter vendor or leave blank for every month's top vendor: ");
+        String vendor = VendorIndex.fold(scanner.nextLine().trim());
+
+        System.out.printf("%-8s %-30s %8s %14s %14s%n", "Month", "Vendor", "Payments", "Spent", "Month Total");
+        List<GroupBy.Group> groups = groupBy.monthlyByVendor(range[0], range[1]);
+        for (int i = 0; i < groups.size(); ) {
+            YearMonth month = groups.get(i).month;
+            GroupBy.Group shown = vendor.isEmpty() ? groups.get(i) : null;
+            // groups of a month come highest spending first
+            long monthCents = 0;
+            for (; i < groups.size() && groups.get(i).month.equals(month); i++) {
+                monthCents += groups.get(i).cents;
+                if (shown == null && VendorIndex.fold(groups.get(i).key).equals(vendor)) {
+                    shown = groups.get(i);
+                }
+            }
+            if (shown != null) {
+                System.out.printf("%-8s %-30s %8d %14.2f %14.2f%n", month, shown.key, shown.count,
+                        shown.cents / 100.0, monthCents / 100.0);
+            }
+        }
+    }
+
+    private static void spendingByKeyword(Scanner scanner) {
+        // print spending for each description keyword
+        LocalDate[] range = new LocalDate[2];
+        GroupBy groupBy = spending(scanner, range);
+        if (groupBy == null) {
+            return;
+        }
+        System.out.print("Enter keywords separated by commas: ");
+        List<String> keywords = new ArrayList<>();
+        for (String keyword : scanner.nextLine().split(",")) {
+            if (!keyword.isBlank() && keywords.size() < GroupBy.MAX_KEYWORDS) {
+                keywords.add(keyword.trim());
             }
         }
+
+        System.out.printf("%-30s %8s %14s%n", "Keyword", "Payments", "Spent");
+        for (GroupBy.Group group : groupBy.byKeyword(keywords, range[0], range[1])) {
+            System.out.printf("%-30s %8d %14.2f%n", group.key, group.count, group.cents / 100.0);
+        }
+    }
+
+    // ------------------- Balance Methods -------------------
+
+    private static void runningBalance(Scanner scanner) {
+        // print the opening balance, then the net change and closing balance of each day or month
+        if (streaming) {
+            System.out.println("Balances need the loaded ledger; run without --stream.");
+            return;
+        }
+        System.out.print("Enter start date (yyyy-MM-dd) or leave blank: ");
+        String startInput = scanner.nextLine().trim();
+        System.out.print("Enter end date (yyyy-MM-dd) or leave blank for today: ");
+        String endInput = scanner.nextLine().trim();
+        System.out.print("Balance per (D)ay with transactions or per (M)onth? ");
+        boolean monthly = scanner.nextLine().trim().equalsIgnoreCase("M");
+
+        LocalDate end = endInput.isEmpty() ? LocalDate.now() : parseDate(endInput);
+        if (end == null) {
+            return;
+        }
+        if (partitions != null && !loadPartitions(Query.between(null, end))) {
+            return;
+            // a balance needs every month up to the end of the range
+        }
+        LocalDate start = startInput.isEmpty() ? firstDate() : parseDate(startInput);
+        if (start == null || start.isAfter(end)) {
+            System.out.println("No transactions in that range.");
+            return;
+        }
+
+        System.out.printf("Opening balance %s: %14.2f%n", start, ledger.balanceThrough(start.minusDays(1)) / 100.0);
+        System.out.printf("%-10s %14s %14s%n", monthly ? "Month" : "Date", "Net Change", "Balance");
+        if (monthly) {
+            for (YearMonth month = YearMonth.from(start); !month.isAfter(YearMonth.from(end)); month = month.plusMonths(1)) {
+                LocalDate from = month.atDay(1).isBefore(start) ? start : month.atDay(1);
+                LocalDate to = month.atEndOfMonth().isAfter(end) ? end : month.atEndOfMonth();
+                System.out.printf("%-10s %14.2f %14.2f%n", month, ledger.netBetween(from, to) / 100.0,
+                        ledger.balanceThrough(to) / 100.0);
+            }
+        } else {
+            DateIndex dates = ledger.getDateIndex();
+            int endPosition = dates.endPosition((int) end.toEpochDay());
+            for (int position = dates.firstPosition((int) start.toEpochDay()); position < endPosition; ) {
+                LocalDate day = LocalDate.ofEpochDay(ledger.getStore().epochDay(dates.rowAt(position)));
+                System.out.printf("%-10s %14.2f %14.2f%n", day, ledger.netBetween(day, day) / 100.0,
+                        ledger.balanceThrough(day) / 100.0);
+                position = dates.endPosition((int) day.toEpochDay());
+                // jump straight to the next day with transactions
+            }
+        }
+    }
+
+    private static void balanceAt(Scanner scanner) {
+        // print the balance after every transaction up to and including a date and time
+        if (streaming) {
+            System.out.println("Balances need the loaded ledger; run without --stream.");
+            return;
+        }
+        System.out.print("Enter date and time (yyyy-MM-dd HH:mm:ss) or leave blank for now: ");
+        String input = scanner.nextLine().trim();
+        LocalDateTime moment;
+        try {
+            moment = input.isEmpty() ? LocalDateTime.now().withNano(0) : LocalDateTime.parse(input, DATETIME_FMT);
+        } catch (DateTimeParseException e) {
+            System.out.println("Invalid date format.");
+            return;
+        }
+        if (partitions != null && !loadPartitions(Query.between(null, moment.toLocalDate()))) {
+            return;
+            // the balance needs every month up to that date
+        }
+        System.out.printf("Balance at %s: %14.2f%n", moment.format(DATETIME_FMT), ledger.balanceAt(moment) / 100.0);
+    }
+
+    private static LocalDate firstDate() {
+        // date of the earliest transaction, or null when the ledger is empty
+        DateIndex dates = ledger.getDateIndex();
+        return dates.size() == 0 ? null : LocalDate.ofEpochDay(ledger.getStore().epochDay(dates.rowAt(0)));
     }
 
     // ------------------- Utility Parsers -------------------
@@ -0,0 +1,381 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.time.LocalDate;
+// import LocalDate for report date ranges
+
+import java.time.YearMonth;
+// import YearMonth for monthly groups
+
+import java.util.ArrayList;
+// import ArrayList for the result lists
+
+import java.util.BitSet;
+// import BitSet for the descriptions matching each keyword
+
+import java.util.Comparator;
+// import Comparator to sort groups by spending
+
+import java.util.HashMap;
+// import HashMap to combine vendor spellings that differ only in case
+
+import java.util.List;
+// import List for the result lists
+
+import java.util.Map;
+// import Map to combine vendor spellings that differ only in case
+
+import java.util.concurrent.ForkJoinPool;
+// import ForkJoinPool to aggregate on every core
+
+import java.util.concurrent.RecursiveTask;
+// import RecursiveTask for the split-and-merge tasks
+
+/*
+ Group-by engine
+ ------------------------------------------------
+ Spending reports over the whole ledger: top vendors, spending per month
+ and vendor, and spending per description keyword. Spending is the total
+ of the payments (negative amounts), reported as a positive number.
+
+ The rows are split into fork-join tasks, one range per task. Each task
+ adds up its rows into its own primitive table keyed by dictionary id
+ (vendor id -> cents in a long[], month and vendor -> cents in a
+ LongSumMap, keyword bit -> cents), so tasks never share anything while
+ they run; the partial tables are then merged pairwise as the tasks join.
+ Strings are only touched at the end, once per distinct vendor.
+
+ A date range is read through the date index when it covers less than
+ half of the ledger, otherwise the columns are scanned in row order.
+*/
+public class GroupBy {
+
+    // ------------------- Settings -------------------
+
+    private static final int MIN_TASK_ROWS = 1 << 16;
+    // smallest range worth its own task
+
+    public static final int MAX_KEYWORDS = 64;
+    // keywords per report, one bit each in a long mask
+
+    private static final Metrics.Timer TIMER = Metrics.timer("group by");
+    // every aggregation: rows scanned vs groups returned
+
+    private final Ledger ledger;
+    // ledger to aggregate
+
+    public GroupBy(Ledger ledger) {
+        this.ledger = ledger;
+    }
+
+    /**
+     * One group of a spending report.
+     */
+    public static class Group {
+        public final YearMonth month;
+        // month of the group, null when not grouped by month
+
+        public final String key;
+        // vendor or keyword
+
+        public final long count;
+        // number of payments
+
+        public final long cents;
+        // total spent, positive
+
+        Group(YearMonth month, String key, long count, long cents) {
+            this.month = month;
+            this.key = key;
+            this.count = count;
+            this.cents = cents;
+        }
+    }
+
+    // ------------------- Reports -------------------
+
+    /**
+     * The vendors with the highest spending between start and end (null for open ends), highest first.
+     * Vendor names that differ only in case are one vendor.
+     */
+    public List<Group> topVendors(LocalDate start, LocalDate end, int limit) {
+        long begin = System.nanoTime();
+        Scan scan = scan(start, end);
+        TransactionStore store = ledger.getStore();
+        int vendorCount = store.getVendors().size();
+
+        long[][] totals = scan.run(new Aggregation<long[][]>() {
+            long[][] newPartial() { return new long[2][vendorCount]; }
+            // [0] = count, [1] = cents, indexed by vendor id
+
+            void add(long[][] partial, int row, long spent) {
+                int vendor = store.vendorId(row);
+                partial[0][vendor]++;
+                partial[1][vendor] += spent;
+            }
+
+            long[][] merge(long[][] a, long[][] b) {
+                for (int i = 0; i < vendorCount; i++) {
+                    a[0][i] += b[0][i];
+                    a[1][i] += b[1][i];
+                }
+                return a;
+            }
+        });
+
+        Map<String, long[]> byFolded = new HashMap<>();
+        // folded name -> {count, cents, vendor id of the first spelling}
+        for (int vendor = 0; vendor < vendorCount; vendor++) {
+            if (totals[0][vendor] > 0) {
+                long[] sum = byFolded.computeIfAbsent(VendorIndex.fold(store.getVendors().get(vendor)),
+                        key -> new long[3]);
+                if (sum[0] == 0) {
+                    sum[2] = vendor;
+                    // shown under the first spelling found
+                }
+                sum[0] += totals[0][vendor];
+                sum[1] += totals[1][vendor];
+            }
+        }
+
+        List<Group> groups = new ArrayList<>();
+        for (long[] sum : byFolded.values()) {
+            groups.add(new Group(null, store.getVendors().get((int) sum[2]), sum[0], sum[1]));
+        }
+        groups.sort(Comparator.comparingLong((Group g) -> g.cents).reversed().thenComparing(g -> g.key));
+        List<Group> top = new ArrayList<>(groups.subList(0, Math.min(limit, groups.size())));
+        TIMER.record(System.nanoTime() - begin, scan.rows(), top.size());
+        return top;
+    }
+
+    /**
+     * Spending per month and vendor between start and end, by month, then highest spending first.
+     */
+    public List<Group> monthlyByVendor(LocalDate start, LocalDate end) {
+        long begin = System.nanoTime();
+        Scan scan = scan(start, end);
+        TransactionStore store = ledger.getStore();
+        int[] monthOfDay = scan.monthTable();
+        int firstDay = scan.firstDay;
+
+        LongSumMap totals = scan.run(new Aggregation<LongSumMap>() {
+            LongSumMap newPartial() { return new LongSumMap(1024); }
+            // (month << 32 | vendor id) -> count, cents
+
+            void add(LongSumMap partial, int row, long spent) {
+                long month = monthOfDay[store.epochDay(row) - firstDay];
+                partial.add(month << 32 | store.vendorId(row), 1, spent);
+            }
+
+            LongSumMap merge(LongSumMap a, LongSumMap b) {
+                if (a.size() < b.size()) {
+                    b.addAll(a);
+                    return b;
+                }
+                a.addAll(b);
+                return a;
+                // add the smaller table into the larger one
+            }
+        });
+
+        Map<String, Group> byKey = new HashMap<>();
+        // "month|folded vendor" -> group, so spellings that differ in case add up
+        totals.forEach((key, count, cents) -> {
+            int month = (int) (key >>> 32);
+            String vendor = store.getVendors().get((int) key);
+            String folded = month + "|" + VendorIndex.fold(vendor);
+            Group old = byKey.get(folded);
+            YearMonth yearMonth = YearMonth.of(month / 12, month % 12 + 1);
+            byKey.put(folded, old == null ? new Group(yearMonth, vendor, count, cents)
+                    : new Group(yearMonth, old.key, old.count + count, old.cents + cents));
+        });
+
+        List<Group> groups = new ArrayList<>(byKey.values());
+        groups.sort(Comparator.comparing((Group g) -> g.month)
+                .thenComparing(Comparator.comparingLong((Group g) -> g.cents).reversed())
+                .thenComparing(g -> g.key));
+        TIMER.record(System.nanoTime() - begin, scan.rows(), groups.size());
+        return groups;
+    }
+
+    /**
+     * Spending per description keyword (contains, ignoring case) between start and end, in the order given.
+     * A payment whose description contains several keywords counts for each of them.
+     */
+    public List<Group> byKeyword(List<String> keywords, LocalDate start, LocalDate end) {
+        if (keywords.size() > MAX_KEYWORDS) {
+            throw new IllegalArgumentException("At most " + MAX_KEYWORDS + " keywords");
+        }
+        long begin = System.nanoTime();
+        TransactionStore store = ledger.getStore();
+
+        long[] maskByDescription = new long[store.getDescriptions().size()];
+        // description id -> bit k set when it contains keyword k
+        for (int k = 0; k < keywords.size(); k++) {
+            BitSet matches = ledger.descriptionsContaining(keywords.get(k));
+            for (int id = matches.nextSetBit(0); id >= 0 && id < maskByDescription.length; id = matches.nextSetBit(id + 1)) {
+                maskByDescription[id] |= 1L << k;
+            }
+        }
+
+        int keywordCount = keywords.size();
+        Scan scan = scan(start, end);
+        long[][] totals = scan.run(new Aggregation<long[][]>() {
+            long[][] newPartial() { return new long[2][keywordCount]; }
+            // [0] = count, [1] = cents, indexed by keyword
+
+            void add(long[][] partial, int row, long spent) {
+                for (long mask = maskByDescription[store.descriptionId(row)]; mask != 0; mask &= mask - 1) {
+                    int k = Long.numberOfTrailingZeros(mask);
+                    partial[0][k]++;
+                    partial[1][k] += spent;
+                }
+            }
+
+            long[][] merge(long[][] a, long[][] b) {
+                for (int k = 0; k < keywordCount; k++) {
+                    a[0][k] += b[0][k];
+                    a[1][k] += b[1][k];
+                }
+                return a;
+            }
+        });
+
+        List<Group> groups = new ArrayList<>();
+        for (int k = 0; k < keywordCount; k++) {
+            groups.add(new Group(null, keywords.get(k), totals[0][k], totals[1][k]));
+        }
+        TIMER.record(System.nanoTime() - begin, scan.rows(), groups.size());
+        return groups;
+    }
+
+    // ------------------- Scanning -------------------
+
+    private abstract static class Aggregation<P> {
+        // what a task keeps per row range and how two ranges combine
+
+        abstract P newPartial();
+        // empty table for one task
+
+        abstract void add(P partial, int row, long spent);
+        // add one payment
+
+        abstract P merge(P a, P b);
+        // combine two tables, may reuse either
+    }
+
+    private Scan scan(LocalDate start, LocalDate end) {
+        DateIndex dates = ledger.getDateIndex();
+        TransactionStore store = ledger.getStore();
+        int startDay = start != null ? (int) start.toEpochDay() : Integer.MIN_VALUE;
+        int endDay = end != null ? (int) end.toEpochDay() : Integer.MAX_VALUE - 1;
+
+        int first = dates.firstPosition(startDay);
+        int last = dates.endPosition(endDay);
+        boolean byDate = last - first < store.size() / 2;
+        return new Scan(store, dates, startDay, endDay, byDate ? first : 0, byDate ? last : store.size(), byDate,
+                last > first ? store.epochDay(dates.rowAt(first)) : 0,
+                last > first ? store.epochDay(dates.rowAt(last - 1)) : 0);
+    }
+
+    private static class Scan {
+        // the rows of a date range: positions in the date index, or row numbers with a date check
+
+        final TransactionStore store;
+        final DateIndex dates;
+        final int startDay;
+        final int endDay;
+        final int from;
+        final int to;
+        final boolean byDate;
+        final int firstDay;
+        final int lastDay;
+        // first and last date actually in the range
+
+        Scan(TransactionStore store, DateIndex dates, int startDay, int endDay, int from, int to,
+             boolean byDate, int firstDay, int lastDay) {
+            this.store = store;
+            this.dates = dates;
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.from = from;
+            this.to = to;
+            this.byDate = byDate;
+            this.firstDay = firstDay;
+            this.lastDay = lastDay;
+        }
+
+        long rows() { return to - from; }
+        // rows read
+
+        int[] monthTable() {
+            // day - firstDay -> year * 12 + month - 1, for every day in the range
+            int[] table = new int[Math.max(0, lastDay - firstDay + 1)];
+            LocalDate date = LocalDate.ofEpochDay(firstDay);
+            for (int i = 0; i < table.length; i++, date = date.plusDays(1)) {
+                table[i] = date.getYear() * 12 + date.getMonthValue() - 1;
+            }
+            return table;
+        }
+
+        <P> P run(Aggregation<P> aggregation) {
+            int parallelism = ForkJoinPool.getCommonPoolParallelism();
+            int taskRows = Math.max(MIN_TASK_ROWS, (to - from) / (parallelism * 4) + 1);
+            // a few tasks per core so a slow one doesn't hold up the rest
+            return ForkJoinPool.commonPool().invoke(new Task<>(this, aggregation, from, to, taskRows));
+        }
+
+        <P> void addRange(Aggregation<P> aggregation, P table, int rangeFrom, int rangeTo) {
+            for (int i = rangeFrom; i < rangeTo; i++) {
+                int row = byDate ? dates.rowAt(i) : i;
+                long cents = store.cents(row);
+                if (cents >= 0) {
+                    continue;
+                    // deposits are not spending
+                }
+                if (!byDate) {
+                    int day = store.epochDay(row);
+                    if (day < startDay || day > endDay) {
+                        continue;
+                    }
+                }
+                aggregation.add(table, row, -cents);
+            }
+        }
+    }
+
+    private static class Task<P> extends RecursiveTask<P> {
+        // aggregates positions [from, to), splitting in half until a range is small enough
+
+        private static final long serialVersionUID = 1L;
+        // fork-join tasks are Serializable; never actually serialized
+
+        private final Scan scan;
+        private final Aggregation<P> aggregation;
+        private final int from;
+        private final int to;
+        private final int taskRows;
+
+        Task(Scan scan, Aggregation<P> aggregation, int from, int to, int taskRows) {
+            this.scan = scan;
+            this.aggregation = aggregation;
+            this.from = from;
+            this.to = to;
+            this.taskRows = taskRows;
+        }
+
+        @Override
+        protected P compute() {
+            if (to - from <= taskRows) {
+                P partial = aggregation.newPartial();
+                scan.addRange(aggregation, partial, from, to);
+                return partial;
+            }
+            int middle = (from + to) >>> 1;
+            Task<P> left = new Task<>(scan, aggregation, from, middle, taskRows);
+            left.fork();
+            P right = new Task<>(scan, aggregation, middle, to, taskRows).compute();
+            return aggregation.merge(left.join(), right);
+        }
+    }
+}
@@ -0,0 +1,378 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for file loading errors
+
+import java.nio.file.Files;
+// import Files to check the CSV size before saving a snapshot
+
+import java.nio.file.Path;
+// import Path to locate the transactions file
+
+import java.time.LocalDate;
+// import LocalDate for report date ranges
+
+import java.time.LocalDateTime;
+// import LocalDateTime for balances at a moment
+
+import java.util.ArrayList;
+// import ArrayList to collect custom search criteria
+
+import java.util.BitSet;
+// import BitSet for sets of matching description ids
+
+import java.util.List;
+// import List for custom search criteria
+
+/*
+ Ledger
+ ------------------------------------------------
+ The in-memory ledger: the column store plus every index built on it.
+ All rows go in through load() or append(), so the indexes never
+ fall out of step with the data.
+*/
+public class Ledger {
+
+    private final TransactionStore store = new TransactionStore();
+    // every transaction, in file order
+
+    private final DateIndex dateIndex = new DateIndex();
+    // rows ordered by date and time
+
+    private final VendorIndex vendorIndex = new VendorIndex();
+    // rows grouped by case-folded vendor name
+
+    private final DescriptionIndex descriptionIndex;
+    // trigram index over lowercased descriptions
+
+    private final Rollups rollups = new Rollups();
+    // per-day, per-month and per-year totals
+
+    private final BalanceIndex balances = new BalanceIndex();
+    // net cents per day in a Fenwick tree, for balances at any date
+
+    private final QueryEngine queryEngine = new QueryEngine(this);
+    // plans and runs searches over the indexes
+
+    private final QueryCache queryCache = new QueryCache();
+    // recent query results, dropped when appended rows match them
+
+    private static final long SNAPSHOT_REPLAY_BYTES = 1 << 20;
+    // refresh the snapshot on load when more CSV than this had to be parsed
+
+    private long loadedBytes;
+    // CSV bytes covered by the rows loaded at startup, plus bytes read by the follower
+
+    private long snapshotBytes;
+    // CSV bytes covered by the snapshot on disk
+
+    private boolean fileReplaced;
+    // the CSV was rotated while following: the rows now come from two files, so no snapshot fits
+
+    private static final Metrics.Timer LOAD_TIMER = Metrics.timer("load");
+    private static final Metrics.Timer APPEND_TIMER = Metrics.timer("append");
+    private static final Metrics.Timer APPEND_BATCH_TIMER = Metrics.timer("append batch");
+    private static final Metrics.Timer CACHE_HIT_TIMER = Metrics.timer("query cache hit");
+    private static final Metrics.Timer TOTALS_TIMER = Metrics.timer("totals");
+    private static final Metrics.Timer BALANCE_TIMER = Metrics.timer("balance");
+    // hot path timers, see Metrics
+
+    /**
+     * Ledger with an exact description index.
+     */
+    public Ledger() {
+        this(false);
+    }
+
+    /**
+     * Ledger whose description index is memory-bounded when 'boundedDescriptionIndex' is true.
+     */
+    public Ledger(boolean boundedDescriptionIndex) {
+        descriptionIndex = boundedDescriptionIndex ? DescriptionIndex.bounded() : new DescriptionIndex();
+    }
+
+    // ------------------- Loading and Appending -------------------
+
+    /**
+     * Load a CSV file into the ledger and rebuild the indexes.
+     * Rows come from the binary snapshot when it matches the file,
+     * and only the lines written after it are parsed.
+     */
+    public void load(Path path) throws IOException {
+        LedgerEvents.Load event = new LedgerEvents.Load();
+        event.begin();
+        long start = System.nanoTime();
+
+        snapshotBytes = LedgerSnapshot.load(path, store);
+        loadedBytes = TransactionLoader.loadInto(path, store, snapshotBytes);
+
+        if (loadedBytes - snapshotBytes >= SNAPSHOT_REPLAY_BYTES) {
+            saveSnapshot(path, 0);
+            // a large CSV tail was parsed, don't parse it again next time
+        }
+        dateIndex.rebuild(store);
+        vendorIndex.rebuild(store);
+        descriptionIndex.rebuild(store);
+        rollups.rebuild(store);
+        balances.rebuild(store);
+        queryCache.clear();
+
+        LOAD_TIMER.record(System.nanoTime() - start, store.size(), store.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.path = path.toString();
+            event.rows = store.size();
+            event.bytes = loadedBytes;
+            event.snapshotBytes = snapshotBytes;
+            event.commit();
+        }
+    }
+
+    /**
+     * Add one transaction to the store and every index. Returns its row number.
+     */
+    public int append(Transaction t) {
+        LedgerEvents.Append event = new LedgerEvents.Append();
+        event.begin();
+        long start = System.nanoTime();
+
+        int row = store.add(t);
+        index(row);
+        long invalidated = queryCache.invalidate(store, row, row + 1);
+
+        APPEND_TIMER.record(System.nanoTime() - start, 1, 1);
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = 1;
+            event.invalidated = invalidated;
+            event.commit();
+        }
+        return row;
+    }
+
+    /**
+     * Add every row of another store, in order, and index them. Returns the first new row number.
+     * Used to publish a batch that was built outside the ledger.
+     */
+    public int appendAll(TransactionStore rows) {
+        LedgerEvents.Append event = new LedgerEvents.Append();
+        event.begin();
+        long start = System.nanoTime();
+
+        int first = store.size();
+        store.addAll(rows);
+        dateIndex.addAll(store, first);
+        // one merge for the whole batch
+        for (int row = first; row < store.size(); row++) {
+            vendorIndex.add(store, row);
+            descriptionIndex.add(store, row);
+            rollups.add(store.epochDay(row), store.cents(row));
+            balances.add(store.epochDay(row), store.cents(row));
+        }
+        long invalidated = queryCache.invalidate(store, first, store.size());
+
+        APPEND_BATCH_TIMER.record(System.nanoTime() - start, rows.size(), rows.size());
+        event.end();
+        if (event.shouldCommit()) {
+            event.rows = rows.size();
+            event.invalidated = invalidated;
+            event.commit();
+        }
+        return first;
+    }
+
+    private void index(int row) {
+        // add a new row to every index
+        dateIndex.add(row, store.epochDay(row), store.secondOfDay(row));
+        vendorIndex.add(store, row);
+        descriptionIndex.add(store, row);
+        rollups.add(store.epochDay(row), store.cents(row));
+        balances.add(store.epochDay(row), store.cents(row));
+    }
+
+    /**
+     * Save a binary snapshot of the store next to the CSV file.
+     * 'appendedBytes' is how much the append writer added since load; the snapshot
+     * is only written when the file holds exactly the rows in memory, so it is
+     * skipped if another program changed the file in the meantime.
+     */
+    public void saveSnapshot(Path path, long appendedBytes) {
+        if (fileReplaced) {
+            return;
+        }
+        try {
+            long csvBytes = loadedBytes + appendedBytes;
+            if (Files.size(path) == csvBytes) {
+                LedgerSnapshot.save(path, store, csvBytes);
+                snapshotBytes = csvBytes;
+            }
+        } catch (IOException e) {
+            System.out.println("Error saving snapshot: " + e.getMessage());
+            Metrics.count("error saving snapshot");
+        }
+    }
+
+    /**
+     * Count CSV bytes that other programs appended and the follower has added to the ledger
+     * (call after appendAll), so the snapshot offset covers them. Like load(), the snapshot is
+     * refreshed once more than SNAPSHOT_REPLAY_BYTES of CSV would have to be parsed again.
+     */
+    public void followed(Path path, long bytes, long appendedBytes) {
+        loadedBytes += bytes;
+        if (loadedBytes + appendedBytes - snapshotBytes >= SNAPSHOT_REPLAY_BYTES) {
+            saveSnapshot(path, appendedBytes);
+        }
+    }
+
+    /**
+     * The followed CSV was rotated or truncated: stop saving snapshots for it.
+     */
+    public void fileReplaced() {
+        fileReplaced = true;
+    }
+
+    public long getLoadedBytes() { return loadedBytes; }
+    // returns the CSV bytes the ledger has read
+
+    // ------------------- Queries -------------------
+
+    /**
+     * Rows dated between start and end inclusive (epoch days), in date order.
+     */
+    public int[] rowsBetween(int startDay, int endDay) {
+        return dateIndex.rowsBetween(startDay, endDay);
+    }
+
+    /**
+     * Rows whose vendor equals the given name, ignoring case, in row order.
+     */
+    public int[] rowsForVendor(String vendor) {
+        return vendorIndex.rows(vendor);
+    }
+
+    /**
+     * Description ids whose text contains the keyword, ignoring case.
+     * Lets callers filter rows by description id instead of comparing strings.
+     */
+    public BitSet descriptionsContaining(String keyword) {
+        return descriptionIndex.matchingDescriptions(keyword);
+    }
+
+    /**
+     * Rows matching a query, in date order or in row (file) order.
+     * Repeated queries are answered from the query cache; the returned
+     * array may be shared with it, so callers only read it.
+     */
+    public int[] query(Query query, boolean dateOrder) {
+        long start = System.nanoTime();
+        int[] rows = queryCache.get(query, dateOrder);
+        if (rows == null) {
+            rows = queryEngine.run(query, dateOrder);
+            queryCache.put(query, dateOrder, rows);
+            return rows;
+        }
+
+        CACHE_HIT_TIMER.record(System.nanoTime() - start, 0, rows.length);
+        LedgerEvents.Query event = new LedgerEvents.Query();
+        if (event.shouldCommit()) {
+            event.query = query.toString();
+            event.plan = "cached";
+            event.cached = true;
+            event.rowsReturned = rows.length;
+            event.commit();
+        }
+        return rows;
+    }
+
+    /**
+     * Custom search: rows matching every criterion that is given (null or blank means "any").
+     * Results are in date order when a date is given, otherwise in row order.
+     */
+    public int[] search(LocalDate start, LocalDate end, String keyword, String vendor, Double amount) {
+        return query(searchQuery(start, end, keyword, vendor, amount), start != null || end != null);
+    }
+
+    /**
+     * The query behind a custom search: every criterion that is given, combined with AND.
+     */
+    public static Query searchQuery(LocalDate start, LocalDate end, String keyword, String vendor, Double amount) {
+        List<Query> criteria = new ArrayList<>();
+        if (start != null || end != null) {
+            criteria.add(Query.between(start, end));
+        }
+        if (keyword != null && !keyword.isEmpty()) {
+            criteria.add(Query.keyword(keyword));
+        }
+        if (vendor != null && !vendor.isEmpty()) {
+            criteria.add(Query.vendor(vendor));
+        }
+        if (amount != null) {
+            criteria.add(Query.amount(amount));
+        }
+        return Query.and(criteria.toArray(new Query[0]));
+    }
+
+    /**
+     * Deposit, payment and net totals for a date range, read from the rollups.
+     */
+    public Rollups.Totals totalsBetween(LocalDate start, LocalDate end) {
+        long begin = System.nanoTime();
+        Rollups.Totals totals = rollups.totalsBetween(start, end);
+        TOTALS_TIMER.record(System.nanoTime() - begin, 0, totals.count());
+        return totals;
+    }
+
+    /**
+     * Balance in cents after every transaction dated on or before the given date (null for all). O(log days).
+     */
+    public long balanceThrough(LocalDate date) {
+        long begin = System.nanoTime();
+        long balance = date == null ? balances.total() : balances.balanceThrough((int) date.toEpochDay());
+        BALANCE_TIMER.record(System.nanoTime() - begin, 0, 1);
+        return balance;
+    }
+
+    /**
+     * Balance in cents just after the given moment (every row dated up to and including
+     * that second): the days before it from the balance index, plus that day's rows up to
+     * the second from the date index. O(log days + rows of that day before the moment).
+     */
+    public long balanceAt(LocalDateTime moment) {
+        long begin = System.nanoTime();
+        int day = (int) moment.toLocalDate().toEpochDay();
+        long balance = balances.balanceThrough(day - 1);
+        int first = dateIndex.firstPosition(day);
+        int end = dateIndex.positionAfter(day, moment.toLocalTime().toSecondOfDay());
+        for (int position = first; position < end; position++) {
+            balance += store.cents(dateIndex.rowAt(position));
+        }
+        BALANCE_TIMER.record(System.nanoTime() - begin, end - first, 1);
+        return balance;
+    }
+
+    /**
+     * Net change in cents over the transactions dated between start and end inclusive. O(log days).
+     */
+    public long netBetween(LocalDate start, LocalDate end) {
+        long begin = System.nanoTime();
+        long net = balances.netBetween((int) start.toEpochDay(), (int) end.toEpochDay());
+        BALANCE_TIMER.record(System.nanoTime() - begin, 0, 1);
+        return net;
+    }
+
+    public TransactionStore getStore() { return store; }
+    // returns the column store
+
+    public DateIndex getDateIndex() { return dateIndex; }
+    // returns the date index
+
+    public VendorIndex getVendorIndex() { return vendorIndex; }
+    // returns the vendor index
+
+    public DescriptionIndex getDescriptionIndex() { return descriptionIndex; }
+    // returns the description index
+
+    public QueryCache getQueryCache() { return queryCache; }
+    // returns the query result cache and its counters
+}
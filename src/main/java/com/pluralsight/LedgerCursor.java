@@ -0,0 +1,229 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.MappedByteBuffer;
+// import MappedByteBuffer for the mapped file
+
+import java.nio.channels.FileChannel;
+// import FileChannel to map the file
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to decode description and vendor text
+
+import java.nio.file.Path;
+// import Path to locate the transactions file
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to open the file read-only
+
+import java.util.Arrays;
+// import Arrays to grow the line buffer
+
+import java.util.List;
+// import List for the files of a partitioned ledger
+
+/*
+ Ledger cursor
+ ------------------------------------------------
+ Walks transactions.csv straight from a read-only memory mapping, one
+ line at a time, for ledgers too large to load (--stream). The cursor is
+ a flyweight: next() decodes the current line into the same few fields
+ every time, and no Transaction or store row is ever created, so a scan
+ needs the same small heap for a thousand rows or a billion.
+ Description and vendor are only turned into Strings when asked for.
+ Lines that can't be decoded are skipped.
+ A cursor can also walk several files one after the other, such as the
+ monthly segments of a partitioned ledger.
+
+   try (LedgerCursor cursor = LedgerCursor.open(path)) {
+       while (cursor.next()) { ... cursor.epochDay() ... cursor.cents() ... }
+   }
+*/
+public class LedgerCursor implements AutoCloseable {
+
+    // ------------------- Settings -------------------
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+    // bytes per mapping; a mapping is limited to 2 GB, so large files use several
+
+    private final List<Path> files;
+    // files to walk, in order
+
+    private int fileIndex = -1;
+    // position of the current file in 'files'
+
+    private FileChannel channel;
+    // current file, open until the cursor moves past it
+
+    private MappedByteBuffer[] segments = new MappedByteBuffer[0];
+    // the current file, mapped SEGMENT_SIZE bytes at a time
+
+    private long size;
+    // current file's size when it was opened
+
+    private long position;
+    // offset of the next unread byte
+
+    private byte[] line = new byte[256];
+    // reused copy of the current line (grows for very long lines)
+
+    private final RecordDecoder decoder = new RecordDecoder();
+    // reused decoder for the current line
+
+    private String description;
+    private String vendor;
+    // text of the current line, decoded on first use
+
+    private LedgerCursor(List<Path> files) {
+        this.files = files;
+    }
+
+    /**
+     * Map a transactions file for reading. Lines appended later are not seen by this cursor.
+     */
+    public static LedgerCursor open(Path path) throws IOException {
+        return open(List.of(path));
+    }
+
+    /**
+     * Walk several transaction files in order. Each file is mapped when the cursor reaches it.
+     */
+    public static LedgerCursor open(List<Path> paths) throws IOException {
+        LedgerCursor cursor = new LedgerCursor(List.copyOf(paths));
+        cursor.openNextFile();
+        return cursor;
+    }
+
+    private boolean openNextFile() throws IOException {
+        // close the current file and map the next one; false when there are no more
+        close();
+        segments = new MappedByteBuffer[0];
+        size = 0;
+        position = 0;
+        if (fileIndex + 1 >= files.size()) {
+            fileIndex = files.size();
+            return false;
+        }
+        fileIndex++;
+        channel = FileChannel.open(files.get(fileIndex), StandardOpenOption.READ);
+        size = channel.size();
+        segments = new MappedByteBuffer[(int) ((size + SEGMENT_SIZE - 1) / SEGMENT_SIZE)];
+        for (int i = 0; i < segments.length; i++) {
+            long start = i * SEGMENT_SIZE;
+            segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, size - start));
+        }
+        return true;
+    }
+
+    // ------------------- Moving -------------------
+
+    /**
+     * Move to the next well-formed transaction. Returns false at the end of the last file.
+     */
+    public boolean next() throws IOException {
+        while (position < size || openNextFile()) {
+            int length = readLine();
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+                // drop the '\r' of Windows line endings
+            }
+            description = null;
+            vendor = null;
+            try {
+                if (decoder.decode(line, 0, length)) {
+                    return true;
+                }
+            } catch (RuntimeException e) {
+                // bad date, time or amount: skip the line like a malformed one
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Go back to the start of the first file.
+     */
+    public void rewind() throws IOException {
+        fileIndex = -1;
+        openNextFile();
+    }
+
+    private int readLine() {
+        // copy bytes up to the next '\n' (or the end of the file) into 'line' and return its length
+        int length = 0;
+        while (position < size) {
+            MappedByteBuffer segment = segments[(int) (position / SEGMENT_SIZE)];
+            int offset = (int) (position % SEGMENT_SIZE);
+            int end = offset;
+            int limit = segment.limit();
+            while (end < limit && segment.get(end) != '\n') {
+                end++;
+            }
+
+            int count = end - offset;
+            if (length + count > line.length) {
+                line = Arrays.copyOf(line, Math.max(line.length * 2, length + count));
+            }
+            segment.get(offset, line, length, count);
+            length += count;
+            position += count;
+
+            if (end < limit) {
+                position++;
+                // skip the '\n'
+                return length;
+            }
+            // the line continues in the next segment
+        }
+        return length;
+    }
+
+    // ------------------- Current Row -------------------
+
+    public int epochDay() { return decoder.getEpochDay(); }
+    // returns the date of the current row as an epoch day
+
+    public int secondOfDay() { return decoder.getSecondOfDay(); }
+    // returns the time of the current row as a second of day
+
+    public long cents() { return decoder.getCents(); }
+    // returns the amount of the current row in cents
+
+    /**
+     * Description of the current row.
+     */
+    public String description() {
+        if (description == null) {
+            description = text(decoder.getDescriptionStart(), decoder.getDescriptionEnd());
+        }
+        return description;
+    }
+
+    /**
+     * Vendor of the current row.
+     */
+    public String vendor() {
+        if (vendor == null) {
+            vendor = text(decoder.getVendorStart(), decoder.getVendorEnd());
+        }
+        return vendor;
+    }
+
+    public long getPosition() { return position; }
+    // returns the offset in the current file just past the current row
+
+    private String text(int start, int end) {
+        return new String(line, start, end - start, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+            channel = null;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+// import JDK Flight Recorder event annotations
+
+/*
+ Flight Recorder events
+ ------------------------------------------------
+ Custom JFR events for loads, appends and queries, shown under
+ "Financial Tracker" in JDK Mission Control. They cost almost nothing
+ unless a recording is running, for example:
+   java -XX:StartFlightRecording=filename=ledger.jfr -cp ... com.pluralsight.FinancialTracker
+   jfr print --events com.pluralsight.Query ledger.jfr
+*/
+public class LedgerEvents {
+
+    private LedgerEvents() {
+        // holder for the event classes, no instances
+    }
+
+    @Name("com.pluralsight.Load")
+    @Label("Ledger Load")
+    @Category("Financial Tracker")
+    @Description("Loading transactions.csv into memory")
+    public static class Load extends Event {
+
+        @Label("File")
+        public String path;
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("File Size")
+        @DataAmount
+        public long bytes;
+
+        @Label("Bytes From Snapshot")
+        @DataAmount
+        public long snapshotBytes;
+    }
+
+    @Name("com.pluralsight.Append")
+    @Label("Ledger Append")
+    @Category("Financial Tracker")
+    @Description("Adding rows to the in-memory ledger and its indexes")
+    public static class Append extends Event {
+
+        @Label("Rows")
+        public int rows;
+
+        @Label("Cache Entries Dropped")
+        public long invalidated;
+    }
+
+    @Name("com.pluralsight.Query")
+    @Label("Ledger Query")
+    @Category("Financial Tracker")
+    @Description("One search or report query")
+    public static class Query extends Event {
+
+        @Label("Query")
+        public String query;
+
+        @Label("Plan")
+        public String plan;
+
+        @Label("Cached")
+        public boolean cached;
+
+        @Label("Rows Scanned")
+        public long rowsScanned;
+
+        @Label("Rows Returned")
+        public long rowsReturned;
+    }
+}
@@ -0,0 +1,378 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.ByteBuffer;
+// import ByteBuffer to read the new bytes and receive our own writes
+
+import java.nio.channels.FileChannel;
+// import FileChannel to read from the followed offset
+
+import java.nio.file.Files;
+// import Files to read the file identity
+
+import java.nio.file.NoSuchFileException;
+// import NoSuchFileException for a file that was moved away
+
+import java.nio.file.Path;
+// import Path to locate the followed file
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to open the file read-only
+
+import java.nio.file.StandardWatchEventKinds;
+// import StandardWatchEventKinds for the directory events to watch
+
+import java.nio.file.WatchEvent;
+// import WatchEvent to see which file changed
+
+import java.nio.file.WatchKey;
+// import WatchKey to receive the directory events
+
+import java.nio.file.WatchService;
+// import WatchService to wake up when the file changes
+
+import java.nio.file.attribute.BasicFileAttributes;
+// import BasicFileAttributes for the file key (inode)
+
+import java.util.ArrayDeque;
+// import ArrayDeque for the blocks our own writer wrote
+
+import java.util.Arrays;
+// import Arrays to compare a line with our own writes
+
+import java.util.Objects;
+// import Objects to compare file keys that may be null
+
+import java.util.concurrent.TimeUnit;
+// import TimeUnit for the watch timeout
+
+/*
+ Ledger follower
+ ------------------------------------------------
+ Follows transactions.csv while other programs append to it (--follow).
+ A background thread sleeps on a WatchService for the file's directory
+ and, when the file changes, reads only the bytes after 'offset': whole
+ lines are parsed into a small TransactionStore and handed to the
+ listener, which adds them to the ledger and its indexes in one batch.
+ A last line without its line break yet is left for the next read.
+
+ Lines our own AppendWriter wrote are already in the ledger; the writer
+ passes every block to beforeWrite() before writing it, and those lines
+ are recognised and skipped when they show up in the file. When a write
+ fails, writeFailed() keeps only the whole lines that reached the file,
+ so bytes another program appends there later are not skipped.
+
+ When a different file takes the name (log rotation) or the file gets
+ shorter than what was read, the rest of the old file is read first and
+ then the new file is followed from its start.
+*/
+public class LedgerFollower implements AutoCloseable, AppendWriter.WriteListener {
+
+    // ------------------- Settings -------------------
+
+    private static final long RECHECK_MILLIS = 1000;
+    // look at the file at least this often, in case a watch event was lost
+
+    private static final int READ_SIZE = 1 << 20;
+    // bytes read at a time
+
+    private static final Metrics.Timer TIMER = Metrics.timer("follow");
+    // each read of new bytes: lines read vs rows added
+
+    /**
+     * Receives what the follower read. Called on the follower thread.
+     */
+    public interface Listener {
+
+        /**
+         * New rows from the file, and how many bytes other programs appended for them
+         * (including lines that could not be decoded, excluding our own lines).
+         */
+        void rows(TransactionStore rows, long bytes) throws IOException;
+
+        /**
+         * The file was replaced or cut short; rows from now on come from the new file.
+         */
+        void rotated() throws IOException;
+    }
+
+    private final Path path;
+    // followed file
+
+    private final Listener listener;
+    // receives new rows
+
+    private final Thread thread;
+    // watches the directory and reads new bytes
+
+    private volatile boolean closed;
+    // set by close() to stop the thread
+
+    private FileChannel channel;
+    // the file being read, kept open so a rotated file can still be read to its end
+
+    private Object fileKey;
+    // identity (inode) of that file, null where the file system has none
+
+    private long offset;
+    // start of the first line not read yet
+
+    private final RecordDecoder decoder = new RecordDecoder();
+    // reused decoder for new lines
+
+    private final ArrayDeque<byte[]> ownBlocks = new ArrayDeque<>();
+    // blocks our writer wrote that haven't been seen in the file yet, oldest first
+
+    private int ownPosition;
+    // bytes of the oldest block already matched
+
+    /**
+     * Follow the file from 'offset', the number of bytes already loaded. Call start() to begin.
+     */
+    public LedgerFollower(Path path, long offset, Listener listener) throws IOException {
+        this.path = path.toAbsolutePath();
+        this.listener = listener;
+        this.offset = offset;
+        openFile();
+        thread = new Thread(this::run, "ledger-follow");
+        thread.setDaemon(true);
+    }
+
+    /**
+     * Start the background thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Called by our own writer before it writes a block of lines to the file,
+     * so the follower skips them instead of adding them a second time.
+     */
+    @Override
+    public void beforeWrite(ByteBuffer bytes) {
+        byte[] block = new byte[bytes.remaining()];
+        bytes.duplicate().get(block);
+        synchronized (ownBlocks) {
+            ownBlocks.addLast(block);
+        }
+    }
+
+    /**
+     * Called by our own writer when only 'written' bytes of its last block reached the file.
+     */
+    @Override
+    public void writeFailed(int written) {
+        synchronized (ownBlocks) {
+            byte[] block = ownBlocks.pollLast();
+            if (block == null) {
+                return;
+                // the file was rotated in between, nothing is waiting
+            }
+            int keep = Math.min(written, block.length);
+            while (keep > 0 && block[keep - 1] != '\n') {
+                keep--;
+            }
+            // a cut-off last line never matches, so only whole lines are kept
+            boolean oldest = ownBlocks.isEmpty();
+            if (keep > (oldest ? ownPosition : 0)) {
+                ownBlocks.addLast(Arrays.copyOf(block, keep));
+            } else if (oldest) {
+                ownPosition = 0;
+                // every written line was matched already
+            }
+        }
+    }
+
+    /**
+     * Stop following. Rows not handed to the listener yet are dropped; the next load reads them.
+     */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        thread.interrupt();
+        try {
+            thread.join(RECHECK_MILLIS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    // ------------------- Watching -------------------
+
+    private void run() {
+        try (WatchService watcher = path.getFileSystem().newWatchService()) {
+            path.getParent().register(watcher, StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+            pollQuietly();
+            // lines appended between load and now
+
+            while (!closed) {
+                WatchKey key = watcher.poll(RECHECK_MILLIS, TimeUnit.MILLISECONDS);
+                boolean changed = key == null;
+                // no event for a while: check anyway
+                if (key != null) {
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        changed |= event.kind() == StandardWatchEventKinds.OVERFLOW
+                                || path.getFileName().equals(event.context());
+                    }
+                    key.reset();
+                }
+                if (changed) {
+                    pollQuietly();
+                }
+            }
+        } catch (InterruptedException e) {
+            // closed
+        } catch (IOException e) {
+            System.out.println("Error watching file: " + e.getMessage());
+            Metrics.count("error watching file");
+        }
+    }
+
+    private void pollQuietly() {
+        // read new bytes; an error is reported and the next change tries again
+        try {
+            poll();
+        } catch (IOException e) {
+            if (!closed) {
+                System.out.println("Error following file: " + e.getMessage());
+                Metrics.count("error following file");
+            }
+        }
+    }
+
+    /**
+     * Read whatever was appended since the last call, handling a rotated or truncated file.
+     */
+    void poll() throws IOException {
+        try {
+            Object currentKey = readFileKey();
+            boolean replaced = !Objects.equals(currentKey, fileKey);
+            if (!replaced && channel.size() >= offset) {
+                readNew();
+                return;
+            }
+            if (replaced) {
+                readNew();
+                // finish the old file before moving on
+            }
+            channel.close();
+            openFile();
+            offset = 0;
+            synchronized (ownBlocks) {
+                ownBlocks.clear();
+                ownPosition = 0;
+                // our lines for the old file will never show up in the new one
+            }
+            listener.rotated();
+            readNew();
+        } catch (NoSuchFileException e) {
+            readNew();
+            // moved away and not recreated yet: read what is left of it and wait
+        }
+    }
+
+    private void openFile() throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        fileKey = readFileKey();
+    }
+
+    private Object readFileKey() throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    // ------------------- Reading -------------------
+
+    private void readNew() throws IOException {
+        // parse every whole line after 'offset' and hand the rows to the listener
+        long size = channel.size();
+        if (size <= offset) {
+            return;
+        }
+        long begin = System.nanoTime();
+        TransactionStore rows = new TransactionStore();
+        long externalBytes = 0;
+        long lines = 0;
+
+        int step = READ_SIZE;
+        while (offset < size) {
+            byte[] bytes = read(offset, (int) Math.min(step, size - offset));
+            int lineStart = 0;
+            for (int i = 0; i < bytes.length; i++) {
+                if (bytes[i] != '\n') {
+                    continue;
+                }
+                lines++;
+                if (!isOwn(bytes, lineStart, i + 1)) {
+                    externalBytes += i + 1 - lineStart;
+                    addLine(rows, bytes, lineStart, i);
+                }
+                lineStart = i + 1;
+            }
+            if (lineStart == 0) {
+                if (offset + bytes.length >= size) {
+                    break;
+                    // the last line has no line break yet, read it once it is complete
+                }
+                step *= 2;
+                // a line longer than the step
+                continue;
+            }
+            offset += lineStart;
+        }
+
+        if (rows.size() > 0 || externalBytes > 0) {
+            listener.rows(rows, externalBytes);
+        }
+        TIMER.record(System.nanoTime() - begin, lines, rows.size());
+    }
+
+    private byte[] read(long position, int length) throws IOException {
+        byte[] bytes = new byte[length];
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                return Arrays.copyOf(bytes, buffer.position());
+                // the file shrank while reading
+            }
+        }
+        return bytes;
+    }
+
+    private void addLine(TransactionStore rows, byte[] bytes, int start, int end) {
+        if (end > start && bytes[end - 1] == '\r') {
+            end--;
+            // drop the '\r' of Windows line endings
+        }
+        try {
+            if (decoder.decode(bytes, start, end)) {
+                rows.add(decoder, bytes);
+            }
+        } catch (RuntimeException e) {
+            // bad date, time or amount: skip the line like a malformed one
+        }
+    }
+
+    private boolean isOwn(byte[] bytes, int start, int end) {
+        // true when the line (with its '\n') is the next line our writer wrote
+        synchronized (ownBlocks) {
+            byte[] block = ownBlocks.peekFirst();
+            int length = end - start;
+            if (block == null || ownPosition + length > block.length
+                    || !Arrays.equals(block, ownPosition, ownPosition + length, bytes, start, end)) {
+                return false;
+            }
+            ownPosition += length;
+            if (ownPosition == block.length) {
+                ownBlocks.removeFirst();
+                ownPosition = 0;
+            }
+            return true;
+        }
+    }
+}
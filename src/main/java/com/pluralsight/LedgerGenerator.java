@@ -0,0 +1,190 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.BufferedOutputStream;
+// import BufferedOutputStream to write large files in big blocks
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.io.OutputStream;
+// import OutputStream as the CSV target
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to encode lines as UTF-8
+
+import java.nio.file.Files;
+// import Files to create the output file
+
+import java.nio.file.Path;
+// import Path to locate the output file
+
+import java.time.LocalDate;
+// import LocalDate for the first generated date
+
+import java.util.Arrays;
+// import Arrays to trim the vendor lists
+
+import java.util.SplittableRandom;
+// import SplittableRandom for a fast, seedable random sequence
+
+/*
+ Synthetic ledger generator
+ ------------------------------------------------
+ Writes a transactions.csv of any size for benchmarks and load tests.
+ The same row count and seed always give the same file.
+ The data looks like a real ledger:
+   - rows are spread evenly over ten years, in time order,
+     with about 1 in 100 entered late (back-dated up to 30 days)
+   - vendors are picked with a Zipf-like skew, so a few vendors
+     (groceries, fuel, coffee) have most of the rows
+   - each vendor has its own descriptions and typical amount,
+     and roughly 1 in 12 rows is a deposit
+ Usage: LedgerGenerator <rows> [file] [seed]
+*/
+public class LedgerGenerator {
+
+    // ------------------- Vendors -------------------
+
+    private static final String[][] VENDORS = {
+            // vendor, typical amount in dollars (negative = payment), descriptions...
+            {"Walmart", "-85", "Grocery shopping", "Household supplies", "Weekly groceries"},
+            {"Shell", "-45", "Gasoline", "Fuel", "Car wash"},
+            {"Starbucks", "-6", "Coffee", "Breakfast", "Coffee with client"},
+            {"Amazon", "-60", "Ergonomic keyboard", "Books", "Phone charger", "Office chair", "Printer ink"},
+            {"Target", "-70", "Clothes", "Home decor", "Groceries"},
+            {"Costco", "-180", "Bulk groceries", "Membership renewal", "Tires"},
+            {"Netflix", "-15", "Streaming subscription"},
+            {"Udemy", "-70", "Online course subscription", "Java course"},
+            {"Cheesecake Factory", "-85", "Dinner with friends", "Birthday dinner"},
+            {"ABC Apartments", "-2000", "Monthly rent payment"},
+            {"City Power", "-120", "Electric bill"},
+            {"Verizon", "-90", "Phone bill", "Internet bill"},
+            {"Mario's Barber Shop", "-35", "Haircut"},
+            {"CVS Pharmacy", "-25", "Prescription", "Vitamins"},
+            {"Delta Airlines", "-420", "Flight tickets", "Baggage fee"},
+            {"Marriott", "-260", "Hotel stay"},
+            {"Uber", "-22", "Ride to airport", "Ride home"},
+            {"Home Depot", "-140", "Garden tools", "Paint", "Lumber"},
+            {"ABC Company", "5000", "Salary deposit", "Bonus"},
+            {"Joe", "1500", "Invoice 1001 paid", "Invoice paid", "Consulting fee"},
+            {"Bank of America", "25", "Interest payment", "Cashback reward"},
+            {"Venmo", "60", "Split dinner refund", "Shared rent"},
+    };
+
+    private static final double DEPOSIT_SHARE = 1.0 / 12;
+    // share of rows that are deposits
+
+    private static final int BACKDATED_PER_THOUSAND = 10;
+    // rows entered late, out of every 1000
+
+    private static final int YEARS = 10;
+    // span of the generated dates
+
+    // ------------------- Entry Point -------------------
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.out.println("Usage: LedgerGenerator <rows> [file] [seed]");
+            return;
+        }
+        long rows = Long.parseLong(args[0].replace("_", ""));
+        Path file = Path.of(args.length > 1 ? args[1] : "transactions.csv");
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : 42;
+
+        long startNanos = System.nanoTime();
+        generate(file, rows, seed);
+        System.out.printf("Wrote %d rows to %s in %d ms%n", rows, file, (System.nanoTime() - startNanos) / 1_000_000);
+    }
+
+    // ------------------- Generating -------------------
+
+    /**
+     * Write 'rows' transactions to the file, replacing it.
+     */
+    public static void generate(Path file, long rows, long seed) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            generate(out, rows, seed);
+        }
+    }
+
+    /**
+     * Write 'rows' transactions to a stream, one CSV line each.
+     */
+    public static void generate(OutputStream out, long rows, long seed) throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        int[] payments = vendorsWhere(false);
+        int[] deposits = vendorsWhere(true);
+        double[] paymentWeights = zipfWeights(payments.length);
+        double[] depositWeights = zipfWeights(deposits.length);
+        double[] typical = new double[VENDORS.length];
+        for (int v = 0; v < VENDORS.length; v++) {
+            typical[v] = Double.parseDouble(VENDORS[v][1]);
+        }
+
+        long firstSecond = LocalDate.of(2016, 1, 1).toEpochDay() * 86400;
+        long spanSeconds = (long) YEARS * 365 * 86400;
+        StringBuilder line = new StringBuilder(128);
+
+        for (long i = 0; i < rows; i++) {
+            long second = firstSecond + (long) ((double) i / Math.max(1, rows) * spanSeconds);
+            // evenly spread and in time order
+            if (random.nextInt(1000) < BACKDATED_PER_THOUSAND) {
+                second -= random.nextLong(30L * 86400);
+                // entered late
+            }
+
+            int[] pool = random.nextDouble() < DEPOSIT_SHARE ? deposits : payments;
+            int v = pool[zipf(random, pool == deposits ? depositWeights : paymentWeights)];
+            String[] vendor = VENDORS[v];
+            String description = vendor[2 + random.nextInt(vendor.length - 2)];
+
+            line.setLength(0);
+            RecordDecoder.appendRecord(line, (int) Math.floorDiv(second, 86400), Math.floorMod(second, 86400),
+                    description, vendor[0], amountCents(random, typical[v]));
+            line.append('\n');
+            out.write(line.toString().getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static long amountCents(SplittableRandom random, double typical) {
+        // log-normal spread around the vendor's typical amount: most near it, a few far above
+        double factor = Math.exp(random.nextGaussian() * 0.35);
+        long cents = Math.round(Math.abs(typical) * factor * 100);
+        return typical < 0 ? -Math.max(1, cents) : Math.max(1, cents);
+    }
+
+    private static double[] zipfWeights(int n) {
+        // cumulative Zipf weights: index 0 is the most popular, P(k) ~ 1 / (k + 1)
+        double[] cumulative = new double[n];
+        double total = 0;
+        for (int k = 0; k < n; k++) {
+            total += 1.0 / (k + 1);
+            cumulative[k] = total;
+        }
+        return cumulative;
+    }
+
+    private static int zipf(SplittableRandom random, double[] cumulative) {
+        // pick an index with the given cumulative weights
+        double target = random.nextDouble() * cumulative[cumulative.length - 1];
+        for (int k = 0; k < cumulative.length; k++) {
+            if (target < cumulative[k]) {
+                return k;
+            }
+        }
+        return cumulative.length - 1;
+    }
+
+    private static int[] vendorsWhere(boolean deposits) {
+        // indexes of the vendors that take (or pay) money, in popularity order
+        int count = 0;
+        int[] result = new int[VENDORS.length];
+        for (int i = 0; i < VENDORS.length; i++) {
+            if (Double.parseDouble(VENDORS[i][1]) > 0 == deposits) {
+                result[count++] = i;
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+}
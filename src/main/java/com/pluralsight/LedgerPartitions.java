@@ -0,0 +1,497 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.BufferedReader;
+// import BufferedReader to read the manifest and the file being migrated
+
+import java.io.BufferedWriter;
+// import BufferedWriter to write segments during migration
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets for UTF-8 files
+
+import java.nio.file.DirectoryStream;
+// import DirectoryStream to find segment files
+
+import java.nio.file.Files;
+// import Files for reading, writing and moving files
+
+import java.nio.file.Path;
+// import Path to locate the directory and its files
+
+import java.nio.file.StandardCopyOption;
+// import StandardCopyOption to replace the manifest and move the migrated directory atomically
+
+import java.time.LocalDate;
+// import LocalDate to turn epoch days into months
+
+import java.time.YearMonth;
+// import YearMonth as the partition key
+
+import java.time.format.DateTimeParseException;
+// import exception thrown by a line or file name without a valid month
+
+import java.util.ArrayList;
+// import ArrayList for lists of segment files
+
+import java.util.List;
+// import List for lists of segment files
+
+import java.util.Map;
+// import Map for the partitions and migration writers
+
+import java.util.TreeMap;
+// import TreeMap to keep partitions in month order
+
+/*
+ Ledger partitions
+ ------------------------------------------------
+ Month-partitioned storage (--partitioned): instead of one
+ transactions.csv, the ledger lives in a directory with one segment
+ per month, in the same line format, plus a manifest:
+
+   transactions/
+     manifest.txt      month|rows|bytes, one line per segment
+     2024-01.csv
+     2024-02.csv
+     ...
+
+ New transactions go to the segment of their date. Segments are loaded
+ into the in-memory Ledger only when a report needs them: Previous Year
+ reads twelve segments, not every year ever recorded. Lists without a
+ date range (All, Deposits, vendor search, ...) still load everything.
+ The first run migrates an existing transactions.csv into the directory
+ and leaves the original file in place as a backup. Migration writes to
+ transactions.migrating/ and renames it into place only when every
+ segment is complete, so a crash part way leaves no directory and the
+ next run starts the migration over instead of reading half a ledger.
+ The manifest is rewritten on close; on open, segments whose size no
+ longer matches it (or that it doesn't list yet) are recounted.
+*/
+public class LedgerPartitions implements LineSink, AutoCloseable {
+
+    // ------------------- Settings -------------------
+
+    private static final String MANIFEST = "manifest.txt";
+    // manifest file name inside the directory
+
+    private static final String REJECTED = "rejected.csv";
+    // lines without a valid date found during migration, kept for inspection
+
+    private static final Metrics.Timer PARTITION_LOAD_TIMER = Metrics.timer("load partition");
+    // time to parse one segment and add it to the ledger
+
+    private final Path directory;
+    // directory holding the segments and the manifest
+
+    private final Ledger ledger;
+    // in-memory ledger the segments are loaded into
+
+    private final AppendWriter.Durability durability;
+    private final int batchSize;
+    private final long flushMillis;
+    // append writer settings for every segment
+
+    private final Map<YearMonth, Partition> partitions = new TreeMap<>();
+    // every segment, in month order
+
+    private static class Partition {
+        // one month's segment
+
+        final YearMonth month;
+        final Path path;
+        long rows;
+        // lines in the segment, for the manifest
+
+        boolean loaded;
+        // true once its rows are in the ledger
+
+        AppendWriter writer;
+        // open on first append
+
+        Partition(YearMonth month, Path path) {
+            this.month = month;
+            this.path = path;
+        }
+    }
+
+    private LedgerPartitions(Path directory, Ledger ledger, AppendWriter.Durability durability,
+                             int batchSize, long flushMillis) {
+        this.directory = directory;
+        this.ledger = ledger;
+        this.durability = durability;
+        this.batchSize = batchSize;
+        this.flushMillis = flushMillis;
+    }
+
+    /**
+     * Open the partition directory next to a single-file ledger (transactions.csv -> transactions/),
+     * migrating the single file first if the directory doesn't exist yet. Nothing is loaded.
+     */
+    public static LedgerPartitions open(Path singleFile, Ledger ledger, AppendWriter.Durability durability,
+                                        int batchSize, long flushMillis) throws IOException {
+        String name = singleFile.getFileName().toString();
+        Path directory = singleFile.resolveSibling(name.endsWith(".csv") ? name.substring(0, name.length() - 4) : name + ".d");
+        LedgerPartitions partitions = new LedgerPartitions(directory, ledger, durability, batchSize, flushMillis);
+
+        if (!Files.isDirectory(directory)) {
+            partitions.migrate(singleFile);
+        } else {
+            partitions.readManifest();
+        }
+        return partitions;
+    }
+
+    // ------------------- Loading -------------------
+
+    /**
+     * Make sure every segment overlapping [startDay, endDay] is in the ledger.
+     */
+    public void loadRange(int startDay, int endDay) throws IOException {
+        for (Partition partition : partitions.values()) {
+            int first = (int) partition.month.atDay(1).toEpochDay();
+            int last = (int) partition.month.atEndOfMonth().toEpochDay();
+            if (!partition.loaded && last >= startDay && first <= endDay) {
+                load(partition);
+            }
+        }
+    }
+
+    /**
+     * Make sure every segment is in the ledger.
+     */
+    public void loadAll() throws IOException {
+        loadRange(Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Make sure the segments a query can match are in the ledger.
+     * Only the query's date criteria are used to prune; anything else loads every segment.
+     */
+    public void loadFor(Query query) throws IOException {
+        int[] range = dayRange(query);
+        loadRange(range[0], range[1]);
+    }
+
+    private void load(Partition partition) throws IOException {
+        long start = System.nanoTime();
+        if (partition.writer != null) {
+            partition.writer.flush();
+        }
+        TransactionStore rows = TransactionLoader.load(partition.path);
+        ledger.appendAll(rows);
+        partition.loaded = true;
+        PARTITION_LOAD_TIMER.record(System.nanoTime() - start, rows.size(), rows.size());
+    }
+
+    private static int[] dayRange(Query query) {
+        // smallest epoch day range outside of which the query can't match: {start, end}
+        switch (query.getKind()) {
+            case DATE:
+                return new int[]{query.getStartDay(), query.getEndDay()};
+            case AND: {
+                int[] range = {Integer.MIN_VALUE, Integer.MAX_VALUE};
+                for (Query part : query.getParts()) {
+                    int[] partRange = dayRange(part);
+                    range[0] = Math.max(range[0], partRange[0]);
+                    range[1] = Math.min(range[1], partRange[1]);
+                }
+                return range;
+            }
+            case OR: {
+                int[] range = {Integer.MAX_VALUE, Integer.MIN_VALUE};
+                for (Query part : query.getParts()) {
+                    int[] partRange = dayRange(part);
+                    range[0] = Math.min(range[0], partRange[0]);
+                    range[1] = Math.max(range[1], partRange[1]);
+                }
+                return range;
+            }
+            default:
+                return new int[]{Integer.MIN_VALUE, Integer.MAX_VALUE};
+        }
+    }
+
+    // ------------------- Appending -------------------
+
+    /**
+     * Add a new transaction to the ledger, loading its month first so it is not counted twice later.
+     */
+    public void appendToLedger(Transaction t) throws IOException {
+        int day = (int) t.getDate().toEpochDay();
+        loadRange(day, day);
+        ledger.append(t);
+    }
+
+    /**
+     * Queue one transaction for the segment of its month.
+     */
+    public void append(Transaction t) throws IOException {
+        Partition partition = partition(YearMonth.from(t.getDate()));
+        writer(partition).append(t.toCSVLine());
+        partition.rows++;
+    }
+
+    /**
+     * Write a block of lines, routing each to the segment of its month. Used by bulk import.
+     */
+    @Override
+    public synchronized void appendLines(CharSequence lines, int count) throws IOException {
+        Map<YearMonth, StringBuilder> byMonth = new TreeMap<>();
+        Map<YearMonth, Integer> counts = new TreeMap<>();
+        int lineStart = 0;
+        for (int i = 0; i < lines.length(); i++) {
+            if (lines.charAt(i) == '\n') {
+                YearMonth month = monthOf(lines, lineStart);
+                byMonth.computeIfAbsent(month, key -> new StringBuilder()).append(lines, lineStart, i + 1);
+                counts.merge(month, 1, Integer::sum);
+                lineStart = i + 1;
+            }
+        }
+        for (Map.Entry<YearMonth, StringBuilder> entry : byMonth.entrySet()) {
+            Partition partition = partition(entry.getKey());
+            int lineCount = counts.get(entry.getKey());
+            writer(partition).appendLines(entry.getValue(), lineCount);
+            partition.rows += lineCount;
+        }
+    }
+
+    /**
+     * Write every buffered line to its segment, so a new file mapping sees it.
+     */
+    public void flush() throws IOException {
+        for (Partition partition : partitions.values()) {
+            if (partition.writer != null) {
+                partition.writer.flush();
+            }
+        }
+    }
+
+    /**
+     * Close every segment writer and rewrite the manifest.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        for (Partition partition : partitions.values()) {
+            if (partition.writer != null) {
+                partition.writer.close();
+                partition.writer = null;
+            }
+        }
+        writeManifest();
+    }
+
+    private synchronized Partition partition(YearMonth month) {
+        return partitions.computeIfAbsent(month, key -> {
+            Partition partition = new Partition(key, directory.resolve(key + ".csv"));
+            partition.loaded = true;
+            // a new segment starts empty, so there is nothing to load later
+            return partition;
+        });
+    }
+
+    private AppendWriter writer(Partition partition) throws IOException {
+        if (partition.writer == null) {
+            partition.writer = new AppendWriter(partition.path, durability, batchSize, flushMillis);
+        }
+        return partition.writer;
+    }
+
+    private static YearMonth monthOf(CharSequence line, int start) {
+        // month of a line's date field; bulk import only passes lines that decoded
+        return YearMonth.of(digits(line, start, 4), digits(line, start + 5, 2));
+    }
+
+    private static int digits(CharSequence text, int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            value = value * 10 + (text.charAt(i) - '0');
+        }
+        return value;
+    }
+
+    // ------------------- Segment Files -------------------
+
+    /**
+     * Segment files overlapping [startDay, endDay], in month order. Used by --stream to scan only what a report needs.
+     */
+    public List<Path> segments(int startDay, int endDay) {
+        List<Path> paths = new ArrayList<>();
+        for (Partition partition : partitions.values()) {
+            int first = (int) partition.month.atDay(1).toEpochDay();
+            int last = (int) partition.month.atEndOfMonth().toEpochDay();
+            if (last >= startDay && first <= endDay && Files.exists(partition.path)) {
+                paths.add(partition.path);
+            }
+        }
+        return paths;
+    }
+
+    /**
+     * Segment files a query can match, in month order.
+     */
+    public List<Path> segmentsFor(Query query) {
+        int[] range = dayRange(query);
+        return segments(range[0], range[1]);
+    }
+
+    public Path getDirectory() { return directory; }
+    // returns the partition directory
+
+    @Override
+    public synchronized String toString() {
+        long rows = 0;
+        int loaded = 0;
+        for (Partition partition : partitions.values()) {
+            rows += partition.rows;
+            loaded += partition.loaded ? 1 : 0;
+        }
+        return partitions.size() + " monthly segments, " + rows + " rows, " + loaded + " loaded";
+    }
+
+    // ------------------- Migration -------------------
+
+    private void migrate(Path singleFile) throws IOException {
+        // split the single file into monthly segments in a temporary directory, then rename it into place
+        Path temp = directory.resolveSibling(directory.getFileName() + ".migrating");
+        deleteDirectory(temp);
+        // left over from a migration that crashed
+        Files.createDirectories(temp);
+        if (Files.exists(singleFile)) {
+            split(singleFile, temp);
+        }
+        writeManifest(temp);
+        Files.move(temp, directory, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void split(Path singleFile, Path temp) throws IOException {
+        // one pass over the single file, one open writer per month
+
+        Map<YearMonth, BufferedWriter> writers = new TreeMap<>();
+        BufferedWriter rejected = null;
+        try (BufferedReader reader = Files.newBufferedReader(singleFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                YearMonth month;
+                try {
+                    byte[] date = line.substring(0, Math.min(10, line.length())).getBytes(StandardCharsets.UTF_8);
+                    month = YearMonth.from(LocalDate.ofEpochDay(RecordDecoder.parseEpochDay(date, 0, date.length)));
+                    // same rules as the loader, so 2023-02-30 goes to February like it always has
+                } catch (DateTimeParseException e) {
+                    month = null;
+                }
+                if (month == null) {
+                    if (rejected == null) {
+                        rejected = Files.newBufferedWriter(temp.resolve(REJECTED), StandardCharsets.UTF_8);
+                    }
+                    rejected.write(line);
+                    rejected.write('\n');
+                    continue;
+                    // the loader would skip this line anyway, keep it aside instead of losing it
+                }
+
+                BufferedWriter writer = writers.get(month);
+                if (writer == null) {
+                    writer = Files.newBufferedWriter(temp.resolve(month + ".csv"), StandardCharsets.UTF_8);
+                    writers.put(month, writer);
+                    Partition partition = new Partition(month, directory.resolve(month + ".csv"));
+                    partitions.put(month, partition);
+                }
+                writer.write(line);
+                writer.write('\n');
+                partitions.get(month).rows++;
+            }
+        } finally {
+            for (BufferedWriter writer : writers.values()) {
+                writer.close();
+            }
+            if (rejected != null) {
+                rejected.close();
+            }
+        }
+    }
+
+    private static void deleteDirectory(Path dir) throws IOException {
+        // remove a flat directory of files, if it exists
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path path : files) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(dir);
+    }
+
+    // ------------------- Manifest -------------------
+
+    private void readManifest() throws IOException {
+        Map<YearMonth, long[]> listed = new TreeMap<>();
+        // month -> {rows, bytes} from the manifest
+        Path manifest = directory.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            for (String line : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                String[] parts = line.split("\\|");
+                if (parts.length == 3) {
+                    try {
+                        listed.put(YearMonth.parse(parts[0]), new long[]{Long.parseLong(parts[1]), Long.parseLong(parts[2])});
+                    } catch (DateTimeParseException | NumberFormatException e) {
+                        // a damaged entry is recounted below
+                    }
+                }
+            }
+        }
+
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "????-??.csv")) {
+            for (Path path : files) {
+                YearMonth month;
+                try {
+                    month = YearMonth.parse(path.getFileName().toString().substring(0, 7));
+                } catch (DateTimeParseException e) {
+                    continue;
+                }
+                Partition partition = new Partition(month, path);
+                long[] entry = listed.get(month);
+                partition.rows = entry != null && entry[1] == Files.size(path) ? entry[0] : countLines(path);
+                // trust the manifest only while the segment still has the size it recorded
+                partitions.put(month, partition);
+            }
+        }
+    }
+
+    private void writeManifest() throws IOException {
+        writeManifest(directory);
+    }
+
+    private void writeManifest(Path dir) throws IOException {
+        // manifest of the segments in 'dir': the partition directory, or the one being migrated
+        StringBuilder sb = new StringBuilder();
+        for (Partition partition : partitions.values()) {
+            Path path = dir.resolve(partition.path.getFileName());
+            long bytes = Files.exists(path) ? Files.size(path) : 0;
+            sb.append(partition.month).append('|').append(partition.rows).append('|').append(bytes).append('\n');
+        }
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        Files.writeString(tmp, sb, StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static long countLines(Path path) throws IOException {
+        long lines = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isBlank()) {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+}
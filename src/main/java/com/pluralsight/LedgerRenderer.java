@@ -0,0 +1,311 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.BufferedWriter;
+// import BufferedWriter to send output to the console in large blocks
+
+import java.io.IOException;
+// import IOException for console write errors
+
+import java.io.OutputStreamWriter;
+// import OutputStreamWriter to encode the output as UTF-8
+
+import java.io.Writer;
+// import Writer as the output target
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets for UTF-8
+
+import java.time.LocalDate;
+// import LocalDate for the jump-to-date prompt
+
+import java.time.format.DateTimeParseException;
+// import exception thrown by an invalid jump date
+
+import java.util.Scanner;
+// import Scanner to read paging commands
+
+/*
+ Ledger renderer
+ ------------------------------------------------
+ Prints rows of the column store in the ledger's fixed-width layout
+ (the same text as "%-12s %-10s %-20s %-15s %10.2f") without printf:
+ each row is formatted by hand into one reused StringBuilder and
+ written to a large buffered writer that is flushed once per page.
+ Lists longer than a page are shown one page at a time with
+ next / previous / jump-to-date / quit commands, so only the rows
+ that are actually looked at are ever formatted.
+ showStream() prints straight from a LedgerCursor for the --stream mode.
+*/
+public class LedgerRenderer {
+
+    // ------------------- Settings -------------------
+
+    private static final int[] WIDTHS = {12, 10, 20, 15, 10};
+    // column widths: date, time, description, vendor, amount
+
+    private final TransactionStore store;
+    // rows to render
+
+    private final Writer out;
+    // buffered console output
+
+    private final int pageSize;
+    // rows per page
+
+    private final StringBuilder line = new StringBuilder(128);
+    // reused buffer for one formatted row
+
+    private static final Metrics.Timer PAGE_TIMER = Metrics.timer("render page");
+    private static final Metrics.Timer STREAM_PAGE_TIMER = Metrics.timer("stream page");
+    // time to format and write one page (not the time the user spends reading it)
+
+    /**
+     * Renderer writing to standard output.
+     */
+    public LedgerRenderer(TransactionStore store, int pageSize) {
+        this(store, new OutputStreamWriter(System.out, StandardCharsets.UTF_8), pageSize);
+    }
+
+    public LedgerRenderer(TransactionStore store, Writer out, int pageSize) {
+        this.store = store;
+        this.out = new BufferedWriter(out, 1 << 16);
+        this.pageSize = Math.max(1, pageSize);
+    }
+
+    // ------------------- Printing -------------------
+
+    /**
+     * Print the column titles.
+     */
+    public void printHeader() {
+        line.setLength(0);
+        padRight("Date", WIDTHS[0]);
+        padRight("Time", WIDTHS[1]);
+        padRight("Description", WIDTHS[2]);
+        padRight("Vendor", WIDTHS[3]);
+        padLeft("Amount", WIDTHS[4]);
+        write();
+        flush();
+    }
+
+    /**
+     * Print the given rows (null means every row in store order).
+     * Lists that fit on one page are printed straight away; longer ones
+     * are paged and the user browses them with commands read from the scanner.
+     */
+    public void show(int[] rows, Scanner scanner) {
+        int count = rows != null ? rows.length : store.size();
+        if (count <= pageSize) {
+            printRange(rows, 0, count);
+            return;
+        }
+
+        int first = 0;
+        // position of the first row on the current page
+
+        while (true) {
+            int end = Math.min(first + pageSize, count);
+            printRange(rows, first, end);
+            System.out.println("Rows " + (first + 1) + "-" + end + " of " + count);
+            System.out.print("N) Next  P) Previous  J) Jump to date  Q) Quit: ");
+
+            String input = scanner.nextLine().trim().toUpperCase();
+            switch (input) {
+                case "", "N" -> {
+                    if (end == count) {
+                        return;
+                        // past the last page
+                    }
+                    first = end;
+                }
+                case "P" -> first = Math.max(0, first - pageSize);
+                case "J" -> {
+                    System.out.print("Jump to date (yyyy-MM-dd): ");
+                    try {
+                        int day = (int) LocalDate.parse(scanner.nextLine().trim()).toEpochDay();
+                        first = firstOnOrAfter(rows, count, day);
+                    } catch (DateTimeParseException e) {
+                        System.out.println("Invalid date format. Please use yyyy-MM-dd");
+                    }
+                }
+                case "Q" -> {
+                    return;
+                }
+                default -> System.out.println("Invalid option");
+            }
+        }
+    }
+
+    /**
+     * Print rows[from, to) (row numbers from, to when rows is null) and flush once.
+     */
+    public void printRange(int[] rows, int from, int to) {
+        long start = System.nanoTime();
+        for (int i = from; i < to; i++) {
+            printRow(rows != null ? rows[i] : i);
+        }
+        flush();
+        PAGE_TIMER.record(System.nanoTime() - start, Math.max(0, to - from), Math.max(0, to - from));
+    }
+
+    /**
+     * Print every row of a mapped ledger file that matches the filter, in file order.
+     * Rows are decoded and formatted as they are printed and nothing is kept,
+     * so this works for files larger than the heap. Paging only moves forward:
+     * next page, jump ahead to a date, or quit. Returns the number of rows printed.
+     */
+    public long showStream(LedgerCursor cursor, Query filter, Scanner scanner) throws IOException {
+        long printed = 0;
+        int onPage = 0;
+        int skipBefore = Integer.MIN_VALUE;
+        // while jumping: skip rows dated before this day
+
+        long pageStart = System.nanoTime();
+        long scanned = 0;
+        // rows decoded for the current page
+
+        while (cursor.next()) {
+            scanned++;
+            if (cursor.epochDay() < skipBefore || !filter.matches(cursor)) {
+                continue;
+            }
+            skipBefore = Integer.MIN_VALUE;
+
+            if (onPage == pageSize) {
+                flush();
+                STREAM_PAGE_TIMER.record(System.nanoTime() - pageStart, scanned - 1, onPage);
+                System.out.println("Rows " + (printed - pageSize + 1) + "-" + printed);
+                System.out.print("N) Next  J) Jump ahead to date  Q) Quit: ");
+                String input = scanner.nextLine().trim().toUpperCase();
+                if (input.equals("Q")) {
+                    return printed;
+                }
+                if (input.equals("J")) {
+                    System.out.print("Jump to date (yyyy-MM-dd): ");
+                    try {
+                        skipBefore = (int) LocalDate.parse(scanner.nextLine().trim()).toEpochDay();
+                        if (cursor.epochDay() < skipBefore) {
+                            onPage = 0;
+                            pageStart = System.nanoTime();
+                            scanned = 1;
+                            continue;
+                        }
+                    } catch (DateTimeParseException e) {
+                        System.out.println("Invalid date format. Please use yyyy-MM-dd");
+                    }
+                }
+                onPage = 0;
+                pageStart = System.nanoTime();
+                scanned = 1;
+            }
+            printRow(cursor.epochDay(), cursor.secondOfDay(), cursor.description(), cursor.vendor(), cursor.cents());
+            printed++;
+            onPage++;
+        }
+        flush();
+        STREAM_PAGE_TIMER.record(System.nanoTime() - pageStart, scanned, onPage);
+        return printed;
+    }
+
+    private void printRow(int row) {
+        printRow(store.epochDay(row), store.secondOfDay(row), store.description(row), store.vendor(row), store.cents(row));
+    }
+
+    private void printRow(int epochDay, int secondOfDay, String description, String vendor, long cents) {
+        line.setLength(0);
+        int start = line.length();
+        RecordDecoder.appendDate(line, epochDay);
+        pad(start, WIDTHS[0]);
+
+        start = line.length();
+        RecordDecoder.appendTime(line, secondOfDay);
+        pad(start, WIDTHS[1]);
+
+        padRight(description, WIDTHS[2]);
+        padRight(vendor, WIDTHS[3]);
+        appendAmount(cents);
+        write();
+    }
+
+    // ------------------- Paging -------------------
+
+    private int firstOnOrAfter(int[] rows, int count, int day) {
+        // first position dated on or after 'day', aligned to a page start.
+        // Lists are not always in date order, so this is a scan of the date column (no formatting)
+        for (int i = 0; i < count; i++) {
+            if (store.epochDay(rows != null ? rows[i] : i) >= day) {
+                return i - i % pageSize;
+            }
+        }
+        return Math.max(0, (count - 1) - (count - 1) % pageSize);
+        // nothing that late, show the last page
+    }
+
+    // ------------------- Column Formatting -------------------
+
+    private void padRight(String text, int width) {
+        // like %-Ns: the text, then spaces up to the width, then the column gap
+        int start = line.length();
+        line.append(text);
+        pad(start, width);
+    }
+
+    private void pad(int start, int width) {
+        for (int i = line.length() - start; i < width; i++) {
+            line.append(' ');
+        }
+        line.append(' ');
+    }
+
+    private void padLeft(String text, int width) {
+        // like %Ns: spaces first, then the text
+        for (int i = text.length(); i < width; i++) {
+            line.append(' ');
+        }
+        line.append(text);
+    }
+
+    private void appendAmount(long cents) {
+        // like %10.2f, built from the cents without going through a double
+        long abs = Math.abs(cents);
+        long whole = abs / 100;
+        int fraction = (int) (abs % 100);
+        int length = 4 + (cents < 0 ? 1 : 0);
+        // one digit, the point, two decimals and the sign
+        for (long rest = whole / 10; rest > 0; rest /= 10) {
+            length++;
+        }
+
+        for (int i = length; i < WIDTHS[4]; i++) {
+            line.append(' ');
+        }
+        if (cents < 0) {
+            line.append('-');
+        }
+        line.append(whole).append('.');
+        if (fraction < 10) {
+            line.append('0');
+        }
+        line.append(fraction);
+    }
+
+    // ------------------- Output -------------------
+
+    private void write() {
+        try {
+            out.append(line).append(System.lineSeparator());
+        } catch (IOException e) {
+            System.out.println("Error printing ledger: " + e.getMessage());
+            Metrics.count("error printing ledger");
+        }
+    }
+
+    private void flush() {
+        try {
+            out.flush();
+        } catch (IOException e) {
+            System.out.println("Error printing ledger: " + e.getMessage());
+        }
+    }
+}
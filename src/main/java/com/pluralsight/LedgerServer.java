@@ -0,0 +1,535 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import com.sun.net.httpserver.HttpExchange;
+// import HttpExchange for one request and its response
+
+import com.sun.net.httpserver.HttpServer;
+// import the JDK's built-in HTTP server
+
+import java.io.BufferedWriter;
+// import BufferedWriter to stream responses in large blocks
+
+import java.io.IOException;
+// import IOException for network errors
+
+import java.io.OutputStreamWriter;
+// import OutputStreamWriter to encode responses as UTF-8
+
+import java.io.Writer;
+// import Writer as the response target
+
+import java.net.InetSocketAddress;
+// import InetSocketAddress for the listening address
+
+import java.net.URLDecoder;
+// import URLDecoder to read query string values
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets for UTF-8
+
+import java.time.LocalDate;
+// import LocalDate for report ranges
+
+import java.time.LocalDateTime;
+// import LocalDateTime for the balance endpoint
+
+import java.time.format.DateTimeParseException;
+// import exception thrown by invalid dates in a request
+
+import java.util.HashMap;
+// import HashMap for query string parameters
+
+import java.util.Map;
+// import Map for query string parameters
+
+import java.util.concurrent.ExecutorService;
+// import ExecutorService for the request threads
+
+/*
+ Ledger HTTP server
+ ------------------------------------------------
+ Headless mode (--serve[=port]) that answers JSON queries for dashboards
+ instead of showing the menu. Built on com.sun.net.httpserver, with one
+ virtual thread per request on Java 21+ (a thread pool on older JDKs).
+ Listens on 127.0.0.1 only.
+
+   GET /ledger                          every transaction
+   GET /deposits, /payments
+   GET /reports/month-to-date           summary totals + transactions
+   GET /reports/previous-month
+   GET /reports/year-to-date
+   GET /reports/previous-year
+   GET /vendor?name=Amazon
+   GET /search?start=&end=&keyword=&vendor=&amount=
+   GET /balance?at=2024-01-31T18:00:00  balance after every transaction up to then (default now)
+   GET /health                          row count and query cache counters
+   GET /metrics                         timers and counters as a text table
+
+ Row lists are streamed with chunked encoding: rows are formatted in
+ batches under the ledger's read lock and written between batches, so a
+ large or slow download never holds up other requests or appends.
+ Lists that can be most of the ledger (/ledger, /deposits, /payments and
+ the reports) are never collected into one array: a cursor walks the
+ store or the date index a batch at a time and remembers where it was.
+ Rows added while a list is streaming are left out of it, so every
+ response is the ledger as of its request. Vendor and search results
+ come from the indexes, which return only the matching rows.
+*/
+public class LedgerServer {
+
+    // ------------------- Settings -------------------
+
+    private static final int BACKLOG = 4096;
+    // pending connections the socket queues, for bursts of many clients
+
+    private static final int BATCH_ROWS = 1000;
+    // rows formatted per read-lock hold while streaming
+
+    private static final int SCAN_ROWS = 64 * BATCH_ROWS;
+    // most rows a cursor checks per read-lock hold, for lists with few matches
+
+    private static final String JSON = "application/json; charset=utf-8";
+    private static final String TEXT = "text/plain; charset=utf-8";
+    // content types of the responses
+
+    private static final Metrics.Timer REQUEST_TIMER = Metrics.timer("http request");
+    // whole request: query, formatting and sending
+
+    private final ConcurrentLedger ledger;
+    // shared ledger, read under its lock
+
+    private final HttpServer server;
+    // the JDK HTTP server
+
+    private final ExecutorService executor;
+    // runs each request on its own (virtual) thread
+
+    /**
+     * Create a server on 127.0.0.1 and the given port (0 picks a free port).
+     */
+    public LedgerServer(ConcurrentLedger ledger, int port) throws IOException {
+        this.ledger = ledger;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), BACKLOG);
+        executor = VirtualThreads.perTaskExecutor("http");
+        server.setExecutor(executor);
+
+        server.createContext("/health", exchange -> handle(exchange, () -> Response.whole(JSON, health())));
+        server.createContext("/metrics", exchange -> handle(exchange, () -> Response.whole(TEXT, Metrics.report())));
+        server.createContext("/ledger", exchange -> handle(exchange, () -> scan(null)));
+        server.createContext("/deposits", exchange -> handle(exchange, () -> scan(Query.deposits())));
+        server.createContext("/payments", exchange -> handle(exchange, () -> scan(Query.payments())));
+        server.createContext("/vendor", exchange -> handle(exchange, () -> {
+            String name = params(exchange).get("name");
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("name is required");
+            }
+            return rows(Query.vendor(name), false);
+        }));
+        server.createContext("/search", exchange -> handle(exchange, () -> search(params(exchange))));
+        server.createContext("/reports/", exchange -> handleReport(exchange));
+        server.createContext("/balance", exchange -> handle(exchange, () -> balance(params(exchange))));
+    }
+
+    /**
+     * Start answering requests.
+     */
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stop the server, letting requests in progress finish for up to a second.
+     */
+    public void stop() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public int getPort() { return server.getAddress().getPort(); }
+    // returns the port the server listens on
+
+    // ------------------- Endpoints -------------------
+
+    private String health() {
+        QueryCache cache = ledger.readSnapshot(Ledger::getQueryCache);
+        return "{\"status\":\"ok\",\"transactions\":" + ledger.size()
+                + ",\"cache\":{\"entries\":" + cache.getEntryCount() + ",\"bytes\":" + cache.getUsedBytes()
+                + ",\"hits\":" + cache.getHits() + ",\"misses\":" + cache.getMisses()
+                + ",\"evictions\":" + cache.getEvictions() + ",\"invalidations\":" + cache.getInvalidations() + "}}";
+    }
+
+    private Response rows(Query query, boolean dateOrder) {
+        int[] rows = ledger.read(l -> l.query(query, dateOrder));
+        return new Response(null, new ArrayCursor(rows));
+    }
+
+    private Response scan(Query filter) {
+        int end = ledger.read(l -> l.getStore().size());
+        return new Response(null, new ScanCursor(filter, end));
+    }
+
+    private Response search(Map<String, String> params) {
+        LocalDate start = date(params.get("start"));
+        LocalDate end = date(params.get("end"));
+        String amountText = params.get("amount");
+        Double amount = amountText == null || amountText.isEmpty() ? null : Double.valueOf(amountText);
+        Query query = Ledger.searchQuery(start, end, params.get("keyword"), params.get("vendor"), amount);
+        if (query.getKind() == Query.Kind.ALL) {
+            return scan(null);
+            // no criteria: the whole ledger
+        }
+        return rows(query, start != null || end != null);
+    }
+
+    private Response balance(Map<String, String> params) {
+        String at = params.get("at");
+        LocalDateTime moment = at == null || at.isEmpty() ? LocalDateTime.now().withNano(0) : LocalDateTime.parse(at);
+        // a bad date-time is a DateTimeParseException, answered with 400 by handle()
+        long cents = ledger.read(l -> l.balanceAt(moment));
+        StringBuilder json = new StringBuilder("{\"at\":\"").append(moment).append("\",\"balance\":");
+        appendCents(json, cents);
+        return Response.whole(JSON, json.append('}').toString());
+    }
+
+    private void handleReport(HttpExchange exchange) throws IOException {
+        String name = exchange.getRequestURI().getPath().substring("/reports/".length());
+        LocalDate today = LocalDate.now();
+        LocalDate start;
+        LocalDate end;
+        switch (name) {
+            case "month-to-date" -> {
+                start = today.withDayOfMonth(1);
+                end = today;
+            }
+            case "previous-month" -> {
+                start = today.minusMonths(1).withDayOfMonth(1);
+                end = start.withDayOfMonth(start.lengthOfMonth());
+            }
+            case "year-to-date" -> {
+                start = LocalDate.of(today.getYear(), 1, 1);
+                end = today;
+            }
+            case "previous-year" -> {
+                start = LocalDate.of(today.getYear() - 1, 1, 1);
+                end = LocalDate.of(today.getYear() - 1, 12, 31);
+            }
+            default -> {
+                sendText(exchange, 404, "{\"error\":\"unknown report\"}");
+                return;
+            }
+        }
+        handle(exchange, () -> {
+            Object[] result = ledger.read(l -> new Object[]{l.totalsBetween(start, end), l.getStore().size()});
+            Rollups.Totals totals = (Rollups.Totals) result[0];
+            RowCursor rows = new DateCursor((int) start.toEpochDay(), (int) end.toEpochDay(), (Integer) result[1]);
+
+            StringBuilder summary = new StringBuilder();
+            summary.append("\"start\":\"").append(start).append("\",\"end\":\"").append(end).append("\",");
+            summary.append("\"deposits\":{\"count\":").append(totals.depositCount).append(",\"total\":");
+            appendCents(summary, totals.depositCents);
+            summary.append("},\"payments\":{\"count\":").append(totals.paymentCount).append(",\"total\":");
+            appendCents(summary, totals.paymentCents);
+            summary.append("},\"net\":");
+            appendCents(summary, totals.netCents());
+            return new Response(summary.toString(), rows);
+        });
+    }
+
+    // ------------------- Responses -------------------
+
+    private interface Handler {
+        Response run();
+        // builds the response, may throw IllegalArgumentException for a bad request
+    }
+
+    private static class Response {
+        // JSON fields before the row list and the rows to stream, or a small body sent in one piece
+
+        final String fields;
+        final RowCursor rows;
+        final String contentType;
+        final String body;
+
+        Response(String fields, RowCursor rows) {
+            this(fields, rows, null, null);
+        }
+
+        private Response(String fields, RowCursor rows, String contentType, String body) {
+            this.fields = fields;
+            this.rows = rows;
+            this.contentType = contentType;
+            this.body = body;
+        }
+
+        static Response whole(String contentType, String body) {
+            return new Response(null, null, contentType, body);
+        }
+    }
+
+    private void handle(HttpExchange exchange, Handler handler) throws IOException {
+        long start = System.nanoTime();
+        int returned = 0;
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "{\"error\":\"only GET is supported\"}");
+                return;
+            }
+            Response response;
+            try {
+                response = handler.run();
+                // query parameters are decoded in here too, so a bad percent-escape is a 400
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                String message = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+                sendText(exchange, 400, "{\"error\":" + quote(message) + "}");
+                return;
+                // NumberFormatException is an IllegalArgumentException too
+            }
+            if (response.body != null) {
+                send(exchange, 200, response.contentType, response.body);
+                return;
+            }
+            returned = stream(exchange, response);
+        } finally {
+            REQUEST_TIMER.record(System.nanoTime() - start, returned, returned);
+        }
+    }
+
+    private int stream(HttpExchange exchange, Response response) throws IOException {
+        // returns the number of rows sent
+        exchange.getResponseHeaders().set("Content-Type", JSON);
+        exchange.sendResponseHeaders(200, 0);
+        // length 0 means chunked: the body is sent while it is being produced
+
+        Writer out = new BufferedWriter(new OutputStreamWriter(exchange.getResponseBody(), StandardCharsets.UTF_8), 1 << 16);
+        out.write('{');
+        if (response.fields != null) {
+            out.write(response.fields);
+            out.write(',');
+        }
+        out.write("\"transactions\":[");
+
+        StringBuilder batch = new StringBuilder(BATCH_ROWS * 100);
+        int[] rows = new int[BATCH_ROWS];
+        int sent = 0;
+        while (!response.rows.isDone()) {
+            batch.setLength(0);
+            boolean first = sent == 0;
+            int count = ledger.readSnapshot(l -> {
+                int found = response.rows.next(l, rows);
+                TransactionStore store = l.getStore();
+                for (int i = 0; i < found; i++) {
+                    if (i > 0 || !first) {
+                        batch.append(',');
+                    }
+                    appendRow(batch, store, rows[i]);
+                }
+                return found;
+            });
+            sent += count;
+            out.append(batch);
+            // written outside the lock
+        }
+        out.write("],\"count\":" + sent + "}");
+        // the count comes last, once it is known
+        out.flush();
+        return sent;
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String json) throws IOException {
+        send(exchange, status, JSON, json);
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, String text) throws IOException {
+        byte[] body = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(status, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
+    // ------------------- Row Cursors -------------------
+
+    private abstract static class RowCursor {
+        // hands out the rows of a response a batch at a time, each batch under the read lock
+
+        boolean done;
+        // true once every row was handed out
+
+        abstract int next(Ledger ledger, int[] batch);
+        // fills the batch with the next rows and returns how many (may be 0 before done)
+
+        boolean isDone() { return done; }
+        // returns true when nothing is left to send
+    }
+
+    private static class ArrayCursor extends RowCursor {
+        // rows an index already found
+
+        private final int[] rows;
+        private int position;
+
+        ArrayCursor(int[] rows) {
+            this.rows = rows;
+            done = rows.length == 0;
+        }
+
+        @Override
+        int next(Ledger ledger, int[] batch) {
+            int count = Math.min(batch.length, rows.length - position);
+            System.arraycopy(rows, position, batch, 0, count);
+            position += count;
+            done = position == rows.length;
+            return count;
+        }
+    }
+
+    private static class ScanCursor extends RowCursor {
+        // rows [0, end) in file order that match the filter (null matches every row)
+
+        private final Query filter;
+        private final int end;
+        private int row;
+
+        ScanCursor(Query filter, int end) {
+            this.filter = filter;
+            this.end = end;
+            done = end == 0;
+        }
+
+        @Override
+        int next(Ledger ledger, int[] batch) {
+            TransactionStore store = ledger.getStore();
+            int found = 0;
+            int stop = Math.min(end, row + SCAN_ROWS);
+            for (; row < stop && found < batch.length; row++) {
+                if (filter == null || filter.matches(store, row)) {
+                    batch[found++] = row;
+                }
+            }
+            done = row == end;
+            return found;
+        }
+    }
+
+    private static class DateCursor extends RowCursor {
+        // rows below 'end' dated between startDay and endDay, in date order
+
+        private final int startDay;
+        private final int endDay;
+        private final int end;
+        private int lastRow = -1;
+        // last row checked, -1 before the first batch
+        private int lastDay;
+        private int lastSecond;
+
+        DateCursor(int startDay, int endDay, int end) {
+            this.startDay = startDay;
+            this.endDay = endDay;
+            this.end = end;
+            done = endDay < startDay;
+        }
+
+        @Override
+        int next(Ledger ledger, int[] batch) {
+            TransactionStore store = ledger.getStore();
+            DateIndex dates = ledger.getDateIndex();
+            int position = lastRow < 0 ? dates.firstPosition(startDay) : dates.positionAfterRow(lastRow, lastDay, lastSecond);
+            // found again each batch: back-dated rows added since may have moved it
+            int stop = Math.min(dates.endPosition(endDay), position + SCAN_ROWS);
+            int found = 0;
+            for (; position < stop && found < batch.length; position++) {
+                int row = dates.rowAt(position);
+                if (row < end) {
+                    batch[found++] = row;
+                    // rows added after the request started are left out
+                }
+                lastRow = row;
+                lastDay = store.epochDay(row);
+                lastSecond = store.secondOfDay(row);
+            }
+            done = position >= dates.endPosition(endDay);
+            return found;
+        }
+    }
+
+    // ------------------- JSON -------------------
+
+    private static void appendRow(StringBuilder sb, TransactionStore store, int row) {
+        sb.append("{\"date\":\"");
+        RecordDecoder.appendDate(sb, store.epochDay(row));
+        int second = store.secondOfDay(row);
+        sb.append("\",\"time\":\"");
+        appendTwoDigits(sb, second / 3600);
+        sb.append(':');
+        appendTwoDigits(sb, second / 60 % 60);
+        sb.append(':');
+        appendTwoDigits(sb, second % 60);
+        sb.append("\",\"description\":").append(quote(store.description(row)));
+        sb.append(",\"vendor\":").append(quote(store.vendor(row)));
+        sb.append(",\"amount\":");
+        appendCents(sb, store.cents(row));
+        sb.append('}');
+    }
+
+    private static void appendTwoDigits(StringBuilder sb, int value) {
+        if (value < 10) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    private static void appendCents(StringBuilder sb, long cents) {
+        // cents as a JSON number with two decimals
+        if (cents < 0) {
+            sb.append('-');
+        }
+        long abs = Math.abs(cents);
+        sb.append(abs / 100).append('.');
+        appendTwoDigits(sb, (int) (abs % 100));
+    }
+
+    private static String quote(String text) {
+        // JSON string literal
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    // ------------------- Request Parsing -------------------
+
+    private static Map<String, String> params(HttpExchange exchange) {
+        Map<String, String> params = new HashMap<>();
+        String query = exchange.getRequestURI().getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            params.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return params;
+    }
+
+    private static LocalDate date(String text) {
+        return text == null || text.isEmpty() ? null : LocalDate.parse(text);
+    }
+}
@@ -0,0 +1,252 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.BufferedOutputStream;
+// import BufferedOutputStream to write the snapshot in large blocks
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.io.OutputStream;
+// import OutputStream as the snapshot write target
+
+import java.nio.ByteBuffer;
+// import ByteBuffer to decode the mapped snapshot
+
+import java.nio.MappedByteBuffer;
+// import MappedByteBuffer to read the whole snapshot with one mapping
+
+import java.nio.channels.FileChannel;
+// import FileChannel to map files
+
+import java.nio.file.Files;
+// import Files to write and atomically replace the snapshot
+
+import java.nio.file.Path;
+// import Path to locate the snapshot and CSV files
+
+import java.nio.file.StandardCopyOption;
+// import StandardCopyOption to replace the old snapshot atomically
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to open files read-only
+
+/*
+ Binary ledger snapshot
+ ------------------------------------------------
+ A compact copy of the column store kept next to transactions.csv
+ (as transactions.csv.snap) so startup does not re-parse text:
+   header  : magic, version, CSV bytes covered, CSV fingerprint, row count
+   strings : vendor and description dictionaries (length-prefixed UTF-8)
+   rows    : date as a delta from the previous row, second of day,
+             cents, vendor id and description id, all as varints
+ The snapshot is read with a single mapping. Only the CSV lines after
+ the covered offset are parsed on startup. The CSV stays the source of
+ truth: if it no longer matches the fingerprint, the snapshot is ignored.
+ The fingerprint hashes the first and the last 64 KB of the covered
+ bytes, so checking it costs the same for any ledger size. A replaced
+ file, or an edit that changes the length of any covered line, shows up
+ in one of the two; an edit that keeps every length is not caught.
+*/
+public class LedgerSnapshot {
+
+    // ------------------- Format -------------------
+
+    private static final long MAGIC = 0x46545F534E415031L;
+    // "FT_SNAP1"
+
+    private static final int VERSION = 3;
+    // format version (3: fingerprint of the first and last block only)
+
+    private static final int HASH_BLOCK = 1 << 16;
+    // CSV bytes hashed at each end of the covered range
+
+    private LedgerSnapshot() {
+        // utility class, no instances
+    }
+
+    /**
+     * Snapshot file used for a CSV file.
+     */
+    public static Path snapshotPath(Path csv) {
+        return csv.resolveSibling(csv.getFileName() + ".snap");
+    }
+
+    // ------------------- Reading -------------------
+
+    /**
+     * Load the snapshot of 'csv' into an empty store.
+     * Returns the number of CSV bytes the snapshot covers, or 0 if there is
+     * no usable snapshot (missing, damaged, or the CSV was rewritten).
+     */
+    public static long load(Path csv, TransactionStore store) {
+        Path snapshot = snapshotPath(csv);
+        if (store.size() != 0 || !Files.exists(snapshot) || !Files.exists(csv)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                return 0;
+                // too large for one mapping, fall back to the CSV
+            }
+            MappedByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.getLong() != MAGIC || in.getInt() != VERSION) {
+                return 0;
+            }
+            long csvOffset = in.getLong();
+            long fingerprint = in.getLong();
+            int rows = in.getInt();
+            if (Files.size(csv) < csvOffset || fingerprint(csv, csvOffset) != fingerprint) {
+                return 0;
+                // the CSV was edited or replaced since the snapshot was taken
+            }
+
+            readDictionary(in, store.getVendors());
+            readDictionary(in, store.getDescriptions());
+
+            int epochDay = 0;
+            for (int i = 0; i < rows; i++) {
+                epochDay += zigZagDecode(readVarLong(in));
+                int secondOfDay = (int) readVarLong(in);
+                long cents = zigZagDecode(readVarLong(in));
+                int vendorId = (int) readVarLong(in);
+                int descriptionId = (int) readVarLong(in);
+                store.addIds(epochDay, secondOfDay, cents, descriptionId, vendorId);
+            }
+            return csvOffset;
+        } catch (IOException | RuntimeException e) {
+            System.out.println("Ignoring snapshot: " + e.getMessage());
+            store.clear();
+            return 0;
+        }
+    }
+
+    private static void readDictionary(ByteBuffer in, StringDictionary dictionary) {
+        int count = (int) readVarLong(in);
+        byte[] bytes = new byte[64];
+        for (int i = 0; i < count; i++) {
+            int length = (int) readVarLong(in);
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            in.get(bytes, 0, length);
+            dictionary.idOf(bytes, 0, length);
+            // ids come back in the same order they were written
+        }
+    }
+
+    // ------------------- Writing -------------------
+
+    /**
+     * Write a snapshot of the store, which must hold exactly the records
+     * found in the first 'csvOffset' bytes of 'csv'. The old snapshot is
+     * replaced atomically, so a crash while writing leaves it intact.
+     */
+    public static void save(Path csv, TransactionStore store, long csvOffset) throws IOException {
+        Path snapshot = snapshotPath(csv);
+        Path temp = snapshot.resolveSibling(snapshot.getFileName() + ".tmp");
+
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16)) {
+            ByteBuffer header = ByteBuffer.allocate(32);
+            header.putLong(MAGIC).putInt(VERSION).putLong(csvOffset)
+                    .putLong(fingerprint(csv, csvOffset)).putInt(store.size());
+            out.write(header.array(), 0, header.position());
+
+            writeDictionary(out, store.getVendors());
+            writeDictionary(out, store.getDescriptions());
+
+            int previousDay = 0;
+            for (int row = 0; row < store.size(); row++) {
+                int epochDay = store.epochDay(row);
+                writeVarLong(out, zigZagEncode(epochDay - previousDay));
+                writeVarLong(out, store.secondOfDay(row));
+                writeVarLong(out, zigZagEncode(store.cents(row)));
+                writeVarLong(out, store.vendorId(row));
+                writeVarLong(out, store.descriptionId(row));
+                previousDay = epochDay;
+            }
+        }
+        Files.move(temp, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeDictionary(OutputStream out, StringDictionary dictionary) throws IOException {
+        writeVarLong(out, dictionary.size());
+        for (int id = 0; id < dictionary.size(); id++) {
+            byte[] bytes = dictionary.bytes(id);
+            writeVarLong(out, bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    // ------------------- Encoding Helpers -------------------
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        // 7 bits per byte, high bit set on every byte except the last
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        return value;
+    }
+
+    private static long zigZagEncode(long value) {
+        return (value << 1) ^ (value >> 63);
+        // small negative numbers become small positive ones
+    }
+
+    private static long zigZagDecode(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    /**
+     * Hash of the first and last HASH_BLOCK bytes of csv[0, length), used to
+     * detect a CSV that was edited or replaced after the snapshot. Reads at most
+     * two blocks, however long the file is.
+     */
+    static long fingerprint(Path csv, long length) throws IOException {
+        long hash = 0xCBF29CE484222325L ^ length;
+        ByteBuffer buffer = ByteBuffer.allocate(HASH_BLOCK);
+        try (FileChannel channel = FileChannel.open(csv, StandardOpenOption.READ)) {
+            long head = Math.min(HASH_BLOCK, length);
+            hash = hashRange(channel, buffer, 0, head, hash);
+            hash = hashRange(channel, buffer, Math.max(head, length - HASH_BLOCK), length, hash);
+            // the tail block never overlaps the head block
+        }
+        return hash;
+    }
+
+    private static long hashRange(FileChannel channel, ByteBuffer buffer, long from, long to, long hash)
+            throws IOException {
+        // fold csv[from, to) into the hash; 'to - from' is at most HASH_BLOCK
+        buffer.clear().limit((int) (to - from));
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                return ~hash;
+                // shorter than the covered range: can't match
+            }
+        }
+        buffer.flip();
+        while (buffer.remaining() >= 8) {
+            hash = (hash ^ buffer.getLong()) * 0x100000001B3L;
+            hash ^= hash >>> 29;
+            // FNV-1a style, a word at a time
+        }
+        while (buffer.hasRemaining()) {
+            hash = (hash ^ buffer.get()) * 0x100000001B3L;
+        }
+        return hash;
+    }
+}
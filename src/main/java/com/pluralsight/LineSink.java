@@ -0,0 +1,19 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for write errors
+
+/*
+ Line sink
+ ------------------------------------------------
+ Where the bulk importer writes the CSV lines it accepted: the single
+ transactions.csv (AppendWriter) or the monthly segments (LedgerPartitions).
+*/
+public interface LineSink {
+
+    /**
+     * Write a block of complete lines, each ending with '\n'.
+     */
+    void appendLines(CharSequence lines, int count) throws IOException;
+}
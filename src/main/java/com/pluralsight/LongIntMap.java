@@ -0,0 +1,94 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Arrays;
+// import Arrays to fill the empty table
+
+/*
+ Primitive long -> int hash map
+ ------------------------------------------------
+ Open-addressing map with no boxing, used where a HashMap<Long, Integer>
+ would create an object per entry. Keys may be any long except Long.MIN_VALUE,
+ which marks an empty slot.
+*/
+public class LongIntMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    // marker for unused slots
+
+    private long[] keys;
+    // slot -> key
+
+    private int[] values;
+    // slot -> value
+
+    private int size;
+    // number of entries
+
+    public LongIntMap() {
+        this(16);
+    }
+
+    public LongIntMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Value stored for the key, or 'missing' if there is none.
+     */
+    public int get(long key, int missing) {
+        int mask = keys.length - 1;
+        for (int slot = mix(key) & mask; keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Store a value for the key, replacing any previous value.
+     */
+    public void put(long key, int value) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    public int size() { return size; }
+    // returns the number of entries
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+        // spread the key bits before masking
+    }
+}
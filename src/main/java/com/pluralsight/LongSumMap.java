@@ -0,0 +1,119 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Arrays;
+// import Arrays to fill the empty table
+
+/*
+ Primitive long -> (count, sum) hash map
+ ------------------------------------------------
+ Open-addressing map that adds up a count and a sum of cents per key
+ without boxing, used by GroupBy for keys that are too sparse for a plain
+ array (month and vendor together). Keys may be any long except
+ Long.MIN_VALUE, which marks an empty slot.
+*/
+public class LongSumMap {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    // marker for unused slots
+
+    private long[] keys;
+    // slot -> key
+
+    private long[] counts;
+    // slot -> number of values added
+
+    private long[] sums;
+    // slot -> total of the values added
+
+    private int size;
+    // number of entries
+
+    /**
+     * Receives each entry of forEach.
+     */
+    public interface EntryConsumer {
+        void accept(long key, long count, long sum);
+    }
+
+    public LongSumMap() {
+        this(16);
+    }
+
+    public LongSumMap(int expected) {
+        int capacity = Integer.highestOneBit(Math.max(8, expected * 2 - 1)) << 1;
+        keys = new long[capacity];
+        counts = new long[capacity];
+        sums = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Add 'count' and 'sum' to the totals of the key.
+     */
+    public void add(long key, long count, long sum) {
+        int mask = keys.length - 1;
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                counts[slot] += count;
+                sums[slot] += sum;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = count;
+        sums[slot] = sum;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    /**
+     * Add every entry of another map to this one.
+     */
+    public void addAll(LongSumMap other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != EMPTY) {
+                add(other.keys[i], other.counts[i], other.sums[i]);
+            }
+        }
+    }
+
+    /**
+     * Call the consumer once per key, in no particular order.
+     */
+    public void forEach(EntryConsumer consumer) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != EMPTY) {
+                consumer.accept(keys[i], counts[i], sums[i]);
+            }
+        }
+    }
+
+    public int size() { return size; }
+    // returns the number of entries
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldCounts = counts;
+        long[] oldSums = sums;
+        keys = new long[oldKeys.length * 2];
+        counts = new long[oldKeys.length * 2];
+        sums = new long[oldKeys.length * 2];
+        Arrays.fill(keys, EMPTY);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                add(oldKeys[i], oldCounts[i], oldSums[i]);
+            }
+        }
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+        // spread the key bits before masking
+    }
+}
@@ -0,0 +1,218 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Map;
+// import Map for the named timers and counters
+
+import java.util.TreeMap;
+// import TreeMap to print metrics sorted by name
+
+import java.util.concurrent.ConcurrentHashMap;
+// import ConcurrentHashMap so any thread can register metrics
+
+import java.util.concurrent.atomic.AtomicLongArray;
+// import AtomicLongArray for the histogram buckets
+
+import java.util.concurrent.atomic.LongAccumulator;
+// import LongAccumulator for the slowest call
+
+import java.util.concurrent.atomic.LongAdder;
+// import LongAdder for counters that many threads update
+
+/*
+ Metrics
+ ------------------------------------------------
+ Always-on counters and latency histograms for the hot paths: loading,
+ appending, each kind of query, totals, rendering, streaming, importing
+ and HTTP requests. Recording is a few uncontended adds, so it stays on in
+ production; the "M" menu option, --metrics and the server's /metrics
+ print everything collected so far.
+
+   private static final Metrics.Timer TIMER = Metrics.timer("query vendor");
+   long start = System.nanoTime();
+   ...
+   TIMER.record(System.nanoTime() - start, rowsScanned, rowsReturned);
+
+ Latencies go into log-scale buckets (four per power of two), so the
+ reported percentiles are within a quarter of the true value.
+*/
+public class Metrics {
+
+    private static final Map<String, Timer> TIMERS = new ConcurrentHashMap<>();
+    // timers by name
+
+    private static final Map<String, LongAdder> COUNTERS = new ConcurrentHashMap<>();
+    // plain event counters by name (errors, cache hits, ...)
+
+    private Metrics() {
+        // utility class, no instances
+    }
+
+    // ------------------- Registry -------------------
+
+    /**
+     * The timer with this name, created on first use. Keep it in a static field on hot paths.
+     */
+    public static Timer timer(String name) {
+        return TIMERS.computeIfAbsent(name, Timer::new);
+    }
+
+    /**
+     * Add one to a named counter.
+     */
+    public static void count(String name) {
+        COUNTERS.computeIfAbsent(name, key -> new LongAdder()).increment();
+    }
+
+    /**
+     * Forget everything recorded so far.
+     */
+    public static void reset() {
+        TIMERS.values().forEach(Timer::reset);
+        COUNTERS.clear();
+    }
+
+    /**
+     * Every timer and counter as a table, for the console or a log file.
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-22s %8s %10s %10s %10s %10s %10s %12s %12s%n",
+                "Timer", "Count", "Avg ms", "p50 ms", "p90 ms", "p99 ms", "Max ms", "Scanned", "Returned"));
+        for (Timer timer : new TreeMap<>(TIMERS).values()) {
+            long count = timer.getCount();
+            if (count == 0) {
+                continue;
+            }
+            sb.append(String.format("%-22s %8d %10.3f %10.3f %10.3f %10.3f %10.3f %12d %12d%n",
+                    timer.name, count, millis(timer.totalNanos.sum() / count),
+                    millis(timer.percentile(0.50)), millis(timer.percentile(0.90)), millis(timer.percentile(0.99)),
+                    millis(timer.max.get()), timer.rowsScanned.sum(), timer.rowsReturned.sum()));
+        }
+        if (!COUNTERS.isEmpty()) {
+            sb.append(String.format("%n%-40s %8s%n", "Counter", "Count"));
+            new TreeMap<>(COUNTERS).forEach((name, adder) -> sb.append(String.format("%-40s %8d%n", name, adder.sum())));
+        }
+        return sb.toString();
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // ------------------- Timer -------------------
+
+    /**
+     * Call count, latency histogram and rows scanned / returned for one operation.
+     */
+    public static class Timer {
+
+        private static final int BUCKETS = 256;
+        // 4 linear buckets below 4 ns, then 4 per power of two up to 2^63
+
+        private final String name;
+        // what is timed
+
+        private final LongAdder count = new LongAdder();
+        // number of calls
+
+        private final LongAdder totalNanos = new LongAdder();
+        // time of all calls together
+
+        private final LongAdder rowsScanned = new LongAdder();
+        // rows read to answer the calls
+
+        private final LongAdder rowsReturned = new LongAdder();
+        // rows in the answers
+
+        private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+        // slowest call
+
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        // calls per latency bucket
+
+        private Timer(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Record one call that took 'nanos'.
+         */
+        public void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            max.accumulate(nanos);
+            histogram.incrementAndGet(bucket(nanos));
+        }
+
+        /**
+         * Record one call that took 'nanos', read 'scanned' rows and returned 'returned' rows.
+         */
+        public void record(long nanos, long scanned, long returned) {
+            record(nanos);
+            rowsScanned.add(scanned);
+            rowsReturned.add(returned);
+        }
+
+        /**
+         * Latency below which the given fraction of calls fall (0.99 for p99), in nanoseconds.
+         */
+        public long percentile(double fraction) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += histogram.get(i);
+            }
+            long rank = (long) Math.ceil(total * fraction);
+            long seen = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                seen += histogram.get(i);
+                if (seen >= rank && seen > 0) {
+                    return Math.min(upperBound(i), max.get());
+                }
+            }
+            return 0;
+        }
+
+        public String getName() { return name; }
+        // returns what is timed
+
+        public long getCount() { return count.sum(); }
+        // returns the number of calls
+
+        public long getRowsScanned() { return rowsScanned.sum(); }
+        // returns the rows read by all calls
+
+        public long getRowsReturned() { return rowsReturned.sum(); }
+        // returns the rows returned by all calls
+
+        private void reset() {
+            count.reset();
+            totalNanos.reset();
+            rowsScanned.reset();
+            rowsReturned.reset();
+            max.reset();
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        private static int bucket(long nanos) {
+            if (nanos < 4) {
+                return (int) Math.max(nanos, 0);
+            }
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int sub = (int) (nanos >>> (exponent - 2)) & 3;
+            // the two bits after the leading one
+            return exponent * 4 + sub;
+        }
+
+        private static long upperBound(int bucket) {
+            if (bucket < 4) {
+                return bucket;
+            }
+            int exponent = bucket / 4;
+            int sub = bucket % 4;
+            return exponent >= 61 ? Long.MAX_VALUE : ((5L + sub) << (exponent - 2)) - 1;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Arrays;
+// import Arrays to grow and copy the lists
+
+/*
+ Posting lists
+ ------------------------------------------------
+ One growable int list per key id, holding the row numbers that
+ have that key. Rows are always added in increasing order, so each
+ list is sorted by row number.
+*/
+public class PostingLists {
+
+    private static final int[] EMPTY = new int[0];
+    // shared empty list
+
+    private int[][] lists = new int[16][];
+    // key id -> row numbers (only the first counts[id] entries are used)
+
+    private int[] counts = new int[16];
+    // key id -> number of rows in the list
+
+    /**
+     * Add a row to the list of the given key.
+     */
+    public void add(int key, int row) {
+        if (key >= lists.length) {
+            int capacity = Math.max(key + 1, lists.length * 2);
+            lists = Arrays.copyOf(lists, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        int[] list = lists[key];
+        if (list == null) {
+            list = new int[4];
+            lists[key] = list;
+        } else if (counts[key] == list.length) {
+            list = Arrays.copyOf(list, list.length * 2);
+            lists[key] = list;
+        }
+        list[counts[key]++] = row;
+    }
+
+    /**
+     * Number of rows with the given key.
+     */
+    public int count(int key) {
+        return key >= 0 && key < counts.length ? counts[key] : 0;
+    }
+
+    /**
+     * Row number at a position of a key's list. Valid for positions below count(key).
+     */
+    public int rowAt(int key, int position) {
+        return lists[key][position];
+    }
+
+    /**
+     * Copy of the rows with the given key, in row order.
+     */
+    public int[] rows(int key) {
+        int count = count(key);
+        return count == 0 ? EMPTY : Arrays.copyOf(lists[key], count);
+    }
+
+    /**
+     * Remove the list of one key.
+     */
+    public void clear(int key) {
+        if (key < lists.length) {
+            lists[key] = null;
+            counts[key] = 0;
+        }
+    }
+
+    /**
+     * Remove every list.
+     */
+    public void clear() {
+        lists = new int[16][];
+        counts = new int[16];
+    }
+}
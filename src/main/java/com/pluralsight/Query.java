@@ -0,0 +1,295 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.time.LocalDate;
+// import LocalDate for date range criteria
+
+import java.util.ArrayList;
+// import ArrayList to sort the keys of an AND / OR
+
+import java.util.Collections;
+// import Collections to sort the keys of an AND / OR
+
+import java.util.List;
+// import List for the parts of an AND / OR
+
+/*
+ Query
+ ------------------------------------------------
+ A search over the ledger, built from small criteria:
+   between(start, end)   date range (either end may be null)
+   vendor(name)          vendor equals name, ignoring case
+   keyword(text)         description contains text, ignoring case
+   amountBetween(a, b)   amount in cents between a and b inclusive
+   amount(x)             amount exactly x dollars
+   deposits(), payments()
+ combined with and(...) / or(...). For example:
+   Query.and(Query.vendor("Amazon"), Query.or(Query.keyword("book"), Query.amountBetween(10000, 50000)))
+ A Query only describes the search; QueryEngine decides how to run it.
+*/
+public class Query {
+
+    // ------------------- Kinds -------------------
+
+    public enum Kind { ALL, DATE, VENDOR, KEYWORD, AMOUNT, DEPOSIT, PAYMENT, AND, OR }
+    // what a query node checks
+
+    private final Kind kind;
+    // type of this node
+
+    private final int startDay;
+    private final int endDay;
+    // DATE: inclusive epoch day range
+
+    private final String text;
+    // VENDOR / KEYWORD: the name or keyword
+
+    private final long minCents;
+    private final long maxCents;
+    // AMOUNT: inclusive range in cents
+
+    private final List<Query> parts;
+    // AND / OR: the combined queries
+
+    private final String foldedText;
+    // VENDOR / KEYWORD: the text case-folded the way the indexes compare it
+
+    private Query(Kind kind, int startDay, int endDay, String text, long minCents, long maxCents, List<Query> parts) {
+        this.kind = kind;
+        this.startDay = startDay;
+        this.endDay = endDay;
+        this.text = text;
+        this.minCents = minCents;
+        this.maxCents = maxCents;
+        this.parts = parts;
+        this.foldedText = text == null ? null : kind == Kind.VENDOR ? VendorIndex.fold(text) : text.toLowerCase();
+    }
+
+    // ------------------- Criteria -------------------
+
+    /**
+     * Every transaction.
+     */
+    public static Query all() {
+        return new Query(Kind.ALL, 0, 0, null, 0, 0, List.of());
+    }
+
+    /**
+     * Transactions dated between start and end inclusive. A null end is open.
+     */
+    public static Query between(LocalDate start, LocalDate end) {
+        int startDay = start != null ? (int) start.toEpochDay() : Integer.MIN_VALUE;
+        int endDay = end != null ? (int) end.toEpochDay() : Integer.MAX_VALUE - 1;
+        return betweenDays(startDay, endDay);
+    }
+
+    /**
+     * Transactions dated between two epoch days inclusive.
+     */
+    public static Query betweenDays(int startDay, int endDay) {
+        return new Query(Kind.DATE, startDay, endDay, null, 0, 0, List.of());
+    }
+
+    /**
+     * Transactions whose vendor equals the name, ignoring case.
+     */
+    public static Query vendor(String name) {
+        return new Query(Kind.VENDOR, 0, 0, name, 0, 0, List.of());
+    }
+
+    /**
+     * Transactions whose description contains the keyword, ignoring case.
+     */
+    public static Query keyword(String keyword) {
+        return new Query(Kind.KEYWORD, 0, 0, keyword, 0, 0, List.of());
+    }
+
+    /**
+     * Transactions whose amount in cents is between min and max inclusive.
+     */
+    public static Query amountBetween(long minCents, long maxCents) {
+        return new Query(Kind.AMOUNT, 0, 0, null, minCents, maxCents, List.of());
+    }
+
+    /**
+     * Transactions whose amount is exactly the given number of dollars.
+     * An amount with more than two decimals matches nothing, like the old double comparison.
+     */
+    public static Query amount(double amount) {
+        long cents = Math.round(amount * 100);
+        return cents / 100.0 == amount ? amountBetween(cents, cents) : amountBetween(1, 0);
+    }
+
+    /**
+     * Transactions with a positive amount.
+     */
+    public static Query deposits() {
+        return new Query(Kind.DEPOSIT, 0, 0, null, 0, 0, List.of());
+    }
+
+    /**
+     * Transactions with a negative amount.
+     */
+    public static Query payments() {
+        return new Query(Kind.PAYMENT, 0, 0, null, 0, 0, List.of());
+    }
+
+    /**
+     * Transactions matching every part.
+     */
+    public static Query and(Query... parts) {
+        if (parts.length == 0) {
+            return all();
+        }
+        return parts.length == 1 ? parts[0] : new Query(Kind.AND, 0, 0, null, 0, 0, List.of(parts));
+    }
+
+    /**
+     * Transactions matching at least one part.
+     */
+    public static Query or(Query... parts) {
+        if (parts.length == 0) {
+            return amountBetween(1, 0);
+            // an empty range, matches nothing
+        }
+        return parts.length == 1 ? parts[0] : new Query(Kind.OR, 0, 0, null, 0, 0, List.of(parts));
+    }
+
+    // ------------------- Getters -------------------
+
+    public Kind getKind() { return kind; }
+    // returns the type of this node
+
+    public int getStartDay() { return startDay; }
+    // returns the first epoch day of a DATE node
+
+    public int getEndDay() { return endDay; }
+    // returns the last epoch day of a DATE node
+
+    public String getText() { return text; }
+    // returns the vendor or keyword of a VENDOR / KEYWORD node
+
+    public long getMinCents() { return minCents; }
+    // returns the lowest amount of an AMOUNT node
+
+    public long getMaxCents() { return maxCents; }
+    // returns the highest amount of an AMOUNT node
+
+    public List<Query> getParts() { return parts; }
+    // returns the parts of an AND / OR node
+
+    // ------------------- Matching -------------------
+
+    /**
+     * True if one row satisfies this query, checked directly on the store's columns.
+     * Used to find the cached results a newly appended row changes.
+     */
+    public boolean matches(TransactionStore store, int row) {
+        switch (kind) {
+            case DATE: {
+                int day = store.epochDay(row);
+                return day >= startDay && day <= endDay;
+            }
+            case VENDOR: return VendorIndex.fold(store.vendor(row)).equals(foldedText);
+            case KEYWORD: return store.description(row).toLowerCase().contains(foldedText);
+            case AMOUNT: return store.cents(row) >= minCents && store.cents(row) <= maxCents;
+            case DEPOSIT: return store.cents(row) > 0;
+            case PAYMENT: return store.cents(row) < 0;
+            case AND: {
+                for (Query part : parts) {
+                    if (!part.matches(store, row)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            case OR: {
+                for (Query part : parts) {
+                    if (part.matches(store, row)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default: return true;
+        }
+    }
+
+    /**
+     * True if the cursor's current row satisfies this query. Description and vendor
+     * are only decoded when a keyword or vendor criterion needs them.
+     */
+    public boolean matches(LedgerCursor cursor) {
+        switch (kind) {
+            case DATE: {
+                int day = cursor.epochDay();
+                return day >= startDay && day <= endDay;
+            }
+            case VENDOR: return VendorIndex.fold(cursor.vendor()).equals(foldedText);
+            case KEYWORD: return cursor.description().toLowerCase().contains(foldedText);
+            case AMOUNT: return cursor.cents() >= minCents && cursor.cents() <= maxCents;
+            case DEPOSIT: return cursor.cents() > 0;
+            case PAYMENT: return cursor.cents() < 0;
+            case AND: {
+                for (Query part : parts) {
+                    if (!part.matches(cursor)) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            case OR: {
+                for (Query part : parts) {
+                    if (part.matches(cursor)) {
+                        return true;
+                    }
+                }
+                return false;
+            }
+            default: return true;
+        }
+    }
+
+    /**
+     * Normalized text of this query: vendor and keyword case-folded and the parts
+     * of an AND / OR sorted, so queries that always match the same rows share one key.
+     */
+    public String key() {
+        switch (kind) {
+            case DATE: return "date:" + startDay + ".." + endDay;
+            case VENDOR: return "vendor:" + foldedText;
+            case KEYWORD: return "keyword:" + foldedText;
+            case AMOUNT: return minCents > maxCents ? "none" : "amount:" + minCents + ".." + maxCents;
+            case AND:
+            case OR: {
+                List<String> keys = new ArrayList<>();
+                for (Query part : parts) {
+                    keys.add(part.key());
+                }
+                Collections.sort(keys);
+                return kind + keys.toString();
+            }
+            default: return kind.toString().toLowerCase();
+        }
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case DATE: return "date " + (startDay == Integer.MIN_VALUE ? "" : LocalDate.ofEpochDay(startDay).toString())
+                    + ".." + (endDay >= Integer.MAX_VALUE - 1 ? "" : LocalDate.ofEpochDay(endDay).toString());
+            case VENDOR: return "vendor = " + text;
+            case KEYWORD: return "description ~ " + text;
+            case AMOUNT: return "amount " + minCents / 100.0 + ".." + maxCents / 100.0;
+            case AND:
+            case OR: {
+                StringBuilder sb = new StringBuilder("(");
+                for (int i = 0; i < parts.size(); i++) {
+                    sb.append(i > 0 ? " " + kind + " " : "").append(parts.get(i));
+                }
+                return sb.append(')').toString();
+            }
+            default: return kind.toString().toLowerCase();
+        }
+    }
+}
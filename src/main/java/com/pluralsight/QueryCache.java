@@ -0,0 +1,197 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Iterator;
+// import Iterator to remove entries while walking the cache
+
+import java.util.LinkedHashMap;
+// import LinkedHashMap for least-recently-used ordering
+
+import java.util.Map;
+// import Map for the cache entries
+
+/*
+ Query cache
+ ------------------------------------------------
+ Remembers the rows of recent queries, so a report that is asked for again
+ (Previous Month, Previous Year, a vendor search, ...) is answered without
+ touching the indexes. Entries are keyed by Query.key() and the result
+ order, and weighed by the size of their row list; the least recently used
+ entries are dropped when the total goes over the capacity.
+ When rows are appended, only the entries whose query matches one of the new
+ rows are dropped: a new coffee purchase today leaves Previous Year cached.
+ Safe to use from several reading threads at once.
+*/
+public class QueryCache {
+
+    // ------------------- Settings -------------------
+
+    public static final long DEFAULT_CAPACITY_BYTES = 64L << 20;
+    // memory the cached row lists may use by default (64 MB)
+
+    private static final int ENTRY_OVERHEAD_BYTES = 128;
+    // rough cost of one entry besides its rows: key, map node, array header
+
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    // key -> cached rows, least recently used first
+
+    private long capacityBytes;
+    // largest total weight kept
+
+    private long usedBytes;
+    // total weight of the cached entries
+
+    private long hits;
+    // lookups answered from the cache
+
+    private long misses;
+    // lookups that had to run the query
+
+    private long evictions;
+    // entries dropped to stay under the capacity
+
+    private long invalidations;
+    // entries dropped because an appended row matched them
+
+    private static class Entry {
+        // one cached result
+
+        final Query query;
+        // the query, to test appended rows against
+
+        final int[] rows;
+        // its matching rows
+
+        final long weight;
+        // bytes counted against the capacity
+
+        Entry(Query query, int[] rows, long weight) {
+            this.query = query;
+            this.rows = rows;
+            this.weight = weight;
+        }
+    }
+
+    public QueryCache() {
+        this(DEFAULT_CAPACITY_BYTES);
+    }
+
+    public QueryCache(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    // ------------------- Lookup -------------------
+
+    /**
+     * Cached rows for a query in the given order, or null when they are not cached.
+     * The returned array is shared with the cache and must not be changed.
+     */
+    public synchronized int[] get(Query query, boolean dateOrder) {
+        Entry entry = entries.get(key(query, dateOrder));
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.rows;
+    }
+
+    /**
+     * Remember the rows of a query. Results larger than the whole capacity are not kept.
+     */
+    public synchronized void put(Query query, boolean dateOrder, int[] rows) {
+        String key = key(query, dateOrder);
+        long weight = ENTRY_OVERHEAD_BYTES + 2L * key.length() + 4L * rows.length;
+        if (weight > capacityBytes) {
+            return;
+        }
+
+        Entry old = entries.put(key, new Entry(query, rows, weight));
+        if (old != null) {
+            usedBytes -= old.weight;
+        }
+        usedBytes += weight;
+        evictToCapacity();
+    }
+
+    // ------------------- Invalidation -------------------
+
+    /**
+     * Drop the entries whose query matches any of the rows [fromRow, toRow) just appended to the store.
+     * Returns how many were dropped.
+     */
+    public synchronized long invalidate(TransactionStore store, int fromRow, int toRow) {
+        long before = invalidations;
+        Iterator<Entry> it = entries.values().iterator();
+        while (it.hasNext()) {
+            Entry entry = it.next();
+            for (int row = fromRow; row < toRow; row++) {
+                if (entry.query.matches(store, row)) {
+                    it.remove();
+                    usedBytes -= entry.weight;
+                    invalidations++;
+                    break;
+                }
+            }
+        }
+        return invalidations - before;
+    }
+
+    /**
+     * Drop every entry, for example after the store was reloaded.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        usedBytes = 0;
+    }
+
+    /**
+     * Change the capacity, dropping least recently used entries if it shrank. 0 turns caching off.
+     */
+    public synchronized void setCapacityBytes(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+        evictToCapacity();
+    }
+
+    // ------------------- Counters -------------------
+
+    public synchronized long getHits() { return hits; }
+    // returns lookups answered from the cache
+
+    public synchronized long getMisses() { return misses; }
+    // returns lookups that ran the query
+
+    public synchronized long getEvictions() { return evictions; }
+    // returns entries dropped for space
+
+    public synchronized long getInvalidations() { return invalidations; }
+    // returns entries dropped because of appended rows
+
+    public synchronized int getEntryCount() { return entries.size(); }
+    // returns the number of cached results
+
+    public synchronized long getUsedBytes() { return usedBytes; }
+    // returns the total weight of the cached results
+
+    @Override
+    public synchronized String toString() {
+        return String.format("%d entries, %d KB, %d hits, %d misses, %d evictions, %d invalidations",
+                entries.size(), usedBytes / 1024, hits, misses, evictions, invalidations);
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static String key(Query query, boolean dateOrder) {
+        return (dateOrder ? "by date " : "by row ") + query.key();
+    }
+
+    private void evictToCapacity() {
+        // drop least recently used entries until the total fits
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (usedBytes > capacityBytes && it.hasNext()) {
+            usedBytes -= it.next().getValue().weight;
+            it.remove();
+            evictions++;
+        }
+    }
+}
@@ -0,0 +1,413 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.ArrayList;
+// import ArrayList for the plans of an AND / OR
+
+import java.util.Arrays;
+// import Arrays to sort and trim row lists
+
+import java.util.BitSet;
+// import BitSet for description and vendor matches
+
+import java.util.Comparator;
+// import Comparator to order parts by selectivity
+
+import java.util.List;
+// import List for the plans of an AND / OR
+
+/*
+ Query engine
+ ------------------------------------------------
+ Runs a Query against the ledger's store and indexes.
+ Every query node is turned into a plan that knows
+   - how many rows it expects to match (from the index sizes),
+   - how to fetch its rows (index lookup, or a scan when no index helps),
+   - how to filter a row list in a tight loop over the primitive columns.
+ For an AND the plan with the fewest expected rows fetches the candidates,
+ and the others filter them, most selective first, stopping once the list
+ is empty. An OR unions its parts, or scans once if that is cheaper.
+ Every run is timed per query kind in Metrics ("query date", "query and", ...)
+ with the rows it read and returned, and emitted as a JFR Query event.
+*/
+public class QueryEngine {
+
+    private static final Metrics.Timer[] TIMERS = new Metrics.Timer[Query.Kind.values().length];
+    // one timer per kind of top-level query node
+    static {
+        for (Query.Kind kind : Query.Kind.values()) {
+            TIMERS[kind.ordinal()] = Metrics.timer("query " + kind.toString().toLowerCase());
+        }
+    }
+
+    private final Ledger ledger;
+    // ledger whose store and indexes are queried
+
+    public QueryEngine(Ledger ledger) {
+        this.ledger = ledger;
+    }
+
+    // ------------------- Running -------------------
+
+    /**
+     * Rows matching the query, in date order when 'dateOrder' is true, otherwise in row (file) order.
+     */
+    public int[] run(Query query, boolean dateOrder) {
+        LedgerEvents.Query event = new LedgerEvents.Query();
+        event.begin();
+        long start = System.nanoTime();
+
+        Plan plan = plan(query);
+        int[] rows = plan.fetch();
+
+        if (dateOrder && !plan.dateOrdered()) {
+            DateIndex.sortByDate(ledger.getStore(), rows);
+        } else if (!dateOrder && plan.dateOrdered()) {
+            Arrays.sort(rows);
+        }
+
+        long scanned = plan.scanned();
+        TIMERS[query.getKind().ordinal()].record(System.nanoTime() - start, scanned, rows.length);
+        event.end();
+        if (event.shouldCommit()) {
+            event.query = query.toString();
+            event.plan = plan.describe();
+            event.rowsScanned = scanned;
+            event.rowsReturned = rows.length;
+            event.commit();
+        }
+        return rows;
+    }
+
+    // ------------------- Planning -------------------
+
+    private Plan plan(Query query) {
+        TransactionStore store = ledger.getStore();
+        switch (query.getKind()) {
+            case DATE:
+                return new DatePlan(ledger.getDateIndex(), store, query);
+            case VENDOR:
+                return new VendorPlan(ledger.getVendorIndex(), store, query.getText());
+            case KEYWORD:
+                return new KeywordPlan(ledger.getDescriptionIndex(), store, query.getText());
+            case AMOUNT:
+                return new AmountPlan(store, query.getMinCents(), query.getMaxCents(), query.toString());
+            case DEPOSIT:
+                return new AmountPlan(store, 1, Long.MAX_VALUE, "deposits");
+            case PAYMENT:
+                return new AmountPlan(store, Long.MIN_VALUE, -1, "payments");
+            case AND:
+            case OR: {
+                List<Plan> parts = new ArrayList<>();
+                for (Query part : query.getParts()) {
+                    parts.add(plan(part));
+                }
+                parts.sort(Comparator.comparingLong(Plan::estimate));
+                // most selective first
+                return query.getKind() == Query.Kind.AND ? new AndPlan(parts) : new OrPlan(store, parts);
+            }
+            default:
+                return new AmountPlan(store, Long.MIN_VALUE, Long.MAX_VALUE, "all");
+        }
+    }
+
+    private static long sumScanned(List<Plan> parts) {
+        long total = 0;
+        for (Plan part : parts) {
+            total += part.scanned();
+        }
+        return total;
+    }
+
+    // ------------------- Plans -------------------
+
+    private abstract static class Plan {
+
+        long scanned;
+        // rows this plan has read so far, for the metrics
+
+        abstract long estimate();
+        // expected number of matching rows
+
+        abstract int[] fetch();
+        // matching rows, in row order unless dateOrdered()
+
+        abstract boolean test(int row);
+        // true if one row matches
+
+        abstract String describe();
+        // how the plan runs, for the query event
+
+        boolean dateOrdered() { return false; }
+        // returns true when fetch() returns rows in date order
+
+        long scanned() { return scanned; }
+        // returns the rows read by this plan and its parts
+
+        int retain(int[] rows, int count) {
+            // keep the matching rows of rows[0, count) in place and return how many are left
+            scanned += count;
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                if (test(row)) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static class DatePlan extends Plan {
+        // date range: two binary searches on the date index
+
+        private final DateIndex index;
+        private final TransactionStore store;
+        private final Query query;
+
+        DatePlan(DateIndex index, TransactionStore store, Query query) {
+            this.index = index;
+            this.store = store;
+            this.query = query;
+        }
+
+        long estimate() { return index.countBetween(query.getStartDay(), query.getEndDay()); }
+        int[] fetch() {
+            int[] rows = index.rowsBetween(query.getStartDay(), query.getEndDay());
+            scanned += rows.length;
+            return rows;
+        }
+        boolean dateOrdered() { return true; }
+        String describe() { return query + " [" + estimate() + " rows]"; }
+
+        boolean test(int row) {
+            int day = store.epochDay(row);
+            return day >= query.getStartDay() && day <= query.getEndDay();
+        }
+
+        @Override
+        int retain(int[] rows, int count) {
+            scanned += count;
+            int start = query.getStartDay();
+            int end = query.getEndDay();
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                int day = store.epochDay(row);
+                if (day >= start && day <= end) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static class VendorPlan extends Plan {
+        // vendor name: posting list of its case-folded name
+
+        private final VendorIndex index;
+        private final TransactionStore store;
+        private final String vendor;
+        private final int foldedId;
+
+        VendorPlan(VendorIndex index, TransactionStore store, String vendor) {
+            this.index = index;
+            this.store = store;
+            this.vendor = vendor;
+            this.foldedId = index.findFoldedId(vendor);
+        }
+
+        long estimate() { return foldedId < 0 ? 0 : index.count(vendor); }
+        int[] fetch() {
+            int[] rows = foldedId < 0 ? new int[0] : index.rows(vendor);
+            scanned += rows.length;
+            return rows;
+        }
+        boolean test(int row) { return foldedId >= 0 && index.matches(store, row, foldedId); }
+        String describe() { return "vendor = " + vendor + " [" + estimate() + " rows]"; }
+    }
+
+    private static class KeywordPlan extends Plan {
+        // description keyword: trigram index gives the matching description ids
+
+        private final DescriptionIndex index;
+        private final TransactionStore store;
+        private final String keyword;
+        private final BitSet descriptions;
+
+        KeywordPlan(DescriptionIndex index, TransactionStore store, String keyword) {
+            this.index = index;
+            this.store = store;
+            this.keyword = keyword;
+            this.descriptions = index.matchingDescriptions(keyword);
+        }
+
+        long estimate() { return index.countRows(descriptions); }
+        int[] fetch() {
+            int[] rows = index.rows(descriptions);
+            scanned += rows.length;
+            return rows;
+        }
+        boolean test(int row) { return descriptions.get(store.descriptionId(row)); }
+        String describe() { return "description ~ " + keyword + " [" + estimate() + " rows]"; }
+    }
+
+    private static class AmountPlan extends Plan {
+        // amount range (also deposits, payments and all): no index, checked on the cents column
+
+        private final TransactionStore store;
+        private final long min;
+        private final long max;
+        private final String text;
+
+        AmountPlan(TransactionStore store, long min, long max, String text) {
+            this.store = store;
+            this.min = min;
+            this.max = max;
+            this.text = text;
+        }
+
+        long estimate() { return min > max ? 0 : store.size(); }
+        boolean test(int row) { long cents = store.cents(row); return cents >= min && cents <= max; }
+        String describe() { return text + " [scan " + store.size() + " rows]"; }
+
+        int[] fetch() {
+            int[] rows = new int[min > max ? 0 : store.size()];
+            scanned += rows.length;
+            int kept = 0;
+            for (int row = 0; row < rows.length; row++) {
+                long cents = store.cents(row);
+                if (cents >= min && cents <= max) {
+                    rows[kept++] = row;
+                }
+            }
+            return Arrays.copyOf(rows, kept);
+        }
+
+        @Override
+        int retain(int[] rows, int count) {
+            scanned += count;
+            int kept = 0;
+            for (int i = 0; i < count; i++) {
+                int row = rows[i];
+                long cents = store.cents(row);
+                if (cents >= min && cents <= max) {
+                    rows[kept++] = row;
+                }
+            }
+            return kept;
+        }
+    }
+
+    private static class AndPlan extends Plan {
+        // every part: the most selective part fetches, the others filter
+
+        private final List<Plan> parts;
+        // sorted by estimate
+
+        AndPlan(List<Plan> parts) {
+            this.parts = parts;
+        }
+
+        long estimate() { return parts.get(0).estimate(); }
+        boolean dateOrdered() { return parts.get(0).dateOrdered(); }
+        long scanned() { return scanned + sumScanned(parts); }
+
+        int[] fetch() {
+            int[] rows = parts.get(0).fetch();
+            int count = rows.length;
+            for (int i = 1; i < parts.size() && count > 0; i++) {
+                count = parts.get(i).retain(rows, count);
+            }
+            return Arrays.copyOf(rows, count);
+        }
+
+        boolean test(int row) {
+            for (Plan part : parts) {
+                if (!part.test(row)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        int retain(int[] rows, int count) {
+            for (int i = 0; i < parts.size() && count > 0; i++) {
+                count = parts.get(i).retain(rows, count);
+            }
+            return count;
+        }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder(parts.get(0).describe());
+            for (int i = 1; i < parts.size(); i++) {
+                sb.append(" then ").append(parts.get(i).describe());
+            }
+            return sb.toString();
+        }
+    }
+
+    private static class OrPlan extends Plan {
+        // any part: union of each part's rows, or one scan when that reads fewer rows
+
+        private final TransactionStore store;
+        private final List<Plan> parts;
+
+        OrPlan(TransactionStore store, List<Plan> parts) {
+            this.store = store;
+            this.parts = parts;
+        }
+
+        long estimate() {
+            long total = 0;
+            for (Plan part : parts) {
+                total += part.estimate();
+            }
+            return Math.min(total, store.size());
+        }
+
+        long scanned() { return scanned + sumScanned(parts); }
+
+        boolean test(int row) {
+            for (Plan part : parts) {
+                if (part.test(row)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        int[] fetch() {
+            long total = 0;
+            for (Plan part : parts) {
+                total += part.estimate();
+            }
+            if (total >= store.size()) {
+                int[] rows = new int[store.size()];
+                for (int row = 0; row < rows.length; row++) {
+                    rows[row] = row;
+                }
+                return Arrays.copyOf(rows, retain(rows, rows.length));
+                // the parts would fetch at least every row anyway
+            }
+
+            BitSet matches = new BitSet(store.size());
+            for (Plan part : parts) {
+                for (int row : part.fetch()) {
+                    matches.set(row);
+                }
+            }
+            return matches.stream().toArray();
+            // union in row order, each row once
+        }
+
+        String describe() {
+            StringBuilder sb = new StringBuilder("any of (");
+            for (int i = 0; i < parts.size(); i++) {
+                sb.append(i > 0 ? " | " : "").append(parts.get(i).describe());
+            }
+            return sb.append(')').toString();
+        }
+    }
+}
@@ -0,0 +1,398 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to decode field text for error messages
+
+import java.time.format.DateTimeParseException;
+// import exception class for invalid date/time fields
+
+/*
+ Pipe-delimited record decoder
+ ------------------------------------------------
+ Decodes one line of transactions.csv straight from its bytes:
+ date -> epoch day, time -> second of day, amount -> long cents.
+ No Strings or arrays are created for these fields; the decoder
+ object is reused for every line of a chunk.
+ Line format: yyyy-MM-dd|HH:mm:ss|description|vendor|amount
+*/
+public class RecordDecoder {
+
+    // ------------------- Constants -------------------
+
+    private static final int FIELD_COUNT = 5;
+    // number of fields in a well-formed line
+
+    private static final byte SEPARATOR = '|';
+    // field separator byte
+
+    private static final int DAYS_0000_TO_1970 = 719528;
+    // days from 0000-01-01 to 1970-01-01, same constant LocalDate uses
+
+    private static final long[] POWERS_OF_TEN = {
+            1L, 10L, 100L, 1_000L, 10_000L, 100_000L, 1_000_000L, 10_000_000L, 100_000_000L,
+            1_000_000_000L, 10_000_000_000L, 100_000_000_000L, 1_000_000_000_000L,
+            10_000_000_000_000L, 100_000_000_000_000L, 1_000_000_000_000_000L,
+            10_000_000_000_000_000L, 100_000_000_000_000_000L, 1_000_000_000_000_000_000L
+    };
+    // powers of ten used to scale amounts to cents
+
+    // ------------------- Decoded fields -------------------
+
+    private final int[] fieldStart = new int[FIELD_COUNT];
+    // start offset of each field in the buffer
+
+    private final int[] fieldEnd = new int[FIELD_COUNT];
+    // end offset (exclusive) of each field in the buffer
+
+    private int epochDay;
+    // decoded date as days since 1970-01-01
+
+    private int secondOfDay;
+    // decoded time as seconds since midnight
+
+    private long cents;
+    // decoded amount in hundredths. Positive for deposits, negative for payments
+
+    // ------------------- Decoding -------------------
+
+    /**
+     * Decode the line stored in buf[start, end).
+     * Returns false if the line does not have exactly 5 fields, which is
+     * the same rule as the old split("\\|").length == 5 check
+     * (trailing empty fields are ignored, just like String.split).
+     * Throws DateTimeParseException / NumberFormatException for bad values.
+     */
+    public boolean decode(byte[] buf, int start, int end) {
+        int field = 0;
+        int fieldBegin = start;
+        boolean extraText = false;
+        // true if a non-empty field follows the fifth one
+
+        for (int i = start; i <= end; i++) {
+            if (i == end || buf[i] == SEPARATOR) {
+                if (field < FIELD_COUNT) {
+                    fieldStart[field] = fieldBegin;
+                    fieldEnd[field] = i;
+                } else if (i > fieldBegin) {
+                    extraText = true;
+                }
+                field++;
+                fieldBegin = i + 1;
+            }
+        }
+
+        if (field < FIELD_COUNT || extraText) {
+            return false;
+            // too few fields, or a sixth non-empty field
+        }
+        if (fieldEnd[4] == fieldStart[4]) {
+            return false;
+            // an empty amount is a trailing empty field, which split drops
+        }
+
+        epochDay = parseEpochDay(buf, fieldStart[0], fieldEnd[0]);
+        secondOfDay = parseSecondOfDay(buf, fieldStart[1], fieldEnd[1]);
+        cents = parseCents(buf, fieldStart[4], fieldEnd[4]);
+        return true;
+    }
+
+    // ------------------- Getter Methods -------------------
+
+    public int getEpochDay() { return epochDay; }
+    // returns the decoded date as an epoch day
+
+    public int getSecondOfDay() { return secondOfDay; }
+    // returns the decoded time as a second of day
+
+    public long getCents() { return cents; }
+    // returns the decoded amount in cents
+
+    public int getDescriptionStart() { return fieldStart[2]; }
+    // returns where the description starts in the buffer
+
+    public int getDescriptionEnd() { return fieldEnd[2]; }
+    // returns where the description ends in the buffer
+
+    public int getVendorStart() { return fieldStart[3]; }
+    // returns where the vendor starts in the buffer
+
+    public int getVendorEnd() { return fieldEnd[3]; }
+    // returns where the vendor ends in the buffer
+
+    // ------------------- Field Parsers -------------------
+
+    /**
+     * Parse a fixed-width yyyy-MM-dd date into days since 1970-01-01.
+     * Day-of-month overflow inside 1..31 is clamped to the month length,
+     * matching the SMART resolver of DateTimeFormatter.ofPattern.
+     */
+    public static int parseEpochDay(byte[] buf, int start, int end) {
+        if (end - start != 10 || buf[start + 4] != '-' || buf[start + 7] != '-') {
+            throw dateError(buf, start, end);
+        }
+        int year = digits(buf, start, 4);
+        int month = digits(buf, start + 5, 2);
+        int day = digits(buf, start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > 31) {
+            throw dateError(buf, start, end);
+        }
+
+        int length = monthLength(year, month);
+        if (day > length) {
+            day = length;
+            // e.g. 2023-02-30 resolves to 2023-02-28
+        }
+        return epochDay(year, month, day);
+    }
+
+    /**
+     * Parse HH:mm:ss (or HH:mm, which LocalTime.toString writes when seconds are zero)
+     * into seconds since midnight.
+     */
+    public static int parseSecondOfDay(byte[] buf, int start, int end) {
+        int length = end - start;
+        if ((length != 8 && length != 5) || buf[start + 2] != ':' || (length == 8 && buf[start + 5] != ':')) {
+            throw timeError(buf, start, end);
+        }
+        int hour = digits(buf, start, 2);
+        int minute = digits(buf, start + 3, 2);
+        int second = length == 8 ? digits(buf, start + 6, 2) : 0;
+        if (hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            throw timeError(buf, start, end);
+        }
+        return hour * 3600 + minute * 60 + second;
+    }
+
+    /**
+     * Parse a decimal amount such as -89.50, 1500.0 or 1.2E7 into cents.
+     * Extra fraction digits are rounded half-up.
+     */
+    public static long parseCents(byte[] buf, int start, int end) {
+        while (start < end && (buf[start] & 0xFF) <= ' ') {
+            start++;
+            // skip leading whitespace like Double.parseDouble (unsigned, so UTF-8 bytes are not whitespace)
+        }
+        while (end > start && (buf[end - 1] & 0xFF) <= ' ') {
+            end--;
+            // skip trailing whitespace
+        }
+
+        int i = start;
+        boolean negative = false;
+        if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+            negative = buf[i] == '-';
+            i++;
+        }
+
+        long unscaled = 0;
+        int significant = 0;
+        int scale = 0;
+        // value = unscaled * 10^-scale
+
+        boolean seenDigit = false;
+        boolean seenDot = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b >= '0' && b <= '9') {
+                seenDigit = true;
+                if (significant < 18) {
+                    unscaled = unscaled * 10 + (b - '0');
+                    if (unscaled != 0) {
+                        significant++;
+                    }
+                    if (seenDot) {
+                        scale++;
+                    }
+                } else if (!seenDot) {
+                    scale--;
+                    // integer digit beyond long precision, keep its magnitude
+                }
+            } else if (b == '.' && !seenDot) {
+                seenDot = true;
+            } else {
+                break;
+            }
+        }
+        if (!seenDigit) {
+            throw amountError(buf, start, end);
+        }
+
+        int exponent = 0;
+        if (i < end && (buf[i] == 'e' || buf[i] == 'E')) {
+            i++;
+            boolean negativeExponent = false;
+            if (i < end && (buf[i] == '-' || buf[i] == '+')) {
+                negativeExponent = buf[i] == '-';
+                i++;
+            }
+            int exponentStart = i;
+            for (; i < end && buf[i] >= '0' && buf[i] <= '9'; i++) {
+                if (exponent < 1000) {
+                    exponent = exponent * 10 + (buf[i] - '0');
+                }
+            }
+            if (i == exponentStart) {
+                throw amountError(buf, start, end);
+            }
+            if (negativeExponent) {
+                exponent = -exponent;
+            }
+        }
+        if (i != end) {
+            throw amountError(buf, start, end);
+            // unexpected characters after the number
+        }
+
+        int power = 2 - scale + exponent;
+        // power of ten that turns the unscaled digits into cents
+
+        long result;
+        if (unscaled == 0) {
+            result = 0;
+        } else if (power >= 0) {
+            if (power >= POWERS_OF_TEN.length || unscaled > Long.MAX_VALUE / POWERS_OF_TEN[power]) {
+                throw amountError(buf, start, end);
+                // does not fit in a long number of cents
+            }
+            result = unscaled * POWERS_OF_TEN[power];
+        } else if (-power >= POWERS_OF_TEN.length) {
+            result = 0;
+        } else {
+            long divisor = POWERS_OF_TEN[-power];
+            result = unscaled / divisor;
+            if ((unscaled % divisor) * 2 >= divisor) {
+                result++;
+                // round half-up
+            }
+        }
+        return negative ? -result : result;
+    }
+
+    // ------------------- Encoding -------------------
+
+    /**
+     * Append a line in exactly the format Transaction.toCSVLine produces,
+     * so records decoded here can be written back unchanged.
+     */
+    public static void appendRecord(StringBuilder sb, int epochDay, int secondOfDay,
+                                    String description, String vendor, long cents) {
+        appendDate(sb, epochDay);
+        sb.append('|');
+        appendTime(sb, secondOfDay);
+        sb.append('|').append(description).append('|').append(vendor).append('|');
+        sb.append(cents / 100.0);
+        // same text as the double amount in toCSVLine
+    }
+
+    /**
+     * Append an epoch day as yyyy-MM-dd.
+     */
+    public static void appendDate(StringBuilder sb, int epochDay) {
+        long zeroDay = (long) epochDay + DAYS_0000_TO_1970 - 60;
+        // civil-from-days, shifted so the year starts in March (same as LocalDate.ofEpochDay)
+
+        long yearEst = (400 * zeroDay + 591) / 146097;
+        long doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        if (doyEst < 0) {
+            yearEst--;
+            doyEst = zeroDay - (365 * yearEst + yearEst / 4 - yearEst / 100 + yearEst / 400);
+        }
+        int marchDoy0 = (int) doyEst;
+        int marchMonth0 = (marchDoy0 * 5 + 2) / 153;
+        int month = (marchMonth0 + 2) % 12 + 1;
+        int day = marchDoy0 - (marchMonth0 * 306 + 5) / 10 + 1;
+        long year = yearEst + marchMonth0 / 10;
+
+        appendPadded(sb, (int) year, 4);
+        sb.append('-');
+        appendPadded(sb, month, 2);
+        sb.append('-');
+        appendPadded(sb, day, 2);
+    }
+
+    /**
+     * Append a second of day the way LocalTime.toString does:
+     * HH:mm, followed by :ss only when the seconds are not zero.
+     */
+    public static void appendTime(StringBuilder sb, int secondOfDay) {
+        appendPadded(sb, secondOfDay / 3600, 2);
+        sb.append(':');
+        appendPadded(sb, secondOfDay / 60 % 60, 2);
+        int second = secondOfDay % 60;
+        if (second > 0) {
+            sb.append(':');
+            appendPadded(sb, second, 2);
+        }
+    }
+
+    // ------------------- Helpers -------------------
+
+    static int epochDay(int year, int month, int day) {
+        // days since 1970-01-01, same arithmetic as LocalDate.toEpochDay for years >= 0
+        long total = 365L * year;
+        total += (year + 3) / 4 - (year + 99) / 100 + (year + 399) / 400;
+        total += (367L * month - 362) / 12;
+        total += day - 1;
+        if (month > 2) {
+            total--;
+            if (!isLeapYear(year)) {
+                total--;
+            }
+        }
+        return (int) (total - DAYS_0000_TO_1970);
+    }
+
+    static boolean isLeapYear(int year) {
+        return (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    static int monthLength(int year, int month) {
+        return switch (month) {
+            case 2 -> isLeapYear(year) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int digits(byte[] buf, int start, int count) {
+        // parse 'count' ASCII digits, or return -1 if any byte is not a digit
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                return -1;
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    private static void appendPadded(StringBuilder sb, int value, int width) {
+        // append a non-negative number left-padded with zeros
+        int digits = value < 10 ? 1 : value < 100 ? 2 : value < 1000 ? 3 : 4;
+        for (int i = digits; i < width; i++) {
+            sb.append('0');
+        }
+        sb.append(value);
+    }
+
+    private static DateTimeParseException dateError(byte[] buf, int start, int end) {
+        String text = text(buf, start, end);
+        return new DateTimeParseException("Text '" + text + "' could not be parsed as a date", text, 0);
+        // only builds a String on the error path
+    }
+
+    private static DateTimeParseException timeError(byte[] buf, int start, int end) {
+        String text = text(buf, start, end);
+        return new DateTimeParseException("Text '" + text + "' could not be parsed as a time", text, 0);
+    }
+
+    private static NumberFormatException amountError(byte[] buf, int start, int end) {
+        return new NumberFormatException("For input string: \"" + text(buf, start, end) + "\"");
+    }
+
+    private static String text(byte[] buf, int start, int end) {
+        return new String(buf, start, end - start, StandardCharsets.UTF_8);
+    }
+}
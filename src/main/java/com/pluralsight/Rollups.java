@@ -0,0 +1,178 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.time.LocalDate;
+// import LocalDate to convert epoch days to months and years
+
+import java.util.Arrays;
+// import Arrays to grow the totals arrays
+
+/*
+ Daily, monthly and yearly rollups
+ ------------------------------------------------
+ Keeps running deposit/payment totals and counts per day, per month
+ and per year. Built once at load and updated in O(1) per append,
+ so report summaries never rescan the transactions.
+ A date range is summed from whole years, whole months and the
+ leftover days at its edges.
+*/
+public class Rollups {
+
+    // ------------------- Totals -------------------
+
+    /**
+     * Totals for one period or range. Amounts are in cents.
+     */
+    public static class Totals {
+        public long depositCents;
+        // sum of positive amounts
+
+        public long paymentCents;
+        // sum of negative amounts (a negative number)
+
+        public int depositCount;
+        // number of deposits
+
+        public int paymentCount;
+        // number of payments
+
+        public long netCents() { return depositCents + paymentCents; }
+        // returns deposits plus payments
+
+        public int count() { return depositCount + paymentCount; }
+        // returns the number of transactions
+
+        void add(long depositCents, long paymentCents, int depositCount, int paymentCount) {
+            this.depositCents += depositCents;
+            this.paymentCents += paymentCents;
+            this.depositCount += depositCount;
+            this.paymentCount += paymentCount;
+        }
+    }
+
+    // ------------------- Storage -------------------
+
+    private final Table days = new Table();
+    // epoch day -> totals
+
+    private final Table months = new Table();
+    // year * 12 + month - 1 -> totals
+
+    private final Table years = new Table();
+    // year -> totals
+
+    private int cachedDay = Integer.MIN_VALUE;
+    private int cachedMonth;
+    private int cachedYear;
+    // calendar fields of the last day seen, rows usually arrive day by day
+
+    // ------------------- Building -------------------
+
+    /**
+     * Rebuild every rollup from the store.
+     */
+    public void rebuild(TransactionStore store) {
+        days.clear();
+        months.clear();
+        years.clear();
+        for (int row = 0; row < store.size(); row++) {
+            add(store.epochDay(row), store.cents(row));
+        }
+    }
+
+    /**
+     * Add one transaction to its day, month and year. O(1).
+     */
+    public void add(int epochDay, long cents) {
+        if (epochDay != cachedDay) {
+            LocalDate date = LocalDate.ofEpochDay(epochDay);
+            cachedDay = epochDay;
+            cachedMonth = date.getYear() * 12 + date.getMonthValue() - 1;
+            cachedYear = date.getYear();
+        }
+        days.add(epochDay, cents);
+        months.add(cachedMonth, cents);
+        years.add(cachedYear, cents);
+    }
+
+    // ------------------- Queries -------------------
+
+    /**
+     * Totals for every transaction dated between start and end inclusive.
+     */
+    public Totals totalsBetween(LocalDate start, LocalDate end) {
+        Totals totals = new Totals();
+        LocalDate date = start;
+        while (!date.isAfter(end)) {
+            LocalDate monthEnd = date.withDayOfMonth(date.lengthOfMonth());
+            LocalDate yearEnd = date.withDayOfYear(date.lengthOfYear());
+
+            if (date.getDayOfYear() == 1 && !yearEnd.isAfter(end)) {
+                years.addTo(totals, date.getYear());
+                date = yearEnd.plusDays(1);
+                // whole year
+            } else if (date.getDayOfMonth() == 1 && !monthEnd.isAfter(end)) {
+                months.addTo(totals, date.getYear() * 12 + date.getMonthValue() - 1);
+                date = monthEnd.plusDays(1);
+                // whole month
+            } else {
+                days.addTo(totals, (int) date.toEpochDay());
+                date = date.plusDays(1);
+                // single day at the edge of the range
+            }
+        }
+        return totals;
+    }
+
+    // ------------------- Totals table -------------------
+
+    private static class Table {
+        // int key -> totals, stored in parallel arrays
+
+        private LongIntMap slots = new LongIntMap();
+        private long[] depositCents = new long[16];
+        private long[] paymentCents = new long[16];
+        private int[] depositCounts = new int[16];
+        private int[] paymentCounts = new int[16];
+        private int size;
+
+        void add(int key, long cents) {
+            int slot = slots.get(key, -1);
+            if (slot < 0) {
+                slot = size++;
+                slots.put(key, slot);
+                if (slot == depositCents.length) {
+                    int capacity = slot * 2;
+                    depositCents = Arrays.copyOf(depositCents, capacity);
+                    paymentCents = Arrays.copyOf(paymentCents, capacity);
+                    depositCounts = Arrays.copyOf(depositCounts, capacity);
+                    paymentCounts = Arrays.copyOf(paymentCounts, capacity);
+                }
+            }
+            if (cents > 0) {
+                depositCents[slot] += cents;
+                depositCounts[slot]++;
+            } else if (cents < 0) {
+                paymentCents[slot] += cents;
+                paymentCounts[slot]++;
+            }
+            // zero amounts are neither deposits nor payments, same as the ledger views
+        }
+
+        void addTo(Totals totals, int key) {
+            int slot = slots.get(key, -1);
+            if (slot >= 0) {
+                totals.add(depositCents[slot], paymentCents[slot], depositCounts[slot], paymentCounts[slot]);
+            }
+        }
+
+        void clear() {
+            slots = new LongIntMap();
+            size = 0;
+            Arrays.fill(depositCents, 0);
+            Arrays.fill(paymentCents, 0);
+            Arrays.fill(depositCounts, 0);
+            Arrays.fill(paymentCounts, 0);
+        }
+    }
+}
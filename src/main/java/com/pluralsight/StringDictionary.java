@@ -0,0 +1,227 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to convert between Strings and UTF-8 bytes
+
+import java.util.Arrays;
+// import Arrays to grow the backing arrays
+
+import java.util.BitSet;
+// import BitSet to mark text that was not valid UTF-8
+
+import java.util.HashMap;
+// import HashMap for the raw bytes of that text
+
+import java.util.Map;
+// import Map for the raw bytes of that text
+
+/*
+ String dictionary
+ ------------------------------------------------
+ Maps each distinct string (vendor or description) to a small int id.
+ The column store keeps only the ids, so a vendor that appears on a
+ million rows is stored once. Lookups can be made straight from the
+ UTF-8 bytes of a line, so a String is only created the first time
+ a value is seen.
+ Each value is kept once, as a String: byte lookups compare the bytes
+ with the String's characters as they go, without encoding it. Only
+ text that was not valid UTF-8 (decoded with replacement characters)
+ also keeps its raw bytes, so the same bytes find the same id again.
+*/
+public class StringDictionary {
+
+    // ------------------- Storage -------------------
+
+    private String[] values = new String[16];
+    // id -> string
+
+    private int[] hashes = new int[16];
+    // id -> hash of the UTF-8 bytes
+
+    private int[] table = new int[32];
+    // open-addressing hash table holding id + 1 (0 means empty slot)
+
+    private int size;
+    // number of distinct strings
+
+    private final BitSet malformed = new BitSet();
+    // ids whose text was not valid UTF-8
+
+    private final Map<Integer, byte[]> rawBytes = new HashMap<>();
+    // id -> original bytes, for those ids only
+
+    // ------------------- Lookups -------------------
+
+    /**
+     * Return the id of the given string, adding it if it is new.
+     */
+    public int idOf(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return idOf(bytes, 0, bytes.length, value);
+    }
+
+    /**
+     * Return the id of the UTF-8 text in buf[start, end), adding it if it is new.
+     * No String is created when the text is already in the dictionary.
+     */
+    public int idOf(byte[] buf, int start, int end) {
+        return idOf(buf, start, end, null);
+    }
+
+    /**
+     * Return the id of a string without adding it, or -1 if it is unknown.
+     */
+    public int find(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes, 0, bytes.length);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(id, bytes, 0, bytes.length)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    public String get(int id) { return values[id]; }
+    // returns the string stored under an id
+
+    /**
+     * UTF-8 bytes of a string, encoded on each call (the original bytes for text that was not valid UTF-8).
+     */
+    public byte[] bytes(int id) {
+        return malformed.get(id) ? rawBytes.get(id).clone() : values[id].getBytes(StandardCharsets.UTF_8);
+    }
+
+    public int size() { return size; }
+    // returns the number of distinct strings
+
+    /**
+     * Remove every string. Ids start again from 0.
+     */
+    public void clear() {
+        Arrays.fill(values, 0, size, null);
+        Arrays.fill(table, 0);
+        malformed.clear();
+        rawBytes.clear();
+        size = 0;
+    }
+
+    // ------------------- Internals -------------------
+
+    private int idOf(byte[] buf, int start, int end, String value) {
+        int hash = hash(buf, start, end);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+
+        while (table[slot] != 0) {
+            int id = table[slot] - 1;
+            if (hashes[id] == hash && matches(id, buf, start, end)) {
+                return id;
+                // already known, nothing allocated
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        if (size == values.length) {
+            values = Arrays.copyOf(values, size * 2);
+            hashes = Arrays.copyOf(hashes, size * 2);
+        }
+
+        int id = size++;
+        values[id] = value != null ? value : new String(buf, start, end - start, StandardCharsets.UTF_8);
+        hashes[id] = hash;
+        if (value == null && !sameText(values[id], buf, start, end)) {
+            malformed.set(id);
+            rawBytes.put(id, Arrays.copyOfRange(buf, start, end));
+            // decoding replaced bad bytes, so the String alone can't match them again
+        }
+        table[slot] = id + 1;
+
+        if (size * 2 > table.length) {
+            rehash();
+            // keep the table at most half full
+        }
+        return id;
+    }
+
+    private void rehash() {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < size; id++) {
+            int slot = hashes[id] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = id + 1;
+        }
+    }
+
+    private static int hash(byte[] buf, int start, int end) {
+        int h = 1;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + buf[i];
+        }
+        return h ^ (h >>> 16);
+        // spread high bits into the low bits used by the mask
+    }
+
+    private boolean matches(int id, byte[] buf, int start, int end) {
+        if (malformed.get(id)) {
+            byte[] raw = rawBytes.get(id);
+            return Arrays.equals(raw, 0, raw.length, buf, start, end);
+        }
+        return sameText(values[id], buf, start, end);
+    }
+
+    /**
+     * True when buf[start, end) is exactly the UTF-8 encoding of the string,
+     * as String.getBytes would write it (an unpaired surrogate becomes '?').
+     */
+    static boolean sameText(String value, byte[] buf, int start, int end) {
+        int length = value.length();
+        int i = start;
+        for (int c = 0; c < length; c++) {
+            char ch = value.charAt(c);
+            if (ch < 0x80) {
+                if (i >= end || buf[i] != ch) {
+                    return false;
+                }
+                i++;
+                continue;
+                // ASCII, the common case
+            }
+
+            int codePoint = ch;
+            if (Character.isHighSurrogate(ch) && c + 1 < length && Character.isLowSurrogate(value.charAt(c + 1))) {
+                codePoint = Character.toCodePoint(ch, value.charAt(++c));
+            } else if (Character.isSurrogate(ch)) {
+                codePoint = '?';
+            }
+
+            int count = codePoint < 0x80 ? 1 : codePoint < 0x800 ? 2 : codePoint < 0x10000 ? 3 : 4;
+            if (end - i < count) {
+                return false;
+            }
+            if (count == 1) {
+                if (buf[i] != codePoint) {
+                    return false;
+                }
+            } else {
+                int lead = count == 2 ? 0xC0 : count == 3 ? 0xE0 : 0xF0;
+                if ((buf[i] & 0xFF) != (lead | codePoint >> (6 * (count - 1)))) {
+                    return false;
+                }
+                for (int k = 1; k < count; k++) {
+                    if ((buf[i + k] & 0xFF) != (0x80 | (codePoint >> (6 * (count - 1 - k)) & 0x3F))) {
+                        return false;
+                    }
+                }
+            }
+            i += count;
+        }
+        return i == end;
+    }
+}
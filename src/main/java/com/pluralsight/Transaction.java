@@ -69,8 +69,9 @@ public class Transaction {
 
     public String toCSVLine() {
         // converts this Transaction object into string for writing to CSV
+        // uses the getters so flyweight views over the column store work too
 
-        return date + "|" + time + "|" + description + "|" + vendor + "|" + amount;
+        return getDate() + "|" + getTime() + "|" + getDescription() + "|" + getVendor() + "|" + getAmount();
         //  example for output "2025-10-17|14:30:00|Salary|Company|500.00"
     }
 }
\ No newline at end of file
@@ -0,0 +1,246 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.io.IOException;
+// import IOException for file access errors
+
+import java.nio.ByteBuffer;
+// import ByteBuffer for small positional reads while looking for line ends
+
+import java.nio.MappedByteBuffer;
+// import MappedByteBuffer to read file chunks straight from the page cache
+
+import java.nio.channels.FileChannel;
+// import FileChannel to memory-map the transactions file
+
+import java.nio.file.Path;
+// import Path to locate the file to load
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to open the file read-only
+
+import java.util.ArrayList;
+// import ArrayList to collect chunk boundaries and results
+
+import java.util.List;
+// import List to hold one result per chunk
+
+import java.util.concurrent.ForkJoinPool;
+// import ForkJoinPool to parse chunks on every core
+
+import java.util.concurrent.RecursiveAction;
+// import RecursiveAction for the divide-and-conquer parse task
+
+/*
+ Parallel CSV loader
+ ------------------------------------------------
+ Memory-maps the transactions file, cuts it into newline-aligned chunks
+ and parses the chunks in parallel on the common fork-join pool.
+ Each chunk is decoded into its own small TransactionStore, and the
+ chunk stores are merged into the target store in file order.
+ A line with a bad date, time or amount is skipped on its own, the
+ same as in LedgerCursor, so it never costs the rest of the file.
+*/
+public class TransactionLoader {
+
+    // ------------------- Settings -------------------
+
+    private static final int CHUNK_SIZE = 4 * 1024 * 1024;
+    // target size of one chunk in bytes (a chunk always ends on a line break)
+
+    private static final int SCAN_SIZE = 4096;
+    // number of bytes read at a time while searching for the next line break
+
+    private TransactionLoader() {
+        // utility class, no instances
+    }
+
+    // ------------------- Public API -------------------
+
+    /**
+     * Load every well-formed line of the given file into a new store.
+     */
+    public static TransactionStore load(Path path) throws IOException {
+        TransactionStore store = new TransactionStore();
+        loadInto(path, store);
+        return store;
+    }
+
+    /**
+     * Append every well-formed line of the given file to the store.
+     * Lines that do not have exactly 5 pipe-separated fields are skipped,
+     * the same rule loadTransactions has always used, and so are lines
+     * whose date, time or amount can't be parsed.
+     * Returns the number of bytes read, i.e. the file size.
+     */
+    public static long loadInto(Path path, TransactionStore store) throws IOException {
+        return loadInto(path, store, 0);
+    }
+
+    /**
+     * Append the well-formed lines that start at or after byte 'fromOffset'
+     * (which must be the start of a line) and return the file size.
+     * Used to replay only the lines written after a snapshot.
+     */
+    public static long loadInto(Path path, TransactionStore store, long fromOffset) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long[] bounds = chunkBounds(channel, fromOffset);
+            // start offsets of each chunk, plus the file size as the last entry
+
+            int chunkCount = bounds.length - 1;
+            List<TransactionStore> results = new ArrayList<>(chunkCount);
+            for (int i = 0; i < chunkCount; i++) {
+                results.add(null);
+                // one slot per chunk so results stay in file order
+            }
+
+            ForkJoinPool.commonPool().invoke(new ParseTask(channel, bounds, results, 0, chunkCount));
+            // parse all chunks in parallel
+
+            for (TransactionStore part : results) {
+                store.addAll(part);
+                // merge chunk results in file order
+            }
+            return bounds[bounds.length - 1];
+        }
+    }
+
+    // ------------------- Chunking -------------------
+
+    /**
+     * Split the file into chunks of roughly CHUNK_SIZE bytes.
+     * Every boundary is moved forward to just after a line break
+     * so that no line is ever split between two chunks.
+     */
+    private static long[] chunkBounds(FileChannel channel, long fromOffset) throws IOException {
+        long size = channel.size();
+        List<Long> bounds = new ArrayList<>();
+        long position = Math.min(fromOffset, size);
+        bounds.add(position);
+
+        while (position + CHUNK_SIZE < size) {
+            long next = nextLineStart(channel, position + CHUNK_SIZE, size);
+            // move tentative boundary to the start of the next line
+
+            if (next >= size) {
+                break;
+                // the last line runs to the end of the file
+            }
+            bounds.add(next);
+            position = next;
+        }
+        bounds.add(size);
+
+        long[] result = new long[bounds.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = bounds.get(i);
+        }
+        return result;
+    }
+
+    private static long nextLineStart(FileChannel channel, long from, long size) throws IOException {
+        // return the offset right after the first '\n' at or after 'from'
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        long position = from;
+
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+        return size;
+    }
+
+    // ------------------- Parsing -------------------
+
+    /**
+     * Parse one chunk of the file into its own column store.
+     */
+    private static TransactionStore parseChunk(FileChannel channel, long start, long end) throws IOException {
+        int length = (int) (end - start);
+        MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, start, length);
+        // map just this chunk of the file
+
+        byte[] bytes = new byte[length];
+        mapped.get(bytes);
+        // bulk copy the chunk out of the mapping
+
+        TransactionStore parsed = new TransactionStore(length / 48 + 1);
+        // rough guess of one transaction per 48 bytes
+
+        RecordDecoder decoder = new RecordDecoder();
+        // one decoder per chunk, reused for every line
+
+        int lineStart = 0;
+        for (int i = 0; i <= length; i++) {
+            if (i == length || bytes[i] == '\n') {
+                int lineEnd = i;
+                if (lineEnd > lineStart && bytes[lineEnd - 1] == '\r') {
+                    lineEnd--;
+                    // drop the '\r' of Windows line endings like Scanner does
+                }
+                try {
+                    if (decoder.decode(bytes, lineStart, lineEnd)) {
+                        parsed.add(decoder, bytes);
+                        // skip lines that do not have exactly 5 fields
+                    }
+                } catch (RuntimeException e) {
+                    // bad date, time or amount: skip the line and keep the rest of the chunk
+                }
+                lineStart = i + 1;
+            }
+        }
+        return parsed;
+    }
+
+    // ------------------- Fork-join task -------------------
+
+    private static class ParseTask extends RecursiveAction {
+        // parses chunks [from, to) and stores each result in its own slot
+
+        private static final long serialVersionUID = 1L;
+        // fork-join tasks are Serializable; never actually serialized
+
+        private final FileChannel channel;
+        private final long[] bounds;
+        private final List<TransactionStore> results;
+        private final int from;
+        private final int to;
+
+        ParseTask(FileChannel channel, long[] bounds, List<TransactionStore> results, int from, int to) {
+            this.channel = channel;
+            this.bounds = bounds;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from == 1) {
+                try {
+                    results.set(from, parseChunk(channel, bounds[from], bounds[from + 1]));
+                    // leaf task: parse a single chunk
+                } catch (IOException e) {
+                    throw new RuntimeException(e.getMessage(), e);
+                }
+                return;
+            }
+            if (to - from < 1) {
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new ParseTask(channel, bounds, results, from, middle),
+                    new ParseTask(channel, bounds, results, middle, to));
+            // split the chunk range in half and parse both halves in parallel
+        }
+    }
+}
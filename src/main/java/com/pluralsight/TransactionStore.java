@@ -0,0 +1,244 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.math.BigDecimal;
+// import BigDecimal to round amounts to cents like the CSV decoder
+
+import java.math.RoundingMode;
+// import RoundingMode for half-up rounding
+
+import java.util.Arrays;
+// import Arrays to grow the column arrays
+
+import java.util.Iterator;
+// import Iterator so the store can be used in for-each loops
+
+import java.util.NoSuchElementException;
+// import exception thrown when an iterator runs past the end
+
+/*
+ Columnar transaction store
+ ------------------------------------------------
+ Holds every transaction as one entry in a set of primitive arrays
+ instead of one Transaction object per row:
+   epoch day (int), second of day (int), amount in cents (long),
+   vendor id (int) and description id (int).
+ Vendor and description text is kept once per distinct value in a
+ StringDictionary. Rows are read through TransactionView, a flyweight
+ that looks like a normal Transaction.
+*/
+public class TransactionStore implements Iterable<Transaction> {
+
+    // ------------------- Columns -------------------
+
+    private int[] epochDays;
+    // date of each row as days since 1970-01-01
+
+    private int[] secondsOfDay;
+    // time of each row as seconds since midnight
+
+    private long[] cents;
+    // amount of each row in cents. Positive for deposits, negative for payments
+
+    private int[] vendorIds;
+    // vendor of each row as an id in the vendor dictionary
+
+    private int[] descriptionIds;
+    // description of each row as an id in the description dictionary
+
+    private int size;
+    // number of rows stored
+
+    private final StringDictionary vendors = new StringDictionary();
+    // distinct vendor names
+
+    private final StringDictionary descriptions = new StringDictionary();
+    // distinct descriptions
+
+    public TransactionStore() {
+        this(1024);
+    }
+
+    public TransactionStore(int capacity) {
+        // create an empty store with room for 'capacity' rows
+        capacity = Math.max(capacity, 16);
+        epochDays = new int[capacity];
+        secondsOfDay = new int[capacity];
+        cents = new long[capacity];
+        vendorIds = new int[capacity];
+        descriptionIds = new int[capacity];
+    }
+
+    // ------------------- Adding Rows -------------------
+
+    /**
+     * Add a transaction and return its row number.
+     * Throws NumberFormatException for an amount that is not a finite number, and
+     * ArithmeticException for one too large for a long number of cents.
+     */
+    public int add(Transaction t) {
+        return add((int) t.getDate().toEpochDay(), t.getTime().toSecondOfDay(),
+                toCents(t.getAmount()), t.getDescription(), t.getVendor());
+    }
+
+    /**
+     * Cents of an amount, rounded half-up from its decimal text the way RecordDecoder.parseCents
+     * reads it back from the CSV, so 10.005 is 1001 cents in memory and after a restart.
+     */
+    static long toCents(double amount) {
+        return BigDecimal.valueOf(amount).setScale(2, RoundingMode.HALF_UP).movePointRight(2).longValueExact();
+    }
+
+    /**
+     * Add a row from already decoded fields and return its row number.
+     */
+    public int add(int epochDay, int secondOfDay, long amountCents, String description, String vendor) {
+        return addIds(epochDay, secondOfDay, amountCents, descriptions.idOf(description), vendors.idOf(vendor));
+    }
+
+    /**
+     * Add a row straight from a decoded line. Description and vendor are looked up
+     * by their bytes, so no String is created for values already in the dictionaries.
+     */
+    public int add(RecordDecoder decoder, byte[] buf) {
+        int descriptionId = descriptions.idOf(buf, decoder.getDescriptionStart(), decoder.getDescriptionEnd());
+        int vendorId = vendors.idOf(buf, decoder.getVendorStart(), decoder.getVendorEnd());
+        return addIds(decoder.getEpochDay(), decoder.getSecondOfDay(), decoder.getCents(), descriptionId, vendorId);
+    }
+
+    /**
+     * Append every row of another store, in order, translating its dictionary ids to ours.
+     * Used to merge the per-chunk stores built by the parallel loader.
+     */
+    public void addAll(TransactionStore other) {
+        int[] vendorMap = remap(other.vendors, vendors);
+        int[] descriptionMap = remap(other.descriptions, descriptions);
+
+        ensureCapacity(size + other.size);
+        System.arraycopy(other.epochDays, 0, epochDays, size, other.size);
+        System.arraycopy(other.secondsOfDay, 0, secondsOfDay, size, other.size);
+        System.arraycopy(other.cents, 0, cents, size, other.size);
+        for (int i = 0; i < other.size; i++) {
+            vendorIds[size + i] = vendorMap[other.vendorIds[i]];
+            descriptionIds[size + i] = descriptionMap[other.descriptionIds[i]];
+        }
+        size += other.size;
+    }
+
+    /**
+     * Add a row whose vendor and description are already ids in this store's dictionaries.
+     */
+    int addIds(int epochDay, int secondOfDay, long amountCents, int descriptionId, int vendorId) {
+        ensureCapacity(size + 1);
+        epochDays[size] = epochDay;
+        secondsOfDay[size] = secondOfDay;
+        cents[size] = amountCents;
+        descriptionIds[size] = descriptionId;
+        vendorIds[size] = vendorId;
+        return size++;
+    }
+
+    /**
+     * Remove every row and every dictionary entry.
+     */
+    public void clear() {
+        size = 0;
+        vendors.clear();
+        descriptions.clear();
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= epochDays.length) {
+            return;
+        }
+        int capacity = Math.max(needed, epochDays.length + (epochDays.length >> 1));
+        // grow by 50% like ArrayList
+
+        epochDays = Arrays.copyOf(epochDays, capacity);
+        secondsOfDay = Arrays.copyOf(secondsOfDay, capacity);
+        cents = Arrays.copyOf(cents, capacity);
+        vendorIds = Arrays.copyOf(vendorIds, capacity);
+        descriptionIds = Arrays.copyOf(descriptionIds, capacity);
+    }
+
+    private static int[] remap(StringDictionary from, StringDictionary to) {
+        // map every id of 'from' to the id of the same string in 'to'
+        int[] map = new int[from.size()];
+        for (int id = 0; id < map.length; id++) {
+            map[id] = to.idOf(from.get(id));
+        }
+        return map;
+    }
+
+    // ------------------- Column Access -------------------
+
+    public int size() { return size; }
+    // returns the number of rows
+
+    public int epochDay(int row) { return epochDays[row]; }
+    // returns the date of a row as an epoch day
+
+    public int secondOfDay(int row) { return secondsOfDay[row]; }
+    // returns the time of a row as a second of day
+
+    public long cents(int row) { return cents[row]; }
+    // returns the amount of a row in cents
+
+    public int vendorId(int row) { return vendorIds[row]; }
+    // returns the vendor dictionary id of a row
+
+    public int descriptionId(int row) { return descriptionIds[row]; }
+    // returns the description dictionary id of a row
+
+    public String vendor(int row) { return vendors.get(vendorIds[row]); }
+    // returns the vendor name of a row
+
+    public String description(int row) { return descriptions.get(descriptionIds[row]); }
+    // returns the description of a row
+
+    public StringDictionary getVendors() { return vendors; }
+    // returns the vendor dictionary
+
+    public StringDictionary getDescriptions() { return descriptions; }
+    // returns the description dictionary
+
+    // ------------------- Transaction Views -------------------
+
+    /**
+     * Return a view of one row. The view is small and safe to keep.
+     */
+    public Transaction get(int row) {
+        if (row < 0 || row >= size) {
+            throw new IndexOutOfBoundsException("Row " + row + " of " + size);
+        }
+        return new TransactionView(this, row);
+    }
+
+    /**
+     * Iterate over all rows in insertion order.
+     * The same flyweight view is moved from row to row, so callers
+     * must not keep the Transaction returned by next(); use get(row) for that.
+     */
+    @Override
+    public Iterator<Transaction> iterator() {
+        TransactionView view = new TransactionView(this, -1);
+        int end = size;
+        return new Iterator<>() {
+            private int row = 0;
+
+            @Override
+            public boolean hasNext() {
+                return row < end;
+            }
+
+            @Override
+            public Transaction next() {
+                if (row >= end) {
+                    throw new NoSuchElementException();
+                }
+                view.moveTo(row++);
+                return view;
+            }
+        };
+    }
+}
@@ -0,0 +1,62 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.time.LocalDate;
+// imports LocalDate to return the date of the row
+
+import java.time.LocalTime;
+// imports LocalTime to return the time of the row
+
+/*
+ Flyweight transaction view
+ ------------------------------------------------
+ A Transaction that holds no data of its own, only a store and a row
+ number. Getters read the row's columns on demand, so existing code
+ written against Transaction keeps working on the column store.
+*/
+public class TransactionView extends Transaction {
+
+    private final TransactionStore store;
+    // the store the row lives in
+
+    private int row;
+    // the row this view currently points at
+
+    public TransactionView(TransactionStore store, int row) {
+        super(null, null, null, null, 0);
+        // the parent fields stay unused, every getter is overridden
+
+        this.store = store;
+        this.row = row;
+    }
+
+    // ------------------- Positioning -------------------
+
+    public void moveTo(int row) { this.row = row; }
+    // point this view at another row
+
+    public int getRow() { return row; }
+    // returns the row this view points at
+
+    // ------------------- Getter Methods -------------------
+
+    @Override
+    public LocalDate getDate() { return LocalDate.ofEpochDay(store.epochDay(row)); }
+    // returns the date of the row
+
+    @Override
+    public LocalTime getTime() { return LocalTime.ofSecondOfDay(store.secondOfDay(row)); }
+    // returns the time of the row
+
+    @Override
+    public String getDescription() { return store.description(row); }
+    // returns the description of the row
+
+    @Override
+    public String getVendor() { return store.vendor(row); }
+    // returns the vendor of the row
+
+    @Override
+    public double getAmount() { return store.cents(row) / 100.0; }
+    // returns the amount of the row
+}
@@ -0,0 +1,107 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.util.Arrays;
+// import Arrays to grow the vendor id mapping
+
+/*
+ Case-insensitive vendor index
+ ------------------------------------------------
+ Maps each case-folded vendor name to the list of rows with that
+ vendor, so "walmart", "Walmart" and "WALMART" share one posting list.
+ Lookups cost O(matches) instead of an equalsIgnoreCase on every row.
+*/
+public class VendorIndex {
+
+    private final StringDictionary foldedNames = new StringDictionary();
+    // distinct case-folded vendor names
+
+    private int[] foldedIdByVendorId = new int[16];
+    // vendor dictionary id -> folded name id (-1 when not seen yet)
+
+    private final PostingLists postings = new PostingLists();
+    // folded name id -> rows
+
+    public VendorIndex() {
+        Arrays.fill(foldedIdByVendorId, -1);
+    }
+
+    // ------------------- Building -------------------
+
+    /**
+     * Rebuild the index from every row of the store.
+     */
+    public void rebuild(TransactionStore store) {
+        postings.clear();
+        for (int row = 0; row < store.size(); row++) {
+            add(store, row);
+        }
+    }
+
+    /**
+     * Add one row of the store to the index.
+     */
+    public void add(TransactionStore store, int row) {
+        postings.add(foldedId(store, store.vendorId(row)), row);
+    }
+
+    // ------------------- Queries -------------------
+
+    /**
+     * Rows whose vendor equals the given name, ignoring case, in row order.
+     */
+    public int[] rows(String vendor) {
+        return postings.rows(foldedNames.find(fold(vendor)));
+    }
+
+    /**
+     * Number of rows whose vendor equals the given name, ignoring case.
+     */
+    public int count(String vendor) {
+        return postings.count(foldedNames.find(fold(vendor)));
+    }
+
+    /**
+     * True if the given row's vendor equals the name with folded id 'foldedId'.
+     * Used to filter a date slice without comparing strings.
+     */
+    public boolean matches(TransactionStore store, int row, int foldedId) {
+        int vendorId = store.vendorId(row);
+        return vendorId < foldedIdByVendorId.length && foldedIdByVendorId[vendorId] == foldedId;
+    }
+
+    /**
+     * Folded id of a vendor name, or -1 if no row has that vendor.
+     */
+    public int findFoldedId(String vendor) {
+        return foldedNames.find(fold(vendor));
+    }
+
+    /**
+     * Case-fold a name the same way String.equalsIgnoreCase compares characters.
+     */
+    public static String fold(String name) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = Character.toLowerCase(Character.toUpperCase(chars[i]));
+        }
+        return new String(chars);
+    }
+
+    // ------------------- Helpers -------------------
+
+    private int foldedId(TransactionStore store, int vendorId) {
+        // folded id of a vendor dictionary id, computed once per distinct vendor
+        if (vendorId >= foldedIdByVendorId.length) {
+            int oldLength = foldedIdByVendorId.length;
+            foldedIdByVendorId = Arrays.copyOf(foldedIdByVendorId, Math.max(vendorId + 1, oldLength * 2));
+            Arrays.fill(foldedIdByVendorId, oldLength, foldedIdByVendorId.length, -1);
+        }
+        int id = foldedIdByVendorId[vendorId];
+        if (id < 0) {
+            id = foldedNames.idOf(fold(store.getVendors().get(vendorId)));
+            foldedIdByVendorId[vendorId] = id;
+        }
+        return id;
+    }
+}
@@ -0,0 +1,93 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import java.lang.reflect.Method;
+// import Method to reach the virtual thread API when the JDK has it
+
+import java.util.concurrent.ExecutorService;
+// import ExecutorService for the per-task executor
+
+import java.util.concurrent.Executors;
+// import Executors for the thread pool fallback
+
+import java.util.concurrent.ThreadFactory;
+// import ThreadFactory to create pipeline and server threads
+
+import java.util.concurrent.atomic.AtomicInteger;
+// import AtomicInteger to number platform threads
+
+/*
+ Virtual thread factory
+ ------------------------------------------------
+ The project compiles for Java 17, which has no virtual threads.
+ On a Java 21+ runtime this factory creates virtual threads through
+ reflection; on older runtimes it falls back to daemon platform
+ threads, so the same code runs everywhere.
+*/
+public class VirtualThreads {
+
+    private static final Method OF_VIRTUAL = findOfVirtual();
+    // Thread.ofVirtual(), or null before Java 21
+
+    private VirtualThreads() {
+        // utility class, no instances
+    }
+
+    /**
+     * True when the runtime supports virtual threads.
+     */
+    public static boolean available() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Factory for threads named 'name-0', 'name-1', ...
+     * Virtual when available, daemon platform threads otherwise.
+     */
+    public static ThreadFactory factory(String name) {
+        if (OF_VIRTUAL != null) {
+            try {
+                Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+                // call through the public interface, the builder class itself is internal
+                Object builder = OF_VIRTUAL.invoke(null);
+                builder = builderType.getMethod("name", String.class, long.class).invoke(builder, name + "-", 0L);
+                return (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // fall through to platform threads
+            }
+        }
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, name + "-" + counter.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    /**
+     * Executor that runs every task on its own new virtual thread (Java 21+),
+     * or on a cached pool of daemon platform threads on older runtimes.
+     */
+    public static ExecutorService perTaskExecutor(String name) {
+        ThreadFactory factory = factory(name);
+        if (OF_VIRTUAL != null) {
+            try {
+                Method perTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+                return (ExecutorService) perTask.invoke(null, factory);
+            } catch (ReflectiveOperationException | RuntimeException e) {
+                // fall through to a pool
+            }
+        }
+        return Executors.newCachedThreadPool(factory);
+        // platform threads are too costly to create per task, so reuse them
+    }
+
+    private static Method findOfVirtual() {
+        try {
+            return Thread.class.getMethod("ofVirtual");
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return null;
+            // Java 17-20
+        }
+    }
+}
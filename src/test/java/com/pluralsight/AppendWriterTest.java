@@ -0,0 +1,127 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import org.junit.jupiter.api.io.TempDir;
+// import TempDir for a scratch directory per test
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to write and read the test files
+
+import java.nio.file.Files;
+// import Files to write and read the test files
+
+import java.nio.file.Path;
+// import Path to locate the test files
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to add to a file the way a crashed writer would
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare file contents
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+// import assertFalse to check no .partial file was made
+
+/*
+ Append writer crash repair tests
+ ------------------------------------------------
+ The writer ends every line it writes with a line break, so a file
+ whose last line has none was cut off by a crash. repairTail must move
+ that line to transactions.csv.partial, even when what is left of it
+ still looks like a valid record, and leave whole lines alone.
+*/
+class AppendWriterTest {
+
+    private static final String WHOLE = "2023-01-01|10:00:00|Coffee|Cafe|-3.50\n";
+    // a line that was written completely
+
+    @TempDir
+    Path dir;
+    // scratch directory, deleted after each test
+
+    @Test
+    void tornTailThatStillDecodesIsMovedAside() throws IOException {
+        Path file = write(WHOLE + "2023-01-02|11:30:00|Pay|Employer|150");
+        // "1500.0" cut to "150": decodes, but to the wrong amount
+
+        AppendWriter.repairTail(file);
+
+        assertEquals(WHOLE, read(file));
+        assertEquals("2023-01-02|11:30:00|Pay|Employer|150\n", read(partial(file)));
+        assertEquals(1, TransactionLoader.load(file).size());
+    }
+
+    @Test
+    void tornTailThatDoesNotDecodeIsMovedAside() throws IOException {
+        Path file = write(WHOLE + "2023-01-0");
+
+        AppendWriter.repairTail(file);
+
+        assertEquals(WHOLE, read(file));
+        assertEquals("2023-01-0\n", read(partial(file)));
+    }
+
+    @Test
+    void fileWithOnlyATornLineEndsUpEmpty() throws IOException {
+        Path file = write("2023-01-02|11:30:00|Pay|Employer|1500.0");
+
+        AppendWriter.repairTail(file);
+
+        assertEquals("", read(file));
+        assertEquals("2023-01-02|11:30:00|Pay|Employer|1500.0\n", read(partial(file)));
+    }
+
+    @Test
+    void repeatedRepairsKeepOneLinePerTornRecord() throws IOException {
+        Path file = write(WHOLE + "2023-01-02|11:3");
+        AppendWriter.repairTail(file);
+        Files.writeString(file, "2023-01-03|09:00", StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+        AppendWriter.repairTail(file);
+
+        assertEquals(WHOLE, read(file));
+        assertEquals("2023-01-02|11:3\n2023-01-03|09:00\n", read(partial(file)));
+    }
+
+    @Test
+    void wholeLinesAreLeftAlone() throws IOException {
+        Path file = write(WHOLE + "2023-01-02|11:30:00|Pay|Employer|1500.0\r\n");
+
+        AppendWriter.repairTail(file);
+
+        assertEquals(WHOLE + "2023-01-02|11:30:00|Pay|Employer|1500.0\r\n", read(file));
+        assertFalse(Files.exists(partial(file)));
+    }
+
+    @Test
+    void writerAppendsAfterTheRepairedTail() throws IOException {
+        Path file = write(WHOLE + "2023-01-02|11:30:00|Pay|Employer|150");
+
+        try (AppendWriter writer = new AppendWriter(file, AppendWriter.Durability.FLUSH, 1, 0)) {
+            writer.append("2023-01-04|08:00:00|Tea|Cafe|-2.00");
+        }
+
+        assertEquals(WHOLE + "2023-01-04|08:00:00|Tea|Cafe|-2.00\n", read(file));
+    }
+
+    // ------------------- Helpers -------------------
+
+    private Path write(String text) throws IOException {
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String read(Path file) throws IOException {
+        return Files.readString(file, StandardCharsets.UTF_8);
+    }
+
+    private static Path partial(Path file) {
+        return file.resolveSibling(file.getFileName() + ".partial");
+    }
+}
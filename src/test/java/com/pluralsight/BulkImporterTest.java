@@ -0,0 +1,163 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import org.junit.jupiter.api.Timeout;
+// import Timeout so a hanging import fails the test instead of the build
+
+import org.junit.jupiter.api.io.TempDir;
+// import TempDir for a scratch directory per test
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to write the test files
+
+import java.nio.file.Files;
+// import Files to write the test files
+
+import java.nio.file.Path;
+// import Path to locate the test files
+
+import java.time.LocalDate;
+// import LocalDate to generate rows
+
+import java.time.LocalTime;
+// import LocalTime for the rows already in the ledger
+
+import java.util.ArrayList;
+// import ArrayList for the rows expected to be imported
+
+import java.util.HashSet;
+// import HashSet for the brute-force duplicate check
+
+import java.util.List;
+// import List for the rows expected to be imported
+
+import java.util.Locale;
+// import Locale so amounts always use a '.' decimal point
+
+import java.util.Random;
+// import Random to generate rows that repeat
+
+import java.util.Set;
+// import Set for the brute-force duplicate check
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare results
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+// import assertThrows to check the sink error reaches the caller
+
+/*
+ Bulk importer tests
+ ------------------------------------------------
+ The import file is large enough for many 1 MB blocks, so the queues
+ between the stages fill up and blocks finish out of order.
+*/
+class BulkImporterTest {
+
+    private static final int ROWS = 400_000;
+    // about 20 MB, far more blocks than the queues hold
+
+    @TempDir
+    Path dir;
+    // scratch directory, deleted after each test
+
+    @Test
+    @Timeout(60)
+    void failingSinkEndsTheImport() throws IOException {
+        Path file = write();
+        LineSink failing = new LineSink() {
+            private int calls;
+
+            @Override
+            public void appendLines(CharSequence lines, int count) throws IOException {
+                if (++calls == 3) {
+                    throw new IOException("disk full");
+                }
+            }
+        };
+        BulkImporter importer = new BulkImporter(new Ledger(), failing, 4);
+
+        IOException e = assertThrows(IOException.class, () -> importer.importFile(file));
+        assertEquals("disk full", e.getMessage());
+    }
+
+    @Test
+    @Timeout(60)
+    void rowsArriveInFileOrder() throws IOException, InterruptedException {
+        Path file = write();
+        Ledger ledger = new Ledger();
+        BulkImporter importer = new BulkImporter(ledger, null, 4);
+
+        BulkImporter.Result result = importer.importFile(file);
+
+        assertEquals(ROWS, result.imported);
+        TransactionStore store = ledger.getStore();
+        for (int row = 0; row < ROWS; row++) {
+            assertEquals("Item " + row, store.description(row), "row " + row);
+        }
+    }
+
+    @Test
+    @Timeout(60)
+    void duplicatesMatchABruteForceCheck() throws IOException, InterruptedException {
+        Random random = new Random(13);
+        String[] vendors = {"Cafe", "cafe", "Market"};
+        Ledger ledger = new Ledger();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < 200; i++) {
+            Transaction t = new Transaction(LocalDate.of(2024, 1, 1 + random.nextInt(5)), LocalTime.of(9 + random.nextInt(3), 0),
+                    "Old " + i, vendors[random.nextInt(vendors.length)], -1 - random.nextInt(5));
+            ledger.append(t);
+            seen.add(t.getDate() + "|" + t.getTime() + "|" + t.getVendor() + "|" + t.getAmount());
+        }
+        // a small space of dates, times, vendors and amounts, so rows repeat often
+
+        StringBuilder csv = new StringBuilder();
+        List<String> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            LocalDate date = LocalDate.of(2024, 1, 1 + random.nextInt(6));
+            String time = String.format(Locale.ROOT, "%02d:00:00", 9 + random.nextInt(3));
+            String vendor = vendors[random.nextInt(vendors.length)];
+            double amount = -1 - random.nextInt(6);
+            csv.append(date).append('|').append(time).append("|New ").append(i).append('|').append(vendor).append('|')
+                    .append(String.format(Locale.ROOT, "%.2f", amount)).append('\n');
+            if (seen.add(date + "|" + time.substring(0, 5) + "|" + vendor + "|" + amount)) {
+                expected.add("New " + i);
+            }
+            // same date, time, vendor and amount as an earlier row is a duplicate, the description does not count
+        }
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        BulkImporter.Result result = new BulkImporter(ledger, null, 2).importFile(file);
+
+        assertEquals(expected.size(), result.imported);
+        assertEquals(2000 - expected.size(), result.duplicates);
+        List<String> actual = new ArrayList<>();
+        for (int row = 200; row < ledger.getStore().size(); row++) {
+            actual.add(ledger.getStore().description(row));
+        }
+        assertEquals(expected, actual);
+    }
+
+    // ------------------- Helpers -------------------
+
+    private Path write() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        for (int row = 0; row < ROWS; row++) {
+            csv.append(date.plusDays(row / 100)).append("|12:00:00|Item ").append(row).append("|Vendor")
+                    .append(row % 50).append('|').append(String.format(Locale.ROOT, "%.2f", -1 - row % 997 / 100.0))
+                    .append('\n');
+        }
+        Path file = dir.resolve("statement.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file;
+    }
+}
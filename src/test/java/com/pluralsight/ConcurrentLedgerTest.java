@@ -0,0 +1,72 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.util.ArrayList;
+// import ArrayList for the appender threads
+
+import java.util.List;
+// import List for the appender threads and their failures
+
+import java.util.concurrent.CopyOnWriteArrayList;
+// import CopyOnWriteArrayList to collect failures from several threads
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare row counts
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+// import assertTrue to check no thread saw stale data
+
+/*
+ Concurrent ledger tests
+ ------------------------------------------------
+ More appender threads than stripes, so threads share stripes and one
+ thread's read() can run while another is publishing their stripe.
+ Every thread must still see each of its own rows as soon as it reads.
+*/
+class ConcurrentLedgerTest {
+
+    private static final int THREADS = 8;
+    // appender threads, four per stripe
+
+    private static final int ROWS_PER_THREAD = 3000;
+    // several full batches per stripe
+
+    @Test
+    void everyThreadReadsItsOwnWrites() throws InterruptedException {
+        ConcurrentLedger ledger = new ConcurrentLedger(new Ledger(), 2);
+        List<String> failures = new CopyOnWriteArrayList<>();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            String vendor = "Vendor" + i;
+            threads.add(new Thread(() -> {
+                for (int n = 1; n <= ROWS_PER_THREAD; n++) {
+                    ledger.append(new Transaction(LocalDate.of(2024, 1, 1), LocalTime.NOON, "Item", vendor, -1.0));
+                    int seen = ledger.read(l -> l.rowsForVendor(vendor).length);
+                    if (seen != n) {
+                        failures.add(vendor + " wrote " + n + " rows but read " + seen);
+                        return;
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.isEmpty(), failures.toString());
+        assertEquals(THREADS * ROWS_PER_THREAD, ledger.size());
+    }
+}
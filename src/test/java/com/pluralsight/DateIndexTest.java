@@ -0,0 +1,183 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions
+
+import java.time.LocalDateTime;
+// import LocalDateTime for the balance moments
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.util.Random;
+// import Random to generate rows in no particular order
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare against a brute-force answer
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+// import assertTrue to check the index order
+
+/*
+ Date index and balance tests
+ ------------------------------------------------
+ Rows arrive in random date order, one at a time (DateIndex.add) and in
+ batches (DateIndex.addAll), so most land before rows already in the
+ index. Every answer (report ranges and balances) is compared with a
+ plain scan of the store.
+*/
+class DateIndexTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2024, 1, 1);
+    // first date of the generated rows
+
+    private static final int DAYS = 60;
+    // generated rows fall on this many days
+
+    @Test
+    void backDatedRowGoesBeforeLaterRows() {
+        TransactionStore store = new TransactionStore();
+        DateIndex index = new DateIndex();
+        add(store, index, LocalDate.of(2024, 3, 1), LocalTime.NOON);
+        add(store, index, LocalDate.of(2024, 3, 5), LocalTime.NOON);
+        add(store, index, LocalDate.of(2024, 3, 1), LocalTime.NOON);
+        add(store, index, LocalDate.of(2024, 2, 1), LocalTime.MIDNIGHT);
+
+        assertEquals(3, index.rowAt(0));
+        assertEquals(0, index.rowAt(1));
+        assertEquals(2, index.rowAt(2));
+        // equal timestamps keep row order
+        assertEquals(1, index.rowAt(3));
+    }
+
+    @Test
+    void addAllMergesBelowExistingPositions() {
+        Random random = new Random(7);
+        Ledger ledger = new Ledger();
+        for (int i = 0; i < 500; i++) {
+            ledger.append(transaction(random, 30, DAYS));
+            // later half of the range first
+        }
+        TransactionStore batch = new TransactionStore();
+        for (int i = 0; i < 500; i++) {
+            batch.add(transaction(random, 0, DAYS));
+            // spread over the whole range, so most land below existing rows
+        }
+        ledger.appendAll(batch);
+
+        assertSorted(ledger);
+        assertEquals(ledger.getStore().size(), ledger.getDateIndex().size());
+        for (int day = 0; day < DAYS; day++) {
+            int epochDay = (int) FIRST.plusDays(day).toEpochDay();
+            assertEquals(countBetween(ledger.getStore(), epochDay, epochDay + 6),
+                    ledger.getDateIndex().countBetween(epochDay, epochDay + 6), "week from day " + day);
+        }
+    }
+
+    @Test
+    void rowsBetweenMatchesBruteForce() {
+        Random random = new Random(3);
+        Ledger ledger = new Ledger();
+        for (int i = 0; i < 3000; i++) {
+            ledger.append(transaction(random, 0, DAYS));
+        }
+        TransactionStore store = ledger.getStore();
+
+        for (int i = 0; i < 200; i++) {
+            int startDay = (int) FIRST.toEpochDay() - 2 + random.nextInt(DAYS + 4);
+            int endDay = startDay - 1 + random.nextInt(20);
+            // includes empty ranges and ranges past either end
+            int[] rows = ledger.rowsBetween(startDay, endDay);
+
+            assertEquals(countBetween(store, startDay, endDay), rows.length, "days " + startDay + ".." + endDay);
+            for (int j = 0; j < rows.length; j++) {
+                assertTrue(store.epochDay(rows[j]) >= startDay && store.epochDay(rows[j]) <= endDay);
+                if (j > 0) {
+                    long previousKey = DateIndex.key(store.epochDay(rows[j - 1]), store.secondOfDay(rows[j - 1]));
+                    long key = DateIndex.key(store.epochDay(rows[j]), store.secondOfDay(rows[j]));
+                    assertTrue(previousKey < key || previousKey == key && rows[j - 1] < rows[j],
+                            "date order, then row order");
+                }
+            }
+        }
+    }
+
+    @Test
+    void balanceAtMatchesBruteForce() {
+        Random random = new Random(11);
+        Ledger ledger = new Ledger();
+        for (int i = 0; i < 2000; i++) {
+            if (i % 200 == 199) {
+                TransactionStore batch = new TransactionStore();
+                for (int j = 0; j < 50; j++) {
+                    batch.add(transaction(random, 0, DAYS));
+                }
+                ledger.appendAll(batch);
+            } else {
+                ledger.append(transaction(random, 0, DAYS));
+            }
+        }
+
+        for (int i = 0; i < 300; i++) {
+            LocalDateTime moment = FIRST.minusDays(1).plusDays(random.nextInt(DAYS + 2)).atStartOfDay()
+                    .plusSeconds(random.nextInt(86_400));
+            assertEquals(bruteForce(ledger.getStore(), moment), ledger.balanceAt(moment), moment.toString());
+        }
+        LocalDateTime exact = LocalDateTime.of(LocalDate.ofEpochDay(ledger.getStore().epochDay(5)),
+                LocalTime.ofSecondOfDay(ledger.getStore().secondOfDay(5)));
+        assertEquals(bruteForce(ledger.getStore(), exact), ledger.balanceAt(exact), "moment of a row");
+        // rows dated exactly at the moment are included
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static void add(TransactionStore store, DateIndex index, LocalDate date, LocalTime time) {
+        int row = store.add(new Transaction(date, time, "Item", "Vendor", -1.0));
+        index.add(row, store.epochDay(row), store.secondOfDay(row));
+    }
+
+    private static Transaction transaction(Random random, int fromDay, int toDay) {
+        LocalDate date = FIRST.plusDays(fromDay + random.nextInt(toDay - fromDay));
+        LocalTime time = LocalTime.ofSecondOfDay(random.nextInt(24) * 3600L);
+        // whole hours, so many rows share a timestamp
+        double amount = (random.nextInt(20_001) - 10_000) / 100.0;
+        return new Transaction(date, time, "Item", "Vendor" + random.nextInt(5), amount);
+    }
+
+    private static void assertSorted(Ledger ledger) {
+        TransactionStore store = ledger.getStore();
+        DateIndex index = ledger.getDateIndex();
+        for (int position = 1; position < index.size(); position++) {
+            int before = index.rowAt(position - 1);
+            int row = index.rowAt(position);
+            long previousKey = DateIndex.key(store.epochDay(before), store.secondOfDay(before));
+            long key = DateIndex.key(store.epochDay(row), store.secondOfDay(row));
+            assertTrue(previousKey <= key, "position " + position + " out of order");
+        }
+    }
+
+    private static int countBetween(TransactionStore store, int startDay, int endDay) {
+        int count = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (store.epochDay(row) >= startDay && store.epochDay(row) <= endDay) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long bruteForce(TransactionStore store, LocalDateTime moment) {
+        long key = DateIndex.key((int) moment.toLocalDate().toEpochDay(), moment.toLocalTime().toSecondOfDay());
+        long cents = 0;
+        for (int row = 0; row < store.size(); row++) {
+            if (DateIndex.key(store.epochDay(row), store.secondOfDay(row)) <= key) {
+                cents += store.cents(row);
+            }
+        }
+        return cents;
+    }
+}
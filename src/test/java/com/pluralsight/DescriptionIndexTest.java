@@ -0,0 +1,92 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.util.Random;
+// import Random to build descriptions
+
+import java.util.stream.IntStream;
+// import IntStream for the brute-force scan
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+// import assertArrayEquals to compare row lists
+
+/*
+ Description index tests
+ ------------------------------------------------
+ Descriptions are built from a few words, so grams repeat across many
+ descriptions. The exact index, a bounded one large enough to keep
+ every list, and a bounded one so small that most buckets are dropped
+ must all return the rows a lowercase contains() scan finds.
+*/
+class DescriptionIndexTest {
+
+    private static final String[] WORDS = {
+            "Coffee", "coffee beans", "Groceries", "GROCERY run", "Rent", "Café", "Crème brûlée",
+            "Dinner with friends", "gas", "Gas station", "Invoice 1001", "invoice 1002", "Straße"
+    };
+    // mixed case, repeated grams and non-ASCII text
+
+    private static final String[] KEYWORDS = {
+            "coffee", "COFFEE", "ee", "e", "", "gro", "grocer", "run", "café", "CAFÉ", "rème",
+            "invoice 100", "1002", "with friends", "xyz", "straße", "offee bea", "s"
+    };
+    // long and short keywords, ones that match nothing and ones spanning words
+
+    @Test
+    void exactIndexMatchesScan() {
+        check(new DescriptionIndex());
+    }
+
+    @Test
+    void boundedIndexMatchesScan() {
+        check(DescriptionIndex.bounded());
+    }
+
+    @Test
+    void saturatedBoundedIndexMatchesScan() {
+        check(new DescriptionIndex(true, 4, 3));
+        // four buckets of three descriptions: nearly every bucket is dropped
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static void check(DescriptionIndex built) {
+        Random random = new Random(13);
+        TransactionStore store = new TransactionStore();
+        for (int i = 0; i < 1500; i++) {
+            store.add(transaction(random));
+        }
+        built.rebuild(store);
+        for (int i = 0; i < 1500; i++) {
+            int row = store.add(transaction(random));
+            built.add(store, row);
+            // half the rows arrive after the rebuild, with some new descriptions
+        }
+
+        for (String keyword : KEYWORDS) {
+            assertArrayEquals(bruteForce(store, keyword), built.rows(keyword), keyword);
+        }
+    }
+
+    private static Transaction transaction(Random random) {
+        String description = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)]
+                + (random.nextInt(4) == 0 ? " #" + random.nextInt(300) : "");
+        return new Transaction(LocalDate.of(2024, 1, 1), LocalTime.NOON, description, "Vendor", -1.0);
+    }
+
+    private static int[] bruteForce(TransactionStore store, String keyword) {
+        String needle = keyword.toLowerCase();
+        return IntStream.range(0, store.size())
+                .filter(row -> store.description(row).toLowerCase().contains(needle))
+                .toArray();
+    }
+}
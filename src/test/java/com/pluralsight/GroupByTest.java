@@ -0,0 +1,176 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.BeforeAll;
+// import BeforeAll to build the ledger once for every test
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions and ranges
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.time.YearMonth;
+// import YearMonth to group the brute-force sums by month
+
+import java.util.HashMap;
+// import HashMap for the brute-force sums
+
+import java.util.List;
+// import List for the report groups and keywords
+
+import java.util.Map;
+// import Map for the brute-force sums
+
+import java.util.Random;
+// import Random to generate rows
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare totals
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+// import assertTrue to check the report order
+
+/*
+ Group-by tests
+ ------------------------------------------------
+ The ledger has enough rows to be split into several fork-join tasks.
+ Vendor names differ only in case, deposits are mixed in, and rows
+ arrive in random date order. Every report, for a narrow range (read
+ through the date index) and a wide one (read by scanning the columns),
+ must match sums computed row by row.
+*/
+class GroupByTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2023, 1, 1);
+    // first date of the generated rows
+
+    private static final int DAYS = 730;
+    // generated rows fall on two years of days
+
+    private static final String[] VENDORS = {"Amazon", "AMAZON", "Cafe", "cafe", "Rent Co", "Gas", "Market"};
+    // spellings that differ only in case count as one vendor
+
+    private static final String[] DESCRIPTIONS = {"Coffee", "coffee beans", "Rent", "Groceries", "Gas refill", "Gift"};
+    // descriptions for the keyword report
+
+    private static Ledger ledger;
+    // shared by every test, never changed after it is built
+
+    @BeforeAll
+    static void buildLedger() {
+        Random random = new Random(23);
+        TransactionStore rows = new TransactionStore();
+        for (int i = 0; i < 300_000; i++) {
+            LocalDate date = FIRST.plusDays(random.nextInt(DAYS));
+            double amount = (random.nextInt(40_001) - 30_000) / 100.0;
+            rows.add(new Transaction(date, LocalTime.NOON, DESCRIPTIONS[random.nextInt(DESCRIPTIONS.length)],
+                    VENDORS[random.nextInt(VENDORS.length)], amount));
+        }
+        ledger = new Ledger();
+        ledger.appendAll(rows);
+    }
+
+    @Test
+    void topVendorsMatchSums() {
+        checkTopVendors(null, null);
+        checkTopVendors(LocalDate.of(2023, 3, 10), LocalDate.of(2023, 4, 2));
+        checkTopVendors(LocalDate.of(2023, 2, 1), LocalDate.of(2024, 10, 31));
+    }
+
+    @Test
+    void monthlyByVendorMatchesSums() {
+        checkMonthly(LocalDate.of(2023, 5, 20), LocalDate.of(2023, 7, 10));
+        checkMonthly(null, null);
+    }
+
+    @Test
+    void byKeywordMatchesSums() {
+        List<String> keywords = List.of("coffee", "RENT", "g", "beans", "nothing");
+        for (LocalDate[] range : new LocalDate[][]{{null, null}, {LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)}}) {
+            List<GroupBy.Group> groups = new GroupBy(ledger).byKeyword(keywords, range[0], range[1]);
+            assertEquals(keywords.size(), groups.size());
+            for (int k = 0; k < keywords.size(); k++) {
+                String needle = keywords.get(k).toLowerCase();
+                long[] expected = new long[2];
+                forEachPayment(range[0], range[1], (row, spent) -> {
+                    if (ledger.getStore().description(row).toLowerCase().contains(needle)) {
+                        expected[0]++;
+                        expected[1] += spent;
+                    }
+                });
+                assertEquals(keywords.get(k), groups.get(k).key);
+                assertEquals(expected[0], groups.get(k).count, keywords.get(k) + " count");
+                assertEquals(expected[1], groups.get(k).cents, keywords.get(k) + " cents");
+            }
+        }
+    }
+
+    // ------------------- Helpers -------------------
+
+    private interface PaymentVisitor {
+        // receives each payment in a range and the amount spent, as a positive number
+        void visit(int row, long spent);
+    }
+
+    private static void forEachPayment(LocalDate start, LocalDate end, PaymentVisitor visitor) {
+        TransactionStore store = ledger.getStore();
+        for (int row = 0; row < store.size(); row++) {
+            LocalDate date = LocalDate.ofEpochDay(store.epochDay(row));
+            boolean inRange = (start == null || !date.isBefore(start)) && (end == null || !date.isAfter(end));
+            if (inRange && store.cents(row) < 0) {
+                visitor.visit(row, -store.cents(row));
+            }
+        }
+    }
+
+    private static void checkTopVendors(LocalDate start, LocalDate end) {
+        Map<String, long[]> expected = new HashMap<>();
+        forEachPayment(start, end, (row, spent) -> {
+            long[] sum = expected.computeIfAbsent(VendorIndex.fold(ledger.getStore().vendor(row)), key -> new long[2]);
+            sum[0]++;
+            sum[1] += spent;
+        });
+
+        List<GroupBy.Group> groups = new GroupBy(ledger).topVendors(start, end, Integer.MAX_VALUE);
+        assertEquals(expected.size(), groups.size(), "vendors from " + start + " to " + end);
+        for (int i = 0; i < groups.size(); i++) {
+            GroupBy.Group group = groups.get(i);
+            long[] sum = expected.get(VendorIndex.fold(group.key));
+            assertEquals(sum[0], group.count, group.key + " count");
+            assertEquals(sum[1], group.cents, group.key + " cents");
+            assertTrue(i == 0 || groups.get(i - 1).cents >= group.cents, "highest spending first");
+        }
+        assertEquals(groups.get(1).key, new GroupBy(ledger).topVendors(start, end, 2).get(1).key);
+        // a limit keeps the top of the same order
+    }
+
+    private static void checkMonthly(LocalDate start, LocalDate end) {
+        Map<String, long[]> expected = new HashMap<>();
+        forEachPayment(start, end, (row, spent) -> {
+            TransactionStore store = ledger.getStore();
+            String key = YearMonth.from(LocalDate.ofEpochDay(store.epochDay(row))) + "|"
+                    + VendorIndex.fold(store.vendor(row));
+            long[] sum = expected.computeIfAbsent(key, k -> new long[2]);
+            sum[0]++;
+            sum[1] += spent;
+        });
+
+        List<GroupBy.Group> groups = new GroupBy(ledger).monthlyByVendor(start, end);
+        assertEquals(expected.size(), groups.size(), "groups from " + start + " to " + end);
+        for (int i = 0; i < groups.size(); i++) {
+            GroupBy.Group group = groups.get(i);
+            long[] sum = expected.get(group.month + "|" + VendorIndex.fold(group.key));
+            assertEquals(sum[0], group.count, group.month + " " + group.key + " count");
+            assertEquals(sum[1], group.cents, group.month + " " + group.key + " cents");
+            if (i > 0) {
+                GroupBy.Group previous = groups.get(i - 1);
+                int order = previous.month.compareTo(group.month);
+                assertTrue(order < 0 || order == 0 && previous.cents >= group.cents, "by month, then spending");
+            }
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import org.junit.jupiter.api.io.TempDir;
+// import TempDir for a scratch directory per test
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.ByteBuffer;
+// import ByteBuffer to hand blocks to the follower the way the writer does
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to write the test files
+
+import java.nio.file.Files;
+// import Files to append, move and truncate the test file
+
+import java.nio.file.Path;
+// import Path to locate the test files
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to append the way another program would
+
+import java.util.ArrayList;
+// import ArrayList to record what the listener received
+
+import java.util.List;
+// import List to record what the listener received
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare received rows
+
+/*
+ Ledger follower tests
+ ------------------------------------------------
+ poll() is called directly instead of starting the watch thread, so
+ each step sees exactly the bytes written before it. The listener
+ records every row and byte count it receives and every rotation.
+*/
+class LedgerFollowerTest {
+
+    private static final String FIRST = "2024-01-01|10:00:00|Coffee|Cafe|-3.5\n";
+    private static final String SECOND = "2024-01-02|11:00:00|Pay|Employer|1500.0\n";
+    private static final String THIRD = "2024-01-03|12:00:00|Tea|Cafe|-2.0\n";
+    // complete lines, as another program would append them
+
+    @TempDir
+    Path dir;
+    // scratch directory, deleted after each test
+
+    @Test
+    void readsOnlyBytesAfterTheOffset() throws IOException {
+        Path file = write(FIRST + SECOND);
+        Recorder recorder = new Recorder();
+        try (LedgerFollower follower = new LedgerFollower(file, FIRST.length(), recorder)) {
+            follower.poll();
+            assertEquals(List.of("Pay"), recorder.descriptions);
+            assertEquals(SECOND.length(), recorder.bytes);
+
+            follower.poll();
+            assertEquals(List.of("Pay"), recorder.descriptions);
+            // nothing new
+        }
+    }
+
+    @Test
+    void waitsForTheEndOfAPartialLine() throws IOException {
+        Path file = write(FIRST);
+        Recorder recorder = new Recorder();
+        try (LedgerFollower follower = new LedgerFollower(file, FIRST.length(), recorder)) {
+            append(file, THIRD.substring(0, 20));
+            follower.poll();
+            assertEquals(List.of(), recorder.descriptions);
+
+            append(file, THIRD.substring(20));
+            follower.poll();
+            assertEquals(List.of("Tea"), recorder.descriptions);
+            assertEquals(THIRD.length(), recorder.bytes);
+        }
+    }
+
+    @Test
+    void skipsLinesOurWriterWrote() throws IOException {
+        Path file = write(FIRST);
+        Recorder recorder = new Recorder();
+        try (LedgerFollower follower = new LedgerFollower(file, FIRST.length(), recorder);
+             AppendWriter writer = new AppendWriter(file, AppendWriter.Durability.FLUSH, 1, 0)) {
+            writer.setWriteListener(follower);
+            writer.append(SECOND.substring(0, SECOND.length() - 1));
+            append(file, THIRD);
+            writer.append(SECOND.substring(0, SECOND.length() - 1));
+            // ours, theirs, ours again
+
+            follower.poll();
+            assertEquals(List.of("Tea"), recorder.descriptions);
+            assertEquals(THIRD.length(), recorder.bytes);
+        }
+    }
+
+    @Test
+    void failedWriteIsNotSkippedLater() throws IOException {
+        Path file = write(FIRST);
+        Recorder recorder = new Recorder();
+        try (LedgerFollower follower = new LedgerFollower(file, FIRST.length(), recorder)) {
+            follower.beforeWrite(bytes(SECOND));
+            follower.writeFailed(0);
+            // nothing of our block reached the file
+            append(file, SECOND);
+            follower.beforeWrite(bytes(THIRD));
+            append(file, THIRD);
+            // the same line from another program, then ours
+
+            follower.beforeWrite(bytes(SECOND + THIRD));
+            append(file, SECOND + THIRD.substring(0, 5));
+            follower.writeFailed(SECOND.length() + 5);
+            // our first line was written, the second was cut off
+            append(file, "\n" + THIRD);
+            // another program ends the cut-off line and adds its own
+
+            follower.poll();
+            assertEquals(List.of("Pay", "Tea"), recorder.descriptions);
+        }
+    }
+
+    @Test
+    void rotatedFileIsFinishedThenFollowedFromItsStart() throws IOException {
+        Path file = write(FIRST);
+        Recorder recorder = new Recorder();
+        try (LedgerFollower follower = new LedgerFollower(file, FIRST.length(), recorder)) {
+            append(file, SECOND);
+            Files.move(file, dir.resolve("transactions.csv.1"));
+            Files.writeString(file, THIRD, StandardCharsets.UTF_8);
+
+            follower.poll();
+            assertEquals(List.of("Pay", "rotated", "Tea"), recorder.events);
+        }
+    }
+
+    @Test
+    void truncatedFileIsFollowedFromItsStart() throws IOException {
+        Path file = write(FIRST + SECOND);
+        Recorder recorder = new Recorder();
+        try (LedgerFollower follower = new LedgerFollower(file, FIRST.length() + SECOND.length(), recorder)) {
+            Files.writeString(file, THIRD, StandardCharsets.UTF_8, StandardOpenOption.TRUNCATE_EXISTING);
+
+            follower.poll();
+            assertEquals(List.of("rotated", "Tea"), recorder.events);
+        }
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static class Recorder implements LedgerFollower.Listener {
+        // remembers everything the follower reported
+
+        final List<String> descriptions = new ArrayList<>();
+        // descriptions of the rows received
+
+        final List<String> events = new ArrayList<>();
+        // rows and rotations, in the order they arrived
+
+        long bytes;
+        // bytes reported for the rows
+
+        @Override
+        public void rows(TransactionStore rows, long bytes) {
+            for (Transaction t : rows) {
+                descriptions.add(t.getDescription());
+                events.add(t.getDescription());
+            }
+            this.bytes += bytes;
+        }
+
+        @Override
+        public void rotated() {
+            events.add("rotated");
+        }
+    }
+
+    private Path write(String text) throws IOException {
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, text, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static ByteBuffer bytes(String text) {
+        return ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void append(Path file, String text) throws IOException {
+        Files.writeString(file, text, StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+    }
+}
@@ -0,0 +1,175 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import org.junit.jupiter.api.io.TempDir;
+// import TempDir for a scratch directory per test
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to write the test files
+
+import java.nio.file.Files;
+// import Files to write and inspect the test files
+
+import java.nio.file.Path;
+// import Path to locate the test files
+
+import java.time.LocalDate;
+// import LocalDate to generate rows and ranges
+
+import java.time.LocalTime;
+// import LocalTime for the appended transaction
+
+import java.util.ArrayList;
+// import ArrayList to collect rows as text
+
+import java.util.Collections;
+// import Collections to sort rows before comparing
+
+import java.util.List;
+// import List for rows as text
+
+import java.util.Locale;
+// import Locale so amounts always use a '.' decimal point
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare rows
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+// import assertFalse to check the temporary directory is gone
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+// import assertTrue to check files exist
+
+/*
+ Ledger partition tests
+ ------------------------------------------------
+ A single transactions.csv over several months is migrated into
+ monthly segments. Loading one month, a date range or everything must
+ give exactly the rows a plain parse of the original file has for those
+ dates, and nothing is lost across a reopen or a crashed migration.
+*/
+class LedgerPartitionsTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2023, 11, 20);
+    // first date of the generated rows, so the data crosses a year
+
+    private static final int ROWS = 3000;
+    // rows in the original file, about five months
+
+    @TempDir
+    Path dir;
+    // scratch directory, deleted after each test
+
+    @Test
+    void loadingAMonthLoadsOnlyThatMonth() throws IOException {
+        Path csv = write();
+        Ledger ledger = new Ledger();
+        try (LedgerPartitions partitions = open(csv, ledger)) {
+            assertTrue(Files.exists(dir.resolve("transactions").resolve("rejected.csv")));
+            // the line without a date is kept aside
+
+            LocalDate start = LocalDate.of(2024, 1, 1);
+            LocalDate end = LocalDate.of(2024, 1, 31);
+            partitions.loadFor(Query.between(start, end));
+            assertEquals(expected(csv, start, end), actual(ledger));
+
+            partitions.loadFor(Query.between(LocalDate.of(2023, 12, 15), LocalDate.of(2024, 1, 10)));
+            assertEquals(expected(csv, LocalDate.of(2023, 12, 1), end), actual(ledger));
+            // December is added once, January is not loaded twice
+        }
+    }
+
+    @Test
+    void loadAllMatchesTheOriginalFile() throws IOException {
+        Path csv = write();
+        Ledger ledger = new Ledger();
+        try (LedgerPartitions partitions = open(csv, ledger)) {
+            partitions.loadAll();
+            assertEquals(expected(csv, LocalDate.MIN, LocalDate.MAX), actual(ledger));
+        }
+    }
+
+    @Test
+    void reopenKeepsAppendedRows() throws IOException {
+        Path csv = write();
+        Transaction late = new Transaction(LocalDate.of(2024, 2, 10), LocalTime.NOON, "Late entry", "Other", -4.5);
+        try (LedgerPartitions partitions = open(csv, new Ledger())) {
+            partitions.appendToLedger(late);
+            partitions.append(late);
+        }
+
+        Ledger ledger = new Ledger();
+        try (LedgerPartitions partitions = open(csv, ledger)) {
+            partitions.loadAll();
+        }
+        List<String> expected = expected(csv, LocalDate.MIN, LocalDate.MAX);
+        expected.add(late.toCSVLine());
+        Collections.sort(expected);
+        assertEquals(expected, actual(ledger));
+    }
+
+    @Test
+    void crashedMigrationStartsOver() throws IOException {
+        Path csv = write();
+        Path leftover = dir.resolve("transactions.migrating");
+        Files.createDirectories(leftover);
+        Files.writeString(leftover.resolve("2023-11.csv"), "2023-11-20|10:00:00|Half|Written|-1.0\n",
+                StandardCharsets.UTF_8);
+        // what a migration that crashed part way leaves behind
+
+        Ledger ledger = new Ledger();
+        try (LedgerPartitions partitions = open(csv, ledger)) {
+            partitions.loadAll();
+        }
+        assertFalse(Files.exists(leftover));
+        assertEquals(expected(csv, LocalDate.MIN, LocalDate.MAX), actual(ledger));
+    }
+
+    // ------------------- Helpers -------------------
+
+    private Path write() throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int row = 0; row < ROWS; row++) {
+            csv.append(FIRST.plusDays(row / 20)).append("|12:00:00|Item ").append(row).append("|Vendor")
+                    .append(row % 7).append('|').append(String.format(Locale.ROOT, "%.2f", (row % 501 - 250) / 10.0))
+                    .append('\n');
+        }
+        csv.append("not a date|12:00:00|Broken|Nobody|1.00\n");
+        csv.append("2024-02-30|12:00:00|Leap day typo|Vendor1|-2.00\n");
+        // the loader reads February 30th as March 1st, the segment must agree
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static LedgerPartitions open(Path csv, Ledger ledger) throws IOException {
+        return LedgerPartitions.open(csv, ledger, AppendWriter.Durability.FLUSH, 1, 0);
+    }
+
+    private static List<String> expected(Path csv, LocalDate start, LocalDate end) throws IOException {
+        // rows of a plain parse of the original file dated between start and end, sorted
+        List<String> lines = new ArrayList<>();
+        for (Transaction t : TransactionLoader.load(csv)) {
+            if (!t.getDate().isBefore(start) && !t.getDate().isAfter(end)) {
+                lines.add(t.toCSVLine());
+            }
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+
+    private static List<String> actual(Ledger ledger) {
+        List<String> lines = new ArrayList<>();
+        for (Transaction t : ledger.getStore()) {
+            lines.add(t.toCSVLine());
+        }
+        Collections.sort(lines);
+        return lines;
+    }
+}
@@ -0,0 +1,162 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import org.junit.jupiter.api.io.TempDir;
+// import TempDir for a scratch directory per test
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to write the test files
+
+import java.nio.file.Files;
+// import Files to write and damage the test files
+
+import java.nio.file.Path;
+// import Path to locate the test files
+
+import java.nio.file.StandardOpenOption;
+// import StandardOpenOption to append the way another program would
+
+import java.time.LocalDate;
+// import LocalDate to generate rows
+
+import java.util.Arrays;
+// import Arrays to cut the snapshot short
+
+import java.util.Locale;
+// import Locale so amounts always use a '.' decimal point
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare stores
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+// import assertTrue to check a snapshot was used
+
+/*
+ Ledger snapshot tests
+ ------------------------------------------------
+ A ledger loaded through the snapshot must hold exactly the rows of a
+ plain CSV parse: right after saving, after lines were appended, and
+ after the CSV was edited or the snapshot damaged, when the snapshot
+ has to be ignored. The CSV is larger than the fingerprint blocks, so
+ edits in the middle fall outside both of them.
+*/
+class LedgerSnapshotTest {
+
+    private static final int ROWS = 20_000;
+    // about 1 MB of CSV
+
+    @TempDir
+    Path dir;
+    // scratch directory, deleted after each test
+
+    @Test
+    void roundTripKeepsEveryRow() throws IOException {
+        Path csv = write(ROWS);
+        saveSnapshot(csv);
+
+        TransactionStore store = new TransactionStore();
+        long covered = LedgerSnapshot.load(csv, store);
+
+        assertEquals(Files.size(csv), covered);
+        assertSameRows(TransactionLoader.load(csv), store);
+    }
+
+    @Test
+    void appendedLinesAreParsedAfterTheSnapshot() throws IOException {
+        Path csv = write(ROWS);
+        saveSnapshot(csv);
+        long saved = Files.size(csv);
+        Files.writeString(csv, "2030-01-01|08:00:00|Late entry|Other|-1.25\n", StandardCharsets.UTF_8,
+                StandardOpenOption.APPEND);
+
+        TransactionStore store = new TransactionStore();
+        assertEquals(saved, LedgerSnapshot.load(csv, store));
+        // the snapshot is still used for what it covers
+
+        Ledger ledger = new Ledger();
+        ledger.load(csv);
+        assertSameRows(TransactionLoader.load(csv), ledger.getStore());
+    }
+
+    @Test
+    void lineEditedInTheMiddleIsNoticed() throws IOException {
+        Path csv = write(ROWS);
+        saveSnapshot(csv);
+        String text = Files.readString(csv, StandardCharsets.UTF_8);
+        int middle = text.indexOf("|Item 10000|");
+        Files.writeString(csv, text.substring(0, middle) + "|Item 10000 (edited)|" + text.substring(middle + 12),
+                StandardCharsets.UTF_8);
+
+        TransactionStore store = new TransactionStore();
+        assertEquals(0, LedgerSnapshot.load(csv, store));
+        assertEquals(0, store.size());
+
+        Ledger ledger = new Ledger();
+        ledger.load(csv);
+        assertSameRows(TransactionLoader.load(csv), ledger.getStore());
+    }
+
+    @Test
+    void replacedFileIsNoticed() throws IOException {
+        Path csv = write(ROWS);
+        saveSnapshot(csv);
+        String text = Files.readString(csv, StandardCharsets.UTF_8);
+        Files.writeString(csv, text.replace("2020-", "2021-"), StandardCharsets.UTF_8);
+        // same length, different first block
+
+        assertEquals(0, LedgerSnapshot.load(csv, new TransactionStore()));
+    }
+
+    @Test
+    void damagedSnapshotIsIgnored() throws IOException {
+        Path csv = write(ROWS);
+        saveSnapshot(csv);
+        Path snapshot = LedgerSnapshot.snapshotPath(csv);
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+
+        TransactionStore store = new TransactionStore();
+        assertEquals(0, LedgerSnapshot.load(csv, store));
+        assertEquals(0, store.size());
+    }
+
+    // ------------------- Helpers -------------------
+
+    private Path write(int rows) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        for (int row = 0; row < rows; row++) {
+            csv.append(date.plusDays(row / 20)).append('|')
+                    .append(String.format(Locale.ROOT, "%02d:%02d:00", row % 24, row % 60)).append("|Item ").append(row).append(row % 7 == 0 ? " café" : "").append("|Vendor")
+                    .append(row % 50).append('|').append(String.format(Locale.ROOT, "%.2f", (row % 2001 - 1000) / 100.0))
+                    .append('\n');
+        }
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static void saveSnapshot(Path csv) throws IOException {
+        Ledger ledger = new Ledger();
+        ledger.load(csv);
+        ledger.saveSnapshot(csv, 0);
+        assertTrue(Files.exists(LedgerSnapshot.snapshotPath(csv)));
+    }
+
+    private static void assertSameRows(TransactionStore expected, TransactionStore actual) {
+        assertEquals(expected.size(), actual.size(), "rows");
+        for (int row = 0; row < expected.size(); row++) {
+            assertEquals(expected.epochDay(row), actual.epochDay(row), "date of row " + row);
+            assertEquals(expected.secondOfDay(row), actual.secondOfDay(row), "time of row " + row);
+            assertEquals(expected.cents(row), actual.cents(row), "amount of row " + row);
+            assertEquals(expected.description(row), actual.description(row), "description of row " + row);
+            assertEquals(expected.vendor(row), actual.vendor(row), "vendor of row " + row);
+        }
+    }
+}
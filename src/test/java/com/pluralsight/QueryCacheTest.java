@@ -0,0 +1,120 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions and ranges
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.util.Random;
+// import Random to generate rows
+
+import java.util.stream.IntStream;
+// import IntStream for the brute-force scan
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+// import assertArrayEquals to compare row lists
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare cache counters
+
+/*
+ Query cache tests
+ ------------------------------------------------
+ Queries are cached, then rows are appended one at a time and in
+ batches, some back-dated into cached ranges. Every later answer must
+ match a scan of the store, and an append must drop only the entries
+ whose query matches one of the new rows.
+*/
+class QueryCacheTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2024, 1, 1);
+    // first date of the generated rows
+
+    private static final Query[] QUERIES = {
+            Query.all(),
+            Query.deposits(),
+            Query.payments(),
+            Query.between(LocalDate.of(2024, 1, 1), LocalDate.of(2024, 1, 31)),
+            Query.between(LocalDate.of(2024, 3, 1), null),
+            Query.vendor("vendor1"),
+            Query.keyword("coffee"),
+            Query.and(Query.between(LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29)), Query.vendor("Vendor2")),
+            Query.or(Query.keyword("rent"), Query.amount(-12.5))
+    };
+    // single criteria and combinations, with and without a date range
+
+    @Test
+    void answersStayCorrectAfterAppends() {
+        Random random = new Random(19);
+        Ledger ledger = new Ledger();
+        for (int i = 0; i < 2000; i++) {
+            ledger.append(transaction(random, FIRST.plusDays(random.nextInt(90))));
+        }
+
+        for (int round = 0; round < 10; round++) {
+            for (Query query : QUERIES) {
+                check(ledger, query, false);
+                check(ledger, query, true);
+                check(ledger, query, true);
+                // the second run is answered from the cache
+            }
+            if (round % 2 == 0) {
+                ledger.append(transaction(random, FIRST.plusDays(random.nextInt(120))));
+            } else {
+                TransactionStore batch = new TransactionStore();
+                for (int i = 0; i < 20; i++) {
+                    batch.add(transaction(random, FIRST.plusDays(random.nextInt(120))));
+                }
+                ledger.appendAll(batch);
+            }
+        }
+    }
+
+    @Test
+    void appendDropsOnlyMatchingEntries() {
+        Ledger ledger = new Ledger();
+        ledger.append(new Transaction(LocalDate.of(2023, 6, 1), LocalTime.NOON, "Old rent", "Landlord", -900));
+        ledger.append(new Transaction(LocalDate.of(2024, 6, 1), LocalTime.NOON, "Coffee", "Cafe", -3.5));
+        Query lastYear = Query.between(LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        Query cafe = Query.vendor("cafe");
+        ledger.query(lastYear, true);
+        ledger.query(cafe, false);
+        QueryCache cache = ledger.getQueryCache();
+        long invalidations = cache.getInvalidations();
+
+        ledger.append(new Transaction(LocalDate.of(2024, 6, 2), LocalTime.NOON, "Tea", "Cafe", -2.0));
+        // matches the vendor query only
+
+        assertEquals(invalidations + 1, cache.getInvalidations());
+        long hits = cache.getHits();
+        assertEquals(1, ledger.query(lastYear, true).length);
+        assertEquals(hits + 1, cache.getHits());
+        // last year's report is still cached
+        assertEquals(2, ledger.query(cafe, false).length);
+        assertEquals(hits + 1, cache.getHits());
+        // the vendor query ran again and sees the new row
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static Transaction transaction(Random random, LocalDate date) {
+        String[] descriptions = {"Coffee", "Rent", "Groceries", "Coffee beans"};
+        double amount = random.nextInt(8) == 0 ? -12.5 : (random.nextInt(20_001) - 10_000) / 100.0;
+        return new Transaction(date, LocalTime.ofSecondOfDay(random.nextInt(86_400)),
+                descriptions[random.nextInt(descriptions.length)], "Vendor" + random.nextInt(4), amount);
+    }
+
+    private static void check(Ledger ledger, Query query, boolean dateOrder) {
+        TransactionStore store = ledger.getStore();
+        int[] expected = IntStream.range(0, store.size()).filter(row -> query.matches(store, row)).toArray();
+        if (dateOrder) {
+            DateIndex.sortByDate(store, expected);
+        }
+        assertArrayEquals(expected, ledger.query(query, dateOrder), query + (dateOrder ? " by date" : ""));
+    }
+}
@@ -0,0 +1,213 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.math.BigDecimal;
+// import BigDecimal for exact reference amounts
+
+import java.math.RoundingMode;
+// import RoundingMode to round reference amounts half-up
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to turn test lines into bytes
+
+import java.time.LocalDate;
+// import LocalDate for the reference parse
+
+import java.time.LocalTime;
+// import LocalTime for the reference parse
+
+import java.time.format.DateTimeFormatter;
+// import DateTimeFormatter for the reference date pattern
+
+import java.util.List;
+// import List for the test lines
+
+import java.util.Random;
+// import Random for repeatable round trips
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare results
+
+/*
+ Record decoder tests
+ ------------------------------------------------
+ Every line is decoded twice: by RecordDecoder from its bytes, and by
+ the original split("\\|") path (LocalDate.parse with the yyyy-MM-dd
+ pattern, LocalTime.parse, and the amount read as an exact decimal).
+ Both must accept the same lines and produce the same values.
+*/
+class RecordDecoderTest {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // same pattern the menu has always used
+
+    private static final String REJECTED = "rejected";
+    // result for a line either path skips
+
+    @Test
+    void wellFormedLines() {
+        assertSameAsSplit(List.of(
+                "2023-01-15|10:30:00|Coffee|Cafe|-3.50",
+                "2024-02-29|23:59:59|Leap day|Bank|1500.0",
+                "1999-12-31|00:00:00|Party|Store|-0.01",
+                "2023-06-01|12:00:00||Vendor|5",
+                "2023-06-01|12:00:00|Description with spaces| Vendor |  -12.5  ",
+                "2023-06-01|12:00:00|Unicode café|Bäckerei|-4.20",
+                "2023-06-01|12:00:00|Plus sign|Vendor|+7.25",
+                "2023-06-01|12:00:00|No fraction digits after dot|Vendor|7.",
+                "2023-06-01|12:00:00|No integer digits|Vendor|.75"));
+    }
+
+    @Test
+    void trailingEmptyFields() {
+        assertSameAsSplit(List.of(
+                "2023-01-15|10:30:00|Coffee|Cafe|-3.50|",
+                "2023-01-15|10:30:00|Coffee|Cafe|-3.50||",
+                "2023-01-15|10:30:00|Coffee|Cafe|",
+                "2023-01-15|10:30:00|Coffee||",
+                "2023-01-15|10:30:00|Coffee|Cafe|-3.50|extra",
+                "2023-01-15|10:30:00|Coffee|Cafe",
+                "|10:30:00|Coffee|Cafe|-3.50",
+                ""));
+    }
+
+    @Test
+    void shortTimes() {
+        assertSameAsSplit(List.of(
+                "2023-01-15|10:30|Written by LocalTime.toString|Cafe|-3.50",
+                "2023-01-15|00:00|Midnight|Cafe|-3.50",
+                "2023-01-15|24:00|Bad hour|Cafe|-3.50",
+                "2023-01-15|10:60|Bad minute|Cafe|-3.50",
+                "2023-01-15|10:30:60|Bad second|Cafe|-3.50",
+                "2023-01-15|1:30|Short hour|Cafe|-3.50"));
+    }
+
+    @Test
+    void exponentAmounts() {
+        assertSameAsSplit(List.of(
+                "2023-01-15|10:30:00|Big|Bank|1.2E7",
+                "2023-01-15|10:30:00|Small|Bank|2e-2",
+                "2023-01-15|10:30:00|Negative|Bank|-1E2",
+                "2023-01-15|10:30:00|Signed exponent|Bank|5.5E+1",
+                "2023-01-15|10:30:00|Rounds up|Bank|1.235E0",
+                "2023-01-15|10:30:00|Missing exponent|Bank|1E",
+                "2023-01-15|10:30:00|Comma|Bank|12,50",
+                "2023-01-15|10:30:00|Letters|Bank|abc"));
+    }
+
+    @Test
+    void nonAsciiAroundAmounts() {
+        assertSameAsSplit(List.of(
+                "2023-01-15|10:30:00|Currency sign|Bank|€5",
+                "2023-01-15|10:30:00|Trailing currency sign|Bank|5€",
+                "2023-01-15|10:30:00|No-break space|Bank|\u00A05.00",
+                "2023-01-15|10:30:00|Trailing accent|Bank|5.00é",
+                "2023-01-15|10:30:00|Tab and space|Bank|\t 5.00 \t"));
+    }
+
+    @Test
+    void roundingOfExtraFractionDigits() {
+        assertSameAsSplit(List.of(
+                "2023-01-15|10:30:00|Half|Bank|0.125",
+                "2023-01-15|10:30:00|Negative half|Bank|-0.125",
+                "2023-01-15|10:30:00|Binary trap|Bank|1.005",
+                "2023-01-15|10:30:00|Below half|Bank|2.0049"));
+    }
+
+    @Test
+    void datesResolveLikeTheMenuPattern() {
+        assertSameAsSplit(List.of(
+                "2023-02-30|10:30:00|Clamped to Feb 28|Bank|1.00",
+                "2024-02-30|10:30:00|Clamped to Feb 29|Bank|1.00",
+                "2023-04-31|10:30:00|Clamped to Apr 30|Bank|1.00",
+                "2023-02-32|10:30:00|Day 32|Bank|1.00",
+                "2023-13-01|10:30:00|Month 13|Bank|1.00",
+                "2023-00-10|10:30:00|Month 0|Bank|1.00",
+                "2023/01/15|10:30:00|Slashes|Bank|1.00",
+                "23-01-15|10:30:00|Short year|Bank|1.00"));
+    }
+
+    @Test
+    void appendRecordWritesWhatToCsvLineWrites() {
+        Random random = new Random(1);
+        RecordDecoder decoder = new RecordDecoder();
+        for (int i = 0; i < 10_000; i++) {
+            LocalDate date = LocalDate.of(1970, 1, 1).plusDays(random.nextInt(40_000));
+            LocalTime time = LocalTime.ofSecondOfDay(random.nextBoolean() ? random.nextInt(86_400) : random.nextInt(1440) * 60);
+            long cents = random.nextInt(2_000_000) - 1_000_000;
+            Transaction t = new Transaction(date, time, "Item " + i, "Vendor", cents / 100.0);
+
+            StringBuilder line = new StringBuilder();
+            RecordDecoder.appendRecord(line, (int) date.toEpochDay(), time.toSecondOfDay(), "Item " + i, "Vendor", cents);
+            assertEquals(t.toCSVLine(), line.toString());
+
+            byte[] bytes = line.toString().getBytes(StandardCharsets.UTF_8);
+            decoder.decode(bytes, 0, bytes.length);
+            assertEquals(cents, decoder.getCents(), line.toString());
+            // and it reads back to the same amount
+        }
+    }
+
+    @Test
+    void storedCentsMatchTheCsvText() {
+        Random random = new Random(2);
+        RecordDecoder decoder = new RecordDecoder();
+        TransactionStore store = new TransactionStore();
+        for (int i = 0; i < 10_000; i++) {
+            double amount = (random.nextInt(2_000_000) - 1_000_000) / 100.0 + (random.nextBoolean() ? 0.005 : 0.0049);
+            // three or four decimals, as a user might type them
+            Transaction t = new Transaction(LocalDate.of(2024, 1, 1), LocalTime.NOON, "Item", "Vendor", amount);
+            int row = store.add(t);
+
+            byte[] bytes = t.toCSVLine().getBytes(StandardCharsets.UTF_8);
+            // the line saveTransactionToFile writes for it
+            decoder.decode(bytes, 0, bytes.length);
+            assertEquals(decoder.getCents(), store.cents(row), amount + " after a restart");
+        }
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static void assertSameAsSplit(List<String> lines) {
+        for (String line : lines) {
+            assertEquals(viaSplit(line), viaDecoder(line), line);
+        }
+    }
+
+    private static String viaSplit(String line) {
+        // the original loadTransactions path
+        String[] parts = line.split("\\|");
+        if (parts.length != 5) {
+            return REJECTED;
+        }
+        try {
+            LocalDate date = LocalDate.parse(parts[0], DATE_FMT);
+            LocalTime time = LocalTime.parse(parts[1]);
+            long cents = new BigDecimal(parts[4].trim()).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+            return date.toEpochDay() + "|" + time.toSecondOfDay() + "|" + parts[2] + "|" + parts[3] + "|" + cents;
+        } catch (RuntimeException e) {
+            return REJECTED;
+        }
+    }
+
+    private static String viaDecoder(String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        RecordDecoder decoder = new RecordDecoder();
+        try {
+            if (!decoder.decode(bytes, 0, bytes.length)) {
+                return REJECTED;
+            }
+        } catch (RuntimeException e) {
+            return REJECTED;
+        }
+        String description = new String(bytes, decoder.getDescriptionStart(),
+                decoder.getDescriptionEnd() - decoder.getDescriptionStart(), StandardCharsets.UTF_8);
+        String vendor = new String(bytes, decoder.getVendorStart(),
+                decoder.getVendorEnd() - decoder.getVendorStart(), StandardCharsets.UTF_8);
+        return decoder.getEpochDay() + "|" + decoder.getSecondOfDay() + "|" + description + "|" + vendor + "|"
+                + decoder.getCents();
+    }
+}
@@ -0,0 +1,86 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions and ranges
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.util.Random;
+// import Random to generate rows and ranges
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare totals
+
+/*
+ Rollup tests
+ ------------------------------------------------
+ Rows span several years and arrive in random date order, some with a
+ zero amount. Totals for whole years, whole months, single days and
+ ranges that cut through all three must match a scan of the store.
+*/
+class RollupsTest {
+
+    private static final LocalDate FIRST = LocalDate.of(2022, 11, 15);
+    // first date of the generated rows
+
+    private static final int DAYS = 1000;
+    // generated rows fall on this many days, across four calendar years
+
+    @Test
+    void totalsMatchScan() {
+        Random random = new Random(17);
+        Ledger ledger = new Ledger();
+        for (int i = 0; i < 5000; i++) {
+            LocalDate date = FIRST.plusDays(random.nextInt(DAYS));
+            long cents = random.nextInt(10) == 0 ? 0 : random.nextInt(200_001) - 100_000;
+            ledger.append(new Transaction(date, LocalTime.NOON, "Item", "Vendor", cents / 100.0));
+        }
+        Rollups rebuilt = new Rollups();
+        rebuilt.rebuild(ledger.getStore());
+
+        check(ledger, rebuilt, LocalDate.of(2023, 1, 1), LocalDate.of(2023, 12, 31));
+        // one whole year
+        check(ledger, rebuilt, LocalDate.of(2024, 2, 1), LocalDate.of(2024, 2, 29));
+        // one whole month, in a leap year
+        check(ledger, rebuilt, LocalDate.of(2024, 7, 4), LocalDate.of(2024, 7, 4));
+        // one day
+        check(ledger, rebuilt, LocalDate.of(2022, 12, 30), LocalDate.of(2025, 1, 2));
+        // days, whole years, days
+        check(ledger, rebuilt, LocalDate.of(2020, 1, 1), LocalDate.of(2022, 11, 14));
+        // before the first row
+        for (int i = 0; i < 300; i++) {
+            LocalDate start = FIRST.minusDays(10).plusDays(random.nextInt(DAYS + 20));
+            check(ledger, rebuilt, start, start.plusDays(random.nextInt(400) - 5));
+            // includes ranges that end before they start
+        }
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static void check(Ledger ledger, Rollups rebuilt, LocalDate start, LocalDate end) {
+        Rollups.Totals expected = new Rollups.Totals();
+        TransactionStore store = ledger.getStore();
+        for (int row = 0; row < store.size(); row++) {
+            LocalDate date = LocalDate.ofEpochDay(store.epochDay(row));
+            if (!date.isBefore(start) && !date.isAfter(end)) {
+                long cents = store.cents(row);
+                expected.add(Math.max(cents, 0), Math.min(cents, 0), cents > 0 ? 1 : 0, cents < 0 ? 1 : 0);
+            }
+        }
+        String range = start + " to " + end;
+        assertTotals(expected, ledger.totalsBetween(start, end), range);
+        assertTotals(expected, rebuilt.totalsBetween(start, end), range + " after rebuild");
+    }
+
+    private static void assertTotals(Rollups.Totals expected, Rollups.Totals actual, String range) {
+        assertEquals(expected.depositCents, actual.depositCents, range + " deposits");
+        assertEquals(expected.paymentCents, actual.paymentCents, range + " payments");
+        assertEquals(expected.depositCount, actual.depositCount, range + " deposit count");
+        assertEquals(expected.paymentCount, actual.paymentCount, range + " payment count");
+    }
+}
@@ -0,0 +1,155 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import org.junit.jupiter.api.io.TempDir;
+// import TempDir for a scratch directory per test
+
+import java.io.IOException;
+// import IOException for file errors
+
+import java.nio.charset.StandardCharsets;
+// import StandardCharsets to write the test files
+
+import java.nio.file.Files;
+// import Files to write and read the test files
+
+import java.nio.file.Path;
+// import Path to locate the test files
+
+import java.time.LocalDate;
+// import LocalDate for the reference parse
+
+import java.time.LocalTime;
+// import LocalTime for the reference parse
+
+import java.time.format.DateTimeFormatter;
+// import DateTimeFormatter for the reference date pattern
+
+import java.util.ArrayList;
+// import ArrayList for the reference rows
+
+import java.util.List;
+// import List for the reference rows
+
+import java.util.Locale;
+// import Locale so amounts always use a '.' decimal point
+
+import java.util.Random;
+// import Random for repeatable test data
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare rows
+
+/*
+ Parallel loader tests
+ ------------------------------------------------
+ TransactionLoader cuts the file into 4 MB chunks and parses them on
+ the fork-join pool; these tests compare its rows with a plain
+ line-by-line load of the same file, using a file large enough to be
+ cut several times, so lines end up on both sides of chunk boundaries.
+*/
+class TransactionLoaderTest {
+
+    private static final DateTimeFormatter DATE_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    // same pattern the menu has always used
+
+    @TempDir
+    Path dir;
+    // scratch directory, deleted after each test
+
+    @Test
+    void parallelLoadMatchesSequentialLoad() throws IOException {
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, generate(250_000, new Random(42)), StandardCharsets.UTF_8);
+        // about 12 MB: three chunk boundaries
+
+        assertSameRows(sequentialLoad(file), TransactionLoader.load(file));
+    }
+
+    @Test
+    void badValuesSkipOnlyTheirOwnLine() throws IOException {
+        StringBuilder csv = new StringBuilder(generate(100_000, new Random(7)));
+        csv.append("2023-13-01|10:00:00|Bad month|Vendor|-1.00\n");
+        csv.append("2023-01-01|25:00:00|Bad hour|Vendor|-1.00\n");
+        csv.append("2023-01-01|10:00:00|Bad amount|Vendor|12,50\n");
+        csv.append(generate(100_000, new Random(8)));
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, csv, StandardCharsets.UTF_8);
+
+        TransactionStore loaded = TransactionLoader.load(file);
+        assertEquals(200_000, loaded.size());
+        // the rows before and after the bad lines are all kept
+        assertSameRows(sequentialLoad(file), loaded);
+    }
+
+    @Test
+    void windowsLineEndingsAndMissingLastLineBreak() throws IOException {
+        Path file = dir.resolve("transactions.csv");
+        Files.writeString(file, "2023-01-01|10:00:00|Coffee|Cafe|-3.50\r\n"
+                + "2023-01-02|11:30|Pay|Employer|1500.0", StandardCharsets.UTF_8);
+
+        TransactionStore loaded = TransactionLoader.load(file);
+        assertEquals(2, loaded.size());
+        assertEquals("Cafe", loaded.vendor(0));
+        assertEquals(150000, loaded.cents(1));
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static String generate(int rows, Random random) {
+        // lines of different lengths, some with HH:mm times and a few malformed ones
+        StringBuilder csv = new StringBuilder();
+        LocalDate date = LocalDate.of(2020, 1, 1);
+        for (int i = 0; i < rows; i++) {
+            if (random.nextInt(50) == 0) {
+                date = date.plusDays(1);
+            }
+            String time = random.nextBoolean()
+                    ? String.format("%02d:%02d:%02d", random.nextInt(24), random.nextInt(60), random.nextInt(60))
+                    : String.format("%02d:%02d", random.nextInt(24), random.nextInt(60));
+            String description = "Item " + random.nextInt(1000) + " ".repeat(random.nextInt(20));
+            String vendor = "Vendor" + random.nextInt(200);
+            String amount = String.format(Locale.ROOT, "%.2f", (random.nextInt(200_000) - 100_000) / 100.0);
+            if (random.nextInt(1000) == 0) {
+                csv.append("not a transaction\n");
+                // wrong field count, skipped by both loaders
+            }
+            csv.append(date).append('|').append(time).append('|').append(description).append('|')
+                    .append(vendor).append('|').append(amount).append('\n');
+        }
+        return csv.toString();
+    }
+
+    private static List<Transaction> sequentialLoad(Path file) throws IOException {
+        // the original loadTransactions rules, one line at a time
+        List<Transaction> rows = new ArrayList<>();
+        for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+            String[] parts = line.split("\\|");
+            if (parts.length != 5) {
+                continue;
+            }
+            try {
+                rows.add(new Transaction(LocalDate.parse(parts[0], DATE_FMT), LocalTime.parse(parts[1]),
+                        parts[2], parts[3], Double.parseDouble(parts[4])));
+            } catch (RuntimeException e) {
+                // bad value: skipped, as the loader does
+            }
+        }
+        return rows;
+    }
+
+    private static void assertSameRows(List<Transaction> expected, TransactionStore actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int row = 0; row < expected.size(); row++) {
+            Transaction t = expected.get(row);
+            assertEquals(t.getDate().toEpochDay(), actual.epochDay(row), "date of row " + row);
+            assertEquals(t.getTime().toSecondOfDay(), actual.secondOfDay(row), "time of row " + row);
+            assertEquals(Math.round(t.getAmount() * 100), actual.cents(row), "amount of row " + row);
+            assertEquals(t.getDescription(), actual.description(row), "description of row " + row);
+            assertEquals(t.getVendor(), actual.vendor(row), "vendor of row " + row);
+        }
+    }
+}
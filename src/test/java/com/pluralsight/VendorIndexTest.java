@@ -0,0 +1,97 @@
+package com.pluralsight;
+// declares that this class belongs to the package help organize
+
+import org.junit.jupiter.api.Test;
+// import Test to mark test methods
+
+import java.time.LocalDate;
+// import LocalDate for the test transactions
+
+import java.time.LocalTime;
+// import LocalTime for the test transactions
+
+import java.util.Arrays;
+// import Arrays to compare row lists
+
+import java.util.Random;
+// import Random to pick vendors
+
+import java.util.stream.IntStream;
+// import IntStream for the brute-force scan
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+// import assertArrayEquals to compare row lists
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+// import assertEquals to compare counts
+
+/*
+ Vendor index tests
+ ------------------------------------------------
+ Vendor names differ only in case, including letters whose upper and
+ lower case forms are not one-to-one. Every lookup must return the same
+ rows as String.equalsIgnoreCase over the whole store.
+*/
+class VendorIndexTest {
+
+    private static final String[] VENDORS = {
+            "Amazon", "AMAZON", "amazon", "Cafe", "CAFÉ", "café", "Straße", "STRASSE",
+            "İstanbul Market", "istanbul market", "ΣΟΦΙΑ", "σοφια", "Σοφιας", "Kelvin", "\u212Aelvin"
+    };
+    // includes the Kelvin sign, which equalsIgnoreCase treats like 'K'
+
+    @Test
+    void lookupsMatchEqualsIgnoreCase() {
+        Random random = new Random(5);
+        Ledger ledger = new Ledger();
+        TransactionStore batch = new TransactionStore();
+        for (int i = 0; i < 3000; i++) {
+            Transaction t = new Transaction(LocalDate.of(2024, 1, 1 + i % 28), LocalTime.NOON, "Item",
+                    VENDORS[random.nextInt(VENDORS.length)], -1.0);
+            if (i % 3 == 0) {
+                batch.add(t);
+            } else {
+                ledger.append(t);
+            }
+        }
+        ledger.appendAll(batch);
+        // rows arrive one at a time and in a batch
+
+        String[] lookups = Arrays.copyOf(VENDORS, VENDORS.length + 3);
+        lookups[VENDORS.length] = "aMaZoN";
+        lookups[VENDORS.length + 1] = "Nobody";
+        lookups[VENDORS.length + 2] = "";
+        for (String vendor : lookups) {
+            int[] expected = bruteForce(ledger.getStore(), vendor);
+            assertArrayEquals(expected, ledger.rowsForVendor(vendor), vendor);
+            assertEquals(expected.length, ledger.getVendorIndex().count(vendor), vendor);
+        }
+    }
+
+    @Test
+    void rebuildMatchesIncrementalAdds() {
+        Random random = new Random(9);
+        TransactionStore store = new TransactionStore();
+        VendorIndex incremental = new VendorIndex();
+        for (int i = 0; i < 1000; i++) {
+            int row = store.add(new Transaction(LocalDate.of(2024, 2, 1), LocalTime.NOON, "Item",
+                    VENDORS[random.nextInt(VENDORS.length)], 1.0));
+            incremental.add(store, row);
+        }
+        VendorIndex rebuilt = new VendorIndex();
+        rebuilt.rebuild(store);
+
+        for (String vendor : VENDORS) {
+            assertArrayEquals(incremental.rows(vendor), rebuilt.rows(vendor), vendor);
+            assertArrayEquals(bruteForce(store, vendor), rebuilt.rows(vendor), vendor);
+        }
+    }
+
+    // ------------------- Helpers -------------------
+
+    private static int[] bruteForce(TransactionStore store, String vendor) {
+        return IntStream.range(0, store.size())
+                .filter(row -> store.vendor(row).equalsIgnoreCase(vendor))
+                .toArray();
+    }
+}